@@ -21,6 +21,7 @@ import io.github.deglans.fractal.utility.Complex;
 import io.github.deglans.fractal.utility.CartesianPlane;
 import io.github.deglans.fractal.utility.CanvasPoint;
 import io.github.deglans.fractal.mandelbrot.DataBox;
+import io.github.deglans.fractal.mandelbrot.PerturbationEngine;
 
 import java.io.IOException;
 import java.net.URL;
@@ -43,7 +44,7 @@ import javafx.util.Callback;
  * This class allow to zoom and drag&drop fractals.
  * With right click you can select a constant for Julia like fractals.
  *
- * @version 0.11
+ * @version 0.14
  * @author Deglans Dalpasso
  */
 public class CartesianCanvasGUI extends Canvas implements Initializable {
@@ -123,8 +124,14 @@ public class CartesianCanvasGUI extends Canvas implements Initializable {
      */
     @FXML
     public void handleOnMouseMoved(MouseEvent me) {
-        Complex pos = cartesianPlane.toComplex(me.getX(), me.getY());
-        tooltip.setText(pos.toString());
+        if (PerturbationEngine.isNeeded(cartesianPlane)) {
+            // A Complex can't distinguish the pixels
+            tooltip.setText(cartesianPlane.toDoubleDoubleComplex(me.getX(), me.getY()).toString());
+        }
+        else {
+            Complex pos = cartesianPlane.toComplex(me.getX(), me.getY());
+            tooltip.setText(pos.toString());
+        }
         me.consume();
     }
 
@@ -136,7 +143,7 @@ public class CartesianCanvasGUI extends Canvas implements Initializable {
     @FXML
     public void handleOnMousePressed(MouseEvent me) {
         if (me.getButton() == MouseButton.PRIMARY) {
-            startDragAndDrop = new CanvasPoint(me.getX(), me.getY());
+            startDragAndDrop = new CanvasPoint(Math.rint(me.getX()), Math.rint(me.getY()));
             imageDragAndDrop = snapshot(null, null);
         }
         me.consume();
@@ -167,9 +174,8 @@ public class CartesianCanvasGUI extends Canvas implements Initializable {
     @FXML
     public void handleOnMouseReleased(MouseEvent me) {
         if (me.getButton() == MouseButton.PRIMARY) {
-            Complex start = cartesianPlane.toComplex(startDragAndDrop.getX(), startDragAndDrop.getY());
-            Complex stop = cartesianPlane.toComplex(me.getX(), me.getY());
-            cartesianPlane.move(start, stop);
+            // A move by whole pixels, so the previous pixels can be reused
+            cartesianPlane.move(startDragAndDrop, new CanvasPoint(Math.rint(me.getX()), Math.rint(me.getY())));
             if (render != null) {
                 render.call(null);
             }
@@ -182,6 +188,9 @@ public class CartesianCanvasGUI extends Canvas implements Initializable {
      * Default zoom factor 2.
      * Use Control for have a zoom factor of 1.1.
      * Use Shift for have a zoom factor of 10.
+     * The current image is shown at once scaled to the new view, until the
+     * rendering draws the new one. The zoom is centered on a whole pixel,
+     * so the old pixels fall on the new ones and can be reused.
      *
      * @param se the ScrollEvent.
      */
@@ -189,7 +198,19 @@ public class CartesianCanvasGUI extends Canvas implements Initializable {
     public void handleOnScroll(ScrollEvent se) {
         double scaleBase = se.isControlDown() ? 1.1 : se.isShiftDown() ? 10 : 2;
         double byScale = (se.getDeltaY() > 0) ? 1 / scaleBase : scaleBase;
-        cartesianPlane.zoomAtMousePos(cartesianPlane.toComplex(se.getX(), se.getY()), byScale);
+        double x = Math.rint(se.getX());
+        double y = Math.rint(se.getY());
+
+        // Preview: the point (x, y) doesn't move, the rest is scaled by 1 / byScale
+        Image preview = snapshot(null, null);
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0, 0, getWidth(), getHeight());
+        gc.setImageSmoothing(false);
+        gc.drawImage(preview, x * (1 - 1 / byScale), y * (1 - 1 / byScale),
+                getWidth() / byScale, getHeight() / byScale);
+
+        cartesianPlane.zoomAtCanvasPoint(x, y, byScale);
         if (render != null) {
             render.call(null);
         }
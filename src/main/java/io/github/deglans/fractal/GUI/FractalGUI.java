@@ -21,10 +21,18 @@ import io.github.deglans.fractal.utility.Complex;
 import io.github.deglans.fractal.mandelbrot.MandelbrotBase;
 import io.github.deglans.fractal.mandelbrot.DataBox;
 import io.github.deglans.fractal.mandelbrot.FractalFactory;
+import io.github.deglans.fractal.mandelbrot.ColoringMode;
+import io.github.deglans.fractal.mandelbrot.KernelEngine;
+import io.github.deglans.fractal.mandelbrot.RenderStrategy;
+import io.github.deglans.fractal.mandelbrot.RenderedFrame;
+import io.github.deglans.fractal.utility.ColorPalette;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
 import java.util.ResourceBundle;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -33,15 +41,17 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.layout.BorderPane;
 
 /**
  * FractalGUI manage the interaction between user and FractalFactory.
  *
- * @version 0.12
+ * @version 0.19
  * @author Deglans Dalpasso
  */
 public class FractalGUI extends BorderPane implements Initializable {
@@ -51,6 +61,17 @@ public class FractalGUI extends BorderPane implements Initializable {
      */
     private MandelbrotBase fractalMaker = null;
 
+    /**
+     * The result of the last calculus finished, reused by the next one
+     * if the settings don't change (see MandelbrotBase.setPreviousFrame()).
+     */
+    private RenderedFrame lastFrame = null;
+
+    /**
+     * The settings of the last calculus finished.
+     */
+    private List<Object> lastSettings = null;
+
     /**
      * CartesianCanvasGUI.
      */
@@ -63,12 +84,36 @@ public class FractalGUI extends BorderPane implements Initializable {
     @FXML
     private ComboBox cbFractalType;
 
+    /**
+     * ComboBox for select the render strategy.
+     */
+    @FXML
+    private ComboBox<RenderStrategy> cbRenderStrategy;
+
+    /**
+     * ComboBox for select the kernel engine.
+     */
+    @FXML
+    private ComboBox<KernelEngine> cbKernelEngine;
+
+    /**
+     * ComboBox for select the coloring mode.
+     */
+    @FXML
+    private ComboBox<ColoringMode> cbColoringMode;
+
     /**
      * ProgressBar for the calculus.
      */
     @FXML
     private ProgressBar pbRendering;
 
+    /**
+     * Label for the statistics of the last calculus.
+     */
+    @FXML
+    private Label lStatistics;
+
     /**
      * ColorPaletteGUI.
      */
@@ -93,6 +138,18 @@ public class FractalGUI extends BorderPane implements Initializable {
     @FXML
     private TextField tfConstant;
 
+    /**
+     * TextField for the tolerance of the periodicity check.
+     */
+    @FXML
+    private TextField tfPeriodicity;
+
+    /**
+     * TextField for the formula (used by the fractals of a formula).
+     */
+    @FXML
+    private TextField tfFormula;
+
     /**
      * Create FractalGUI by loading FractalGUI.fxml.
      *
@@ -156,6 +213,8 @@ public class FractalGUI extends BorderPane implements Initializable {
         tfMaxIterations.setText(Integer.toString(DataBox.DEFAULT_MAX_ITERATIONS));
         tfPower.setText(DataBox.DEFAULT_POWER.toString());
         tfConstant.setText(DataBox.DEFAULT_CONSTANT.toString());
+        tfPeriodicity.setText(Double.toString(DataBox.DEFAULT_PERIODICITY_TOLERANCE));
+        tfFormula.setText(DataBox.DEFAULT_FORMULA);
 
         cbFractalType.setItems(FXCollections.observableArrayList(FractalFactory.FRACTAL_LIST));
         cbFractalType.getSelectionModel().selectedItemProperty().addListener(new ChangeListener() {
@@ -165,23 +224,60 @@ public class FractalGUI extends BorderPane implements Initializable {
             }
         });
         cbFractalType.setValue(FractalFactory.FRACTAL_LIST[0]);
+
+        cbRenderStrategy.setItems(FXCollections.observableArrayList(RenderStrategy.values()));
+        cbRenderStrategy.setValue(RenderStrategy.BRUTE_FORCE);
+
+        cbKernelEngine.setItems(FXCollections.observableArrayList(KernelEngine.values()));
+        cbKernelEngine.setValue(KernelEngine.SCALAR);
+
+        cbColoringMode.setItems(FXCollections.observableArrayList(ColoringMode.values()));
+        cbColoringMode.setValue(ColoringMode.ESCAPE_TIME);
     }
 
     /**
      * Render the selected fractal with the given parameters.
      */
     private void startRender() {
-        WritableImage wi = new WritableImage((int) canvas.getWidth(), (int) canvas.getHeight());
+        int width = (int) canvas.getWidth();
+        int height = (int) canvas.getHeight();
+        WritableImage wi = new WritableImage(width, height);
 
+        ColorPalette palette = colorPaletteGUI.getColorPalette(getMaxIterations());
+        List<Object> settings = getSettings(palette);
         fractalMaker = FractalFactory.bulidFractal(cbFractalType.getSelectionModel().getSelectedItem().toString(),
-                getDataBox(wi), colorPaletteGUI.getColorPalette(getMaxIterations()));
+                getDataBox(wi), palette);
+        fractalMaker.setRenderStrategy(cbRenderStrategy.getValue());
+        fractalMaker.setKernelEngine(cbKernelEngine.getValue());
+        fractalMaker.setColoringMode(cbColoringMode.getValue());
+        if (settings.equals(lastSettings)) {
+            // Only the view changed, the pixels still visible are reused
+            fractalMaker.setPreviousFrame(lastFrame);
+        }
 
         pbRendering.progressProperty().bind(fractalMaker.progressProperty());
 
+        MandelbrotBase maker = fractalMaker;
+        fractalMaker.setOnPass(preview -> {
+            // Publish the preview of the progressive rendering on the FX thread,
+            // the image is written by the rendering thread only at the end
+            Platform.runLater(() -> {
+                if ((maker == fractalMaker) && !maker.isCancelled()) {
+                    synchronized (canvas) {
+                        canvas.getGraphicsContext2D().getPixelWriter().setPixels(0, 0, width, height,
+                                PixelFormat.getIntArgbInstance(), preview, 0, width);
+                    }
+                }
+            });
+            return null;
+        });
         fractalMaker.setOnSucceeded(t -> {
             synchronized (canvas) {
                 canvas.getGraphicsContext2D().drawImage(wi, 0, 0);
             }
+            lStatistics.setText(maker.getStatistics().toString());
+            lastFrame = maker.getFrame();
+            lastSettings = settings;
         });
 
         Thread thread = new Thread(fractalMaker);
@@ -199,6 +295,19 @@ public class FractalGUI extends BorderPane implements Initializable {
         pbRendering.setProgress(0);
     }
 
+    /**
+     * Get everything that changes the colors of the pixels, except the view.
+     *
+     * @param palette the palette of the calculus.
+     * @return the settings of the calculus.
+     */
+    private List<Object> getSettings(ColorPalette palette) {
+        return Arrays.asList(cbFractalType.getSelectionModel().getSelectedItem(),
+                tfMaxIterations.getText(), tfPower.getText(), tfConstant.getText(),
+                tfPeriodicity.getText(), tfFormula.getText(), cbRenderStrategy.getValue(),
+                cbKernelEngine.getValue(), cbColoringMode.getValue(), palette);
+    }
+
     /**
      * Get the information for make fractals.
      *
@@ -206,8 +315,8 @@ public class FractalGUI extends BorderPane implements Initializable {
      * @return the DataBox.
      */
     private DataBox getDataBox(WritableImage wi) {
-        return new DataBox(getMaxIterations(), getPower(), getConstant(),
-                canvas.getCartesianPlane(), wi);
+        return new DataBox(getMaxIterations(), getPower(), getConstant(), getPeriodicityTolerance(),
+                tfFormula.getText(), canvas.getCartesianPlane(), wi);
     }
 
     /**
@@ -219,6 +328,15 @@ public class FractalGUI extends BorderPane implements Initializable {
         return Integer.parseInt(tfMaxIterations.getText());
     }
 
+    /**
+     * Get the tolerance of the periodicity check from tfPeriodicity.
+     *
+     * @return the tolerance of the periodicity check.
+     */
+    private double getPeriodicityTolerance() {
+        return Double.parseDouble(tfPeriodicity.getText());
+    }
+
     /**
      * Get the power from tfPower.
      *
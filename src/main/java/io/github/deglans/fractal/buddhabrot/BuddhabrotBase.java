@@ -19,6 +19,7 @@ package io.github.deglans.fractal.buddhabrot;
 import io.github.deglans.fractal.utility.CanvasPoint;
 import io.github.deglans.fractal.utility.CartesianPlane;
 import io.github.deglans.fractal.utility.Complex;
+import io.github.deglans.fractal.utility.TileScheduler;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,7 +32,7 @@ import javafx.concurrent.Task;
  * https://en.wikipedia.org/wiki/Buddhabrot
  * https://it.wikipedia.org/wiki/Buddhabrot
  *
- * @version 0.1
+ * @version 0.3
  * @author Deglans Dalpasso
  */
 public abstract class BuddhabrotBase extends Task<Long> {
@@ -48,6 +49,11 @@ public abstract class BuddhabrotBase extends Task<Long> {
 
     private final int supersampling;
 
+    /**
+     * The scheduler of the tiles of the starting points.
+     */
+    private TileScheduler tileScheduler = TileScheduler.DEFAULT;
+
     /**
      * Create a new instance for one fractal calculus.
      *
@@ -61,6 +67,16 @@ public abstract class BuddhabrotBase extends Task<Long> {
         map = new Map((int) plane.getHeight(), (int) plane.getWidth());
     }
 
+    /**
+     * Set the scheduler of the tiles (their size and the number of threads)
+     * of the starting points.
+     *
+     * @param tileScheduler the scheduler of the tiles.
+     */
+    public void setTileScheduler(TileScheduler tileScheduler) {
+        this.tileScheduler = tileScheduler;
+    }
+
     /**
      * Function for calculate the fractal.
      *
@@ -73,29 +89,24 @@ public abstract class BuddhabrotBase extends Task<Long> {
 
         // Counter for the progress bar
         final AtomicInteger progress = new AtomicInteger(0);
+        int tiles = tileScheduler.getTileCount(map.columns, map.rows);
 
-        // Use a stream for the y loop
-        IntStream yStream = IntStream.range(0, map.rows).parallel();
-
-
-        //for (int y = 0; y < map.rows; y++) {
-        yStream.forEach((int y) -> {
-            for (int x = 0; x < map.columns; x++) {
-                if (isCancelled()) {
-                    return;
-                }
-                List<List<Complex>> multipath = calculatePathSS(plane.toComplex(x, y));
-                multipath.stream().forEach((l) -> {
-                    l.stream().forEach((z) -> {
-                        incrementAtPosition(z);
+        tileScheduler.render(map.columns, map.rows, (int x0, int y0, int x1, int y1) -> {
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    List<List<Complex>> multipath = calculatePathSS(plane.toComplex(x, y));
+                    multipath.stream().forEach((l) -> {
+                        l.stream().forEach((z) -> {
+                            incrementAtPosition(z);
+                        });
                     });
-                });
-            }
-            if (isCancelled()) {
-                return;
+                }
             }
-            updateProgress(progress.incrementAndGet(), map.rows);
-        });
+            updateProgress(progress.incrementAndGet(), tiles);
+        }, this::isCancelled);
 
         drawImage();
 
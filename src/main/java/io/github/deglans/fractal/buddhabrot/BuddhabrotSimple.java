@@ -17,11 +17,12 @@
 package io.github.deglans.fractal.buddhabrot;
 
 import io.github.deglans.fractal.utility.CartesianPlane;
+import io.github.deglans.fractal.utility.ColorPalette;
 import io.github.deglans.fractal.utility.Complex;
 
 import java.util.ArrayList;
 import java.util.List;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 
@@ -30,7 +31,7 @@ import javafx.scene.paint.Color;
  * https://en.wikipedia.org/wiki/Buddhabrot
  * https://it.wikipedia.org/wiki/Buddhabrot
  *
- * @version 0.1
+ * @version 0.2
  * @author Deglans Dalpasso
  */
 public class BuddhabrotSimple extends BuddhabrotBase {
@@ -65,14 +66,17 @@ public class BuddhabrotSimple extends BuddhabrotBase {
     protected void drawImage() {
         double maxMap = getMax();
 
-        PixelWriter pixelWriter = image.getPixelWriter();
+        int[] argb = new int[getRows() * getColumns()];
 
         for (int y = 0; y < getRows(); y++) {
             for (int x = 0; x < getColumns(); x++) {
                 Color c = zero.interpolate(max, (double)getValue(y, x) / maxMap);
-                pixelWriter.setColor(x, y, c);
+                argb[y * getColumns() + x] = ColorPalette.toArgb(c);
             }
         }
+
+        image.getPixelWriter().setPixels(0, 0, getColumns(), getRows(),
+                PixelFormat.getIntArgbInstance(), argb, 0, getColumns());
     }
 
     @Override
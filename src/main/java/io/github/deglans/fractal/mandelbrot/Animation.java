@@ -39,7 +39,7 @@ import javafx.scene.image.WritableImage;
 /**
  * Create gif animations of fractals.
  *
- * @version 0.6
+ * @version 0.7
  * @author Deglans Dalpasso
  */
 public class Animation extends Task<Long> {
@@ -236,7 +236,8 @@ public class Animation extends Task<Long> {
         CartesianPlane new_cp = new CartesianPlane(start.getCartesianPlane().getWidth(),
                 start.getCartesianPlane().getHeight(), nxt_upLeft, nxt_downRight);
 
-        return new DataBox(start.getMaxIterations(), nxt_power, nxt_constant, new_cp, frameBuffer[n]);
+        return new DataBox(start.getMaxIterations(), nxt_power, nxt_constant,
+                start.getPeriodicityTolerance(), start.getFormula(), new_cp, frameBuffer[n]);
     }
 
     /**
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * BivariateLinearApproximation (BLA) is a table of linear steps along the
+ * reference orbit: while the offset d is small, l iterations starting from
+ * the reference point m are d(m+l) = A*d(m) + B*dc.
+ *
+ * One iteration is linear if the quadratic term is negligible:
+ * d(m+1) = p*Z(m)^(p-1)*d + (p 2)*Z(m)^(p-2)*d^2 + ... + dc,
+ * so A = p*Z(m)^(p-1), B = 1, valid for |d| less than R = EPSILON*2*|Z(m)|/(p-1).
+ * Two steps x and y are merged in one step:
+ * A = Ay*Ax, B = Ay*Bx + By, R = min(Rx, (Ry - |Bx|*max|dc|) / |Ax|).
+ * Level k of the table has the steps of 2^k iterations that start from
+ * m = 1 + j*2^k (the step from Z(0) is skipped, for the Mandelbrot set
+ * Z(0) = 0 and the iteration is not linear).
+ * A pixel at the reference point m uses the longest valid step that
+ * starts from m, so it can jump many iterations at once.
+ *
+ * https://mathr.co.uk/blog/2022-02-21_deep_zoom_theory_and_practice_again.html
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+final class BivariateLinearApproximation {
+
+    /**
+     * The relative size of the neglected non-linear terms.
+     */
+    static final double EPSILON = 0x1p-32;
+
+    /**
+     * The real parts of A, for every level.
+     */
+    private final double[][] aRe;
+
+    /**
+     * The imaginary parts of A, for every level.
+     */
+    private final double[][] aIm;
+
+    /**
+     * The real parts of B, for every level.
+     */
+    private final double[][] bRe;
+
+    /**
+     * The imaginary parts of B, for every level.
+     */
+    private final double[][] bIm;
+
+    /**
+     * The squares of the validity radii, for every level.
+     */
+    private final double[][] radius2;
+
+    /**
+     * Build the table along the reference orbit.
+     *
+     * @param orbit the reference orbit.
+     * @param power the integer power.
+     * @param maxDc the greatest |dc| of the image (0 for the Julia set).
+     */
+    BivariateLinearApproximation(ReferenceOrbit orbit, int power, double maxDc) {
+        double[] refRe = orbit.getReal();
+        double[] refIm = orbit.getImag();
+        // Single steps from m = 1 to m = length - 2
+        int steps = Math.max(0, orbit.length() - 2);
+        int levels = 1;
+        while ((steps >> levels) > 0) {
+            levels++;
+        }
+
+        aRe = new double[levels][];
+        aIm = new double[levels][];
+        bRe = new double[levels][];
+        bIm = new double[levels][];
+        radius2 = new double[levels][];
+
+        aRe[0] = new double[steps];
+        aIm[0] = new double[steps];
+        bRe[0] = new double[steps];
+        bIm[0] = new double[steps];
+        radius2[0] = new double[steps];
+        for (int j = 0; j < steps; j++) {
+            double zRe = refRe[j + 1];
+            double zIm = refIm[j + 1];
+            // A = p * Z^(p-1)
+            double pRe = power;
+            double pIm = 0;
+            for (int i = 1; i < power; i++) {
+                double re = pRe * zRe - pIm * zIm;
+                pIm = pRe * zIm + pIm * zRe;
+                pRe = re;
+            }
+            aRe[0][j] = pRe;
+            aIm[0][j] = pIm;
+            bRe[0][j] = 1;
+            double r = EPSILON * 2 * Math.hypot(zRe, zIm) / (power - 1);
+            radius2[0][j] = r * r;
+        }
+
+        for (int k = 1; k < levels; k++) {
+            int size = steps >> k;
+            aRe[k] = new double[size];
+            aIm[k] = new double[size];
+            bRe[k] = new double[size];
+            bIm[k] = new double[size];
+            radius2[k] = new double[size];
+            for (int j = 0; j < size; j++) {
+                merge(k, j, 2 * j, 2 * j + 1, maxDc);
+            }
+        }
+    }
+
+    /**
+     * Merge the steps x and y of the level k-1 in the step j of the level k.
+     *
+     * @param k the level of the merged step.
+     * @param j the index of the merged step.
+     * @param x the index of the first step.
+     * @param y the index of the second step.
+     * @param maxDc the greatest |dc| of the image.
+     */
+    private void merge(int k, int j, int x, int y, double maxDc) {
+        int p = k - 1;
+        double axRe = aRe[p][x];
+        double axIm = aIm[p][x];
+        double ayRe = aRe[p][y];
+        double ayIm = aIm[p][y];
+        double bxRe = bRe[p][x];
+        double bxIm = bIm[p][x];
+
+        aRe[k][j] = ayRe * axRe - ayIm * axIm;
+        aIm[k][j] = ayRe * axIm + ayIm * axRe;
+        bRe[k][j] = ayRe * bxRe - ayIm * bxIm + bRe[p][y];
+        bIm[k][j] = ayRe * bxIm + ayIm * bxRe + bIm[p][y];
+
+        double rx = Math.sqrt(radius2[p][x]);
+        double ry = Math.sqrt(radius2[p][y]);
+        double r = Math.max(0, Math.min(rx, (ry - Math.hypot(bxRe, bxIm) * maxDc) / Math.hypot(axRe, axIm)));
+        // NaN or infinity (|Ax| = 0) make the step unusable
+        radius2[k][j] = (r >= 0) && (r < Double.POSITIVE_INFINITY) ? r * r : 0;
+    }
+
+    /**
+     * Find the longest valid step that starts from the reference point m
+     * and that doesn't go over limit iterations.
+     *
+     * @param m the reference point.
+     * @param delta2 the square of |d|.
+     * @param limit the maximum length of the step.
+     * @return the level of the step (its length is 2^level), or -1 if no step is valid.
+     */
+    int find(int m, double delta2, int limit) {
+        int start = m - 1;
+        // The merged radius is never greater than the radius of its first step
+        if ((start < 0) || (start >= radius2[0].length) || !(delta2 < radius2[0][start])) {
+            return -1;
+        }
+        int top = Math.min(aRe.length - 1, Integer.numberOfTrailingZeros(start));
+        for (int k = top; k > 0; k--) {
+            int j = start >> k;
+            if (((1 << k) <= limit) && (j < radius2[k].length) && (delta2 < radius2[k][j])) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Apply the step of the given level that starts from the reference point m:
+     * d = A*d + B*dc, and |A| (the growth of the rounding errors of d).
+     *
+     * @param level the level of the step.
+     * @param m the reference point.
+     * @param dRe the real part of d.
+     * @param dIm the imaginary part of d.
+     * @param dcRe the real part of dc.
+     * @param dcIm the imaginary part of dc.
+     * @param result the array where the real and imaginary parts of the new d and |A| are stored.
+     */
+    void apply(int level, int m, double dRe, double dIm, double dcRe, double dcIm, double[] result) {
+        int j = (m - 1) >> level;
+        double ar = aRe[level][j];
+        double ai = aIm[level][j];
+        double br = bRe[level][j];
+        double bi = bIm[level][j];
+        result[0] = ar * dRe - ai * dIm + br * dcRe - bi * dcIm;
+        result[1] = ar * dIm + ai * dRe + br * dcIm + bi * dcRe;
+        result[2] = Math.sqrt(ar * ar + ai * ai);
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.ColorPalette;
+
+/**
+ * BuiltinFractalProvider is the FractalProvider of the fractals of this package.
+ * Every class selects its kernels for the power of the DataBox when it's
+ * created (see EscapeTimeKernel.create()) and keeps the constant and the
+ * palette in final fields, so nothing is chosen or read from the DataBox
+ * per pixel.
+ * "Mandelbrot Lyapunov" is listed only once and always uses the default
+ * color palette.
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+final class BuiltinFractalProvider implements FractalProvider {
+
+    /**
+     * The fractal types of this provider.
+     */
+    private static final String[] TYPES = {
+        "Mandelbrot Simple",
+        "Julia Simple",
+        "Mandelbrot Periodic",
+        "Burning Ship Simple",
+        "Burning Julia Simple",
+        "Mandelbrot Lyapunov",
+        "Formula Mandelbrot",
+        "Formula Julia"
+    };
+
+    @Override
+    public String[] getFractalTypes() {
+        return TYPES.clone();
+    }
+
+    @Override
+    public PaletteKind[] getPaletteKinds(String type) {
+        if (type.equals("Mandelbrot Lyapunov")) {
+            return new PaletteKind[]{PaletteKind.CUSTOM};
+        }
+        return PaletteKind.values();
+    }
+
+    @Override
+    public MandelbrotBase create(String type, DataBox dataBox, ColorPalette colorPalette) {
+        switch (type) {
+            case "Mandelbrot Simple":
+                return new MandelbrotSimple(dataBox, colorPalette);
+
+            case "Julia Simple":
+                return new JuliaSimple(dataBox, colorPalette);
+
+            case "Mandelbrot Periodic":
+                return new MandelbrotPeriodic(dataBox, colorPalette);
+
+            case "Burning Ship Simple":
+                return new BurningShipSimple(dataBox, colorPalette);
+
+            case "Burning Julia Simple":
+                return new BurningJuliaSimple(dataBox, colorPalette);
+
+            case "Mandelbrot Lyapunov":
+                return new MandelbrotLyapunov(dataBox, false);
+
+            case "Formula Mandelbrot":
+                return new FormulaFractal(dataBox, false, colorPalette);
+
+            case "Formula Julia":
+                return new FormulaFractal(dataBox, true, colorPalette);
+
+            default:
+                throw new IllegalArgumentException("Unknown fractal type: " + type);
+        }
+    }
+
+}
@@ -18,14 +18,17 @@ package io.github.deglans.fractal.mandelbrot;
 
 import io.github.deglans.fractal.utility.Complex;
 import io.github.deglans.fractal.utility.ColorPalette;
+import io.github.deglans.fractal.utility.DoubleDoubleComplex;
 
+import java.util.Arrays;
+import java.util.function.Function;
 import javafx.scene.paint.Color;
 
 /**
  * BurningJuliaSimple is a variant of the Julia fractals.
  * BurningJuliaSimple use the escape-time algorithm and a simple color palette.
  *
- * @version 0.11
+ * @version 0.18
  * @author Deglans Dalpasso
  */
 public class BurningJuliaSimple extends MandelbrotBase {
@@ -40,6 +43,32 @@ public class BurningJuliaSimple extends MandelbrotBase {
      */
     protected final ColorPalette colorPalette;
 
+    /**
+     * The kernel of the escape-time algorithm.
+     */
+    protected final EscapeTimeKernel kernel;
+
+    /**
+     * The kernel of the escape-time algorithm in double-double precision,
+     * null if the power is not supported.
+     */
+    protected final DoubleDoubleKernel doubleDoubleKernel;
+
+    /**
+     * The real part of the opposite of the constant, read once from the DataBox.
+     */
+    protected final double constantRe;
+
+    /**
+     * The imaginary part of the opposite of the constant, read once from the DataBox.
+     */
+    protected final double constantIm;
+
+    /**
+     * The opposite of the constant in double-double precision.
+     */
+    protected final DoubleDoubleComplex doubleDoubleConstant;
+
     /**
      * Create a BurningJuliaSimple instance with the given data
      * and the default colors palette or HUE palette.
@@ -51,6 +80,11 @@ public class BurningJuliaSimple extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = new ColorPalette(this.dataBox.getMaxIterations(), hue);
+        this.kernel = EscapeTimeKernel.create(dataBox, true);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, true);
+        this.constantRe = -dataBox.getConstant().getReal();
+        this.constantIm = -dataBox.getConstant().getImag();
+        this.doubleDoubleConstant = new DoubleDoubleComplex(dataBox.getConstant()).negate();
     }
 
     /**
@@ -63,6 +97,11 @@ public class BurningJuliaSimple extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = colorPalette;
+        this.kernel = EscapeTimeKernel.create(dataBox, true);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, true);
+        this.constantRe = -dataBox.getConstant().getReal();
+        this.constantIm = -dataBox.getConstant().getImag();
+        this.doubleDoubleConstant = new DoubleDoubleComplex(dataBox.getConstant()).negate();
     }
 
     /**
@@ -73,17 +112,92 @@ public class BurningJuliaSimple extends MandelbrotBase {
      */
     @Override
     protected Color calcPoint(Complex c) {
-        Complex z = new Complex(c);
-        Complex tmp;
-        int count = 0;
-
-        while ((count < dataBox.getMaxIterations()) && (z.mod() < Math.max(2, c.mod()))) {
-            tmp = new Complex(Math.abs(z.getReal()), Math.abs(z.getImag()));
-            z = tmp.pow(dataBox.getPower()).minus(dataBox.getConstant());
-            count++;
+        return calcPoint(c.getReal(), c.getImag());
+    }
+
+    /**
+     * Calculate the color of (re, im) through the escape-time algorithm.
+     * z = |z|^power - constant is done by the kernel as z = |z|^power + (-constant).
+     *
+     * @param re the real part of the point to be calculated.
+     * @param im the imaginary part of the point to be calculated.
+     * @return the color of (re, im).
+     */
+    @Override
+    protected Color calcPoint(double re, double im) {
+        return colorPalette.getColor(iterate(kernel, re, im, constantRe, constantIm));
+    }
+
+    /**
+     * The power 2 without the periodicity check can be iterated a row at once.
+     *
+     * @return the RowRenderer, or null if the power is not 2.
+     */
+    @Override
+    protected RowRenderer createRowRenderer() {
+        if (kernel.hasPeriodicityCheck()) {
+            return null;
         }
+        return RowRenderer.create(RowKernel.create(dataBox, true), this::calcRow);
+    }
+
+    /**
+     * Calculate the colors of a row with the RowKernel, the constant is negated as in
+     * calcPoint(double, double).
+     *
+     * @param rowKernel the RowKernel.
+     * @param re the real parts of the points of the row.
+     * @param im the imaginary part of the points of the row.
+     * @param colors the array where the colors of the points are stored.
+     */
+    private void calcRow(RowKernel rowKernel, double[] re, double im, Color[] colors) {
+        int width = re.length;
+        double[] zIm = new double[width];
+        double[] cRe = new double[width];
+        double[] cIm = new double[width];
+        Arrays.fill(zIm, im);
+        Arrays.fill(cRe, constantRe);
+        Arrays.fill(cIm, constantIm);
 
-        return colorPalette.getColor(count);
+        int[] counts = new int[width];
+        rowKernel.iterate(re, zIm, cRe, cIm, width, counts);
+        for (int x = 0; x < width; x++) {
+            colors[x] = colorPalette.getColor(counts[x]);
+        }
+    }
+
+    /**
+     * Return the maximum number of iterations of the DataBox.
+     *
+     * @return the maximum number of iterations.
+     */
+    @Override
+    protected int getMaxIterations() {
+        return dataBox.getMaxIterations();
+    }
+
+    /**
+     * The double-double precision is supported for the integer powers
+     * greater than or equal to 2.
+     *
+     * @return the function that calculates a point in double-double precision,
+     *         or null if the power is not supported by DoubleDoubleKernel.
+     */
+    @Override
+    protected Function<DoubleDoubleComplex, Color> createDoubleDoubleFunction() {
+        return (doubleDoubleKernel == null) ? null : this::calcPoint;
+    }
+
+    /**
+     * Calculate the color of z0 through the escape-time algorithm in
+     * double-double precision.
+     * z = |z|^power - constant is done as z = |z|^power + (-constant).
+     *
+     * @param z0 the point to be calculated.
+     * @return the color of z0.
+     */
+    private Color calcPoint(DoubleDoubleComplex z0) {
+        return colorPalette.getColor(doubleDoubleKernel.iterate(z0, doubleDoubleConstant));
     }
 
 }
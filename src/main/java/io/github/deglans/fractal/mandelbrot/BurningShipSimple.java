@@ -18,14 +18,17 @@ package io.github.deglans.fractal.mandelbrot;
 
 import io.github.deglans.fractal.utility.Complex;
 import io.github.deglans.fractal.utility.ColorPalette;
+import io.github.deglans.fractal.utility.DoubleDoubleComplex;
 
+import java.util.Arrays;
+import java.util.function.Function;
 import javafx.scene.paint.Color;
 
 /**
  * BurningShipSimple is a variant of the Mandelbrot fractals.
  * BurningShipSimple use the escape-time algorithm and a simple color palette.
  *
- * @version 0.11
+ * @version 0.17
  * @author Deglans Dalpasso
  */
 public class BurningShipSimple extends MandelbrotBase {
@@ -40,6 +43,17 @@ public class BurningShipSimple extends MandelbrotBase {
      */
     protected final ColorPalette colorPalette;
 
+    /**
+     * The kernel of the escape-time algorithm.
+     */
+    protected final EscapeTimeKernel kernel;
+
+    /**
+     * The kernel of the escape-time algorithm in double-double precision,
+     * null if the power is not supported.
+     */
+    protected final DoubleDoubleKernel doubleDoubleKernel;
+
     /**
      * Create a BurningShipSimple instance with the given data
      * and the default colors palette or HUE palette.
@@ -51,6 +65,8 @@ public class BurningShipSimple extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = new ColorPalette(this.dataBox.getMaxIterations(), hue);
+        this.kernel = EscapeTimeKernel.create(dataBox, true);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, true);
     }
 
     /**
@@ -63,6 +79,8 @@ public class BurningShipSimple extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = colorPalette;
+        this.kernel = EscapeTimeKernel.create(dataBox, true);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, true);
     }
 
     /**
@@ -73,17 +91,93 @@ public class BurningShipSimple extends MandelbrotBase {
      */
     @Override
     protected Color calcPoint(Complex c) {
-        Complex z = new Complex(0, 0);
-        Complex tmp;
-        int count = 0;
-
-        while ((count < dataBox.getMaxIterations()) && (z.mod() < 2)) {
-            tmp = new Complex(Math.abs(z.getReal()), Math.abs(z.getImag()));
-            z = tmp.pow(dataBox.getPower()).minus(c);
-            count++;
+        return calcPoint(c.getReal(), c.getImag());
+    }
+
+    /**
+     * Calculate the color of (re, im) through the escape-time algorithm.
+     * z = |z|^power - c is done by the kernel as z = |z|^power + (-c).
+     *
+     * @param re the real part of the point to be calculated.
+     * @param im the imaginary part of the point to be calculated.
+     * @return the color of (re, im).
+     */
+    @Override
+    protected Color calcPoint(double re, double im) {
+        return colorPalette.getColor(iterate(kernel, 0, 0, -re, -im));
+    }
+
+    /**
+     * The power 2 without the periodicity check can be iterated a row at once.
+     *
+     * @return the RowRenderer, or null if the power is not 2.
+     */
+    @Override
+    protected RowRenderer createRowRenderer() {
+        if (kernel.hasPeriodicityCheck()) {
+            return null;
+        }
+        return RowRenderer.create(RowKernel.create(dataBox, true), this::calcRow);
+    }
+
+    /**
+     * Calculate the colors of a row with the RowKernel, c is negated as in
+     * calcPoint(double, double).
+     *
+     * @param rowKernel the RowKernel.
+     * @param re the real parts of the points of the row.
+     * @param im the imaginary part of the points of the row.
+     * @param colors the array where the colors of the points are stored.
+     */
+    private void calcRow(RowKernel rowKernel, double[] re, double im, Color[] colors) {
+        int width = re.length;
+        double[] zero = new double[width];
+        double[] cRe = new double[width];
+        double[] cIm = new double[width];
+        for (int x = 0; x < width; x++) {
+            cRe[x] = -re[x];
+        }
+        Arrays.fill(cIm, -im);
+
+        int[] counts = new int[width];
+        rowKernel.iterate(zero, zero, cRe, cIm, width, counts);
+        for (int x = 0; x < width; x++) {
+            colors[x] = colorPalette.getColor(counts[x]);
         }
+    }
+
+    /**
+     * Return the maximum number of iterations of the DataBox.
+     *
+     * @return the maximum number of iterations.
+     */
+    @Override
+    protected int getMaxIterations() {
+        return dataBox.getMaxIterations();
+    }
 
-        return colorPalette.getColor(count);
+    /**
+     * The double-double precision is supported for the integer powers
+     * greater than or equal to 2.
+     *
+     * @return the function that calculates a point in double-double precision,
+     *         or null if the power is not supported by DoubleDoubleKernel.
+     */
+    @Override
+    protected Function<DoubleDoubleComplex, Color> createDoubleDoubleFunction() {
+        return (doubleDoubleKernel == null) ? null : this::calcPoint;
+    }
+
+    /**
+     * Calculate the color of c through the escape-time algorithm in
+     * double-double precision.
+     * z = |z|^power - c is done as z = |z|^power + (-c).
+     *
+     * @param c the point to be calculated.
+     * @return the color of c.
+     */
+    private Color calcPoint(DoubleDoubleComplex c) {
+        return colorPalette.getColor(doubleDoubleKernel.iterate(DoubleDoubleComplex.ZERO, c.negate()));
     }
 
 }
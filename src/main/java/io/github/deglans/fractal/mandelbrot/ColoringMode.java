@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * ColoringMode is what MandelbrotBase uses to give the color to the pixels.
+ * DISTANCE_ESTIMATION is used only in double precision by the fractals that
+ * have a DistanceEstimator, the others always use ESCAPE_TIME.
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public enum ColoringMode {
+
+    /**
+     * The color is given by the number of iterations done before the escape.
+     */
+    ESCAPE_TIME,
+
+    /**
+     * The color is given by the distance of the pixel from the boundary of
+     * the set (see DistanceEstimator), the interior is found early when the
+     * derivative of the orbit collapses.
+     */
+    DISTANCE_ESTIMATION
+
+}
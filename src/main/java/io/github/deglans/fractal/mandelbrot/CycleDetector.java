@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * CycleDetector checks if an orbit is periodic using the Brent's algorithm.
+ * A point of the orbit is saved and compared with the following points,
+ * the saved point is replaced after 2, 4, 8, ... steps, so every cycle is
+ * found with O(1) work and no allocation for every iteration.
+ * Two points are equal if the difference between their real and imaginary
+ * parts is less than the tolerance multiplied by the magnitude of the saved
+ * point (if greater than 1), so the check does not depend on the scale of the orbit.
+ *
+ * https://en.wikipedia.org/wiki/Cycle_detection#Brent's_algorithm
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public final class CycleDetector {
+
+    /**
+     * Number of steps before the first replacement of the saved point.
+     */
+    static final int INITIAL_LIMIT = 2;
+
+    /**
+     * The relative tolerance for the comparison.
+     */
+    private final double tolerance;
+
+    /**
+     * The real part of the saved point.
+     */
+    private double savedRe;
+
+    /**
+     * The imaginary part of the saved point.
+     */
+    private double savedIm;
+
+    /**
+     * The absolute tolerance for the saved point.
+     */
+    private double epsilon;
+
+    /**
+     * Steps done after the last replacement of the saved point.
+     */
+    private int steps;
+
+    /**
+     * Steps to do before the next replacement of the saved point.
+     */
+    private int limit;
+
+    /**
+     * True if a cycle was found after the last reset().
+     */
+    private boolean cycleFound;
+
+    /**
+     * Create a CycleDetector with the given tolerance.
+     * Before use it call reset().
+     *
+     * @param tolerance the relative tolerance for the comparison.
+     */
+    public CycleDetector(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * Start a new orbit.
+     *
+     * @param zRe the real part of the first point of the orbit.
+     * @param zIm the imaginary part of the first point of the orbit.
+     */
+    public void reset(double zRe, double zIm) {
+        save(zRe, zIm);
+        limit = INITIAL_LIMIT;
+        cycleFound = false;
+    }
+
+    /**
+     * Check the next point of the orbit.
+     *
+     * @param zRe the real part of the point.
+     * @param zIm the imaginary part of the point.
+     * @return true if the point is equal to the saved point, so the orbit is periodic.
+     */
+    public boolean check(double zRe, double zIm) {
+        steps++;
+        if ((Math.abs(zRe - savedRe) < epsilon) && (Math.abs(zIm - savedIm) < epsilon)) {
+            cycleFound = true;
+            return true;
+        }
+        if (steps == limit) {
+            save(zRe, zIm);
+            limit <<= 1;
+        }
+        return false;
+    }
+
+    /**
+     * Return true if a cycle was found after the last reset().
+     *
+     * @return true if a cycle was found.
+     */
+    public boolean isCycleFound() {
+        return cycleFound;
+    }
+
+    /**
+     * Return the period of the orbit, meaningful only after check() returned true.
+     *
+     * @return the period of the orbit.
+     */
+    public int getPeriod() {
+        return steps;
+    }
+
+    /**
+     * Save the point for the next comparisons.
+     *
+     * @param zRe the real part of the point.
+     * @param zIm the imaginary part of the point.
+     */
+    private void save(double zRe, double zIm) {
+        savedRe = zRe;
+        savedIm = zIm;
+        epsilon = tolerance * Math.max(1, Math.max(Math.abs(zRe), Math.abs(zIm)));
+        steps = 0;
+    }
+
+}
@@ -24,7 +24,7 @@ import javafx.scene.image.WritableImage;
 /**
  * DataBox contains all the information about how to make fractals.
  *
- * @version 0.3
+ * @version 0.4
  * @author Deglans Dalpasso
  */
 public class DataBox {
@@ -44,6 +44,16 @@ public class DataBox {
      */
     public static final Complex DEFAULT_CONSTANT = new Complex(0.285, 0.013);
 
+    /**
+     * Default relative tolerance for the periodicity check (zero disable the check).
+     */
+    public static final double DEFAULT_PERIODICITY_TOLERANCE = 0;
+
+    /**
+     * Default formula for the fractals of a formula (see Formula).
+     */
+    public static final String DEFAULT_FORMULA = "z^2 + c";
+
     /**
      * Default up left corner of the CartesianPlane.
      */
@@ -69,6 +79,16 @@ public class DataBox {
      */
     private final Complex constant;
 
+    /**
+     * Effective relative tolerance for the periodicity check (zero disable the check).
+     */
+    private final double periodicityTolerance;
+
+    /**
+     * Effective formula for the fractals of a formula.
+     */
+    private final String formula;
+
     /**
      * The CartesianPlane.
      */
@@ -91,9 +111,46 @@ public class DataBox {
     public DataBox(int maxIterations, Complex power, Complex constant,
             CartesianPlane cartesianPlane, WritableImage image) {
 
+        this(maxIterations, power, constant, DEFAULT_PERIODICITY_TOLERANCE, cartesianPlane, image);
+    }
+
+    /**
+     * Create a DataBox instance with the given data.
+     *
+     * @param maxIterations the number of max iteration for the escape-time algorithm.
+     * @param power the power to use for the calculus.
+     * @param constant the constant to use for the calculus.
+     * @param periodicityTolerance the relative tolerance for the periodicity check
+     *        (zero disable the check).
+     * @param cartesianPlane the CartesianPlane for the conversion.
+     * @param image the image where write pixel.
+     */
+    public DataBox(int maxIterations, Complex power, Complex constant, double periodicityTolerance,
+            CartesianPlane cartesianPlane, WritableImage image) {
+
+        this(maxIterations, power, constant, periodicityTolerance, DEFAULT_FORMULA, cartesianPlane, image);
+    }
+
+    /**
+     * Create a DataBox instance with the given data.
+     *
+     * @param maxIterations the number of max iteration for the escape-time algorithm.
+     * @param power the power to use for the calculus.
+     * @param constant the constant to use for the calculus.
+     * @param periodicityTolerance the relative tolerance for the periodicity check
+     *        (zero disable the check).
+     * @param formula the formula for the fractals of a formula.
+     * @param cartesianPlane the CartesianPlane for the conversion.
+     * @param image the image where write pixel.
+     */
+    public DataBox(int maxIterations, Complex power, Complex constant, double periodicityTolerance,
+            String formula, CartesianPlane cartesianPlane, WritableImage image) {
+
         this.maxIterations = maxIterations;
         this.power = power;
         this.constant = constant;
+        this.periodicityTolerance = periodicityTolerance;
+        this.formula = formula;
         this.cartesianPlane = cartesianPlane;
         this.image = image;
     }
@@ -125,6 +182,26 @@ public class DataBox {
         return constant;
     }
 
+    /**
+     * Return the relative tolerance for the periodicity check.
+     * When an orbit comes back to a previous point within this tolerance
+     * the point is in the set and the iterations stop (see CycleDetector).
+     *
+     * @return the relative tolerance for the periodicity check, zero if disabled.
+     */
+    public double getPeriodicityTolerance() {
+        return periodicityTolerance;
+    }
+
+    /**
+     * Return the formula for the fractals of a formula.
+     *
+     * @return the formula, as "z^2 + c".
+     */
+    public String getFormula() {
+        return formula;
+    }
+
     /**
      * Return the image where write pixel.
      *
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * DistanceEstimator iterates z = z^power + c together with its derivative
+ * and gives the distance of a point from the boundary of the set:
+ * - exterior: when z escapes the distance is |z|*ln|z|/|dz|, where dz is
+ *   the derivative of z respect c (Mandelbrot) or respect z0 (Julia);
+ * - interior: the product of power*z^(power-1) along the orbit is the
+ *   derivative of the orbit respect its own points, if it collapses the
+ *   orbit is attracted by a cycle and the point is in the set, so the
+ *   iteration stops without reach maxIterations.
+ *
+ * The distance is meaningful also with few iterations: the points that don't
+ * escape and aren't proved interior are on the boundary (distance 0),
+ * so the boundary is drawn thin and sharp also at low maxIterations.
+ *
+ * Only the integer powers greater than or equal to 2 are supported
+ * (the "burning" fractals aren't analytic and have no derivative).
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public final class DistanceEstimator {
+
+    /**
+     * The distance returned for the points inside the set.
+     */
+    public static final double INTERIOR = -1;
+
+    /**
+     * The square of the escape radius: a big radius makes the estimate accurate.
+     */
+    static final double BAILOUT_SQUARED = 1e6;
+
+    /**
+     * When the square modulus of the derivative of the orbit is less than
+     * this, the orbit is considered attracted by a cycle.
+     */
+    static final double INTERIOR_DERIVATIVE = 1e-12;
+
+    /**
+     * The number of max iteration for the escape-time algorithm.
+     */
+    private final int maxIterations;
+
+    /**
+     * The integer power.
+     */
+    private final int power;
+
+    /**
+     * If true the point is z0 (Julia), else c (Mandelbrot).
+     */
+    private final boolean julia;
+
+    /**
+     * The real part of the constant of the Julia set.
+     */
+    private final double cRe;
+
+    /**
+     * The imaginary part of the constant of the Julia set.
+     */
+    private final double cIm;
+
+    /**
+     * If true, stop when the derivative of the orbit collapses.
+     */
+    private final boolean interiorCheck;
+
+    /**
+     * Create a DistanceEstimator.
+     *
+     * @param dataBox the data of the fractal (the power must be supported).
+     * @param julia if true the point is z0, else c.
+     * @param interiorCheck if true, stop when the derivative of the orbit collapses.
+     */
+    private DistanceEstimator(DataBox dataBox, boolean julia, boolean interiorCheck) {
+        this.maxIterations = dataBox.getMaxIterations();
+        this.power = (int) dataBox.getPower().getReal();
+        this.julia = julia;
+        this.cRe = dataBox.getConstant().getReal();
+        this.cIm = dataBox.getConstant().getImag();
+        this.interiorCheck = interiorCheck;
+    }
+
+    /**
+     * Check if the power is supported by the DistanceEstimator.
+     *
+     * @param dataBox the data of the fractal.
+     * @return true if the power is an integer greater than or equal to 2.
+     */
+    public static boolean isSupported(DataBox dataBox) {
+        return dataBox.getPower().isSmallInteger() && (dataBox.getPower().getReal() >= 2);
+    }
+
+    /**
+     * Create the DistanceEstimator for the Mandelbrot set of the dataBox.
+     *
+     * @param dataBox the data of the fractal (the power must be supported).
+     * @return the DistanceEstimator.
+     */
+    public static DistanceEstimator mandelbrot(DataBox dataBox) {
+        return new DistanceEstimator(dataBox, false, true);
+    }
+
+    /**
+     * Create the DistanceEstimator for the Julia set of the dataBox.
+     * A Julia set that isn't connected is a dust without interior, so in
+     * this case the interior check is disabled (the orbits that pass near
+     * zero would be taken as attracted).
+     *
+     * @param dataBox the data of the fractal (the power must be supported).
+     * @param connected true if the Julia set is connected.
+     * @return the DistanceEstimator.
+     */
+    public static DistanceEstimator julia(DataBox dataBox, boolean connected) {
+        return new DistanceEstimator(dataBox, true, connected);
+    }
+
+    /**
+     * Return the number of max iteration for the escape-time algorithm.
+     *
+     * @return the number of max iteration for the escape-time algorithm.
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Estimate the distance of the point (re, im) from the boundary of the set.
+     *
+     * @param re the real part of the point.
+     * @param im the imaginary part of the point.
+     * @return the distance in plane units, INTERIOR if the point is in the set,
+     *         0 if the point didn't escape in maxIterations.
+     */
+    public double estimate(double re, double im) {
+        if (!julia && (power == 2) && EscapeTimeKernel.isInMainCardioidOrBulb(re, im)) {
+            return INTERIOR;
+        }
+
+        double x = julia ? re : 0;
+        double y = julia ? im : 0;
+        double addRe = julia ? cRe : re;
+        double addIm = julia ? cIm : im;
+        // dz/dc starts from 0 (Mandelbrot), dz/dz0 from 1 (Julia)
+        double dx = julia ? 1 : 0;
+        double dy = 0;
+        // Derivative of the orbit, for the Julia set it's dz itself
+        double ox = 1;
+        double oy = 0;
+
+        for (int n = 0; n < maxIterations; n++) {
+            double r2 = x * x + y * y;
+            if (r2 >= BAILOUT_SQUARED) {
+                // |z|*ln|z| = |z|*ln(|z|^2)/2
+                return 0.5 * Math.sqrt(r2) * Math.log(r2) / Math.hypot(dx, dy);
+            }
+
+            // z^(power-1)
+            double px = x;
+            double py = y;
+            for (int k = 2; k < power; k++) {
+                double t = px * x - py * y;
+                py = px * y + py * x;
+                px = t;
+            }
+            // m = power*z^(power-1), the derivative of one step
+            double mx = power * px;
+            double my = power * py;
+
+            double t = mx * dx - my * dy;
+            dy = mx * dy + my * dx;
+            dx = julia ? t : t + 1;
+
+            if (interiorCheck) {
+                if (julia) {
+                    ox = dx;
+                    oy = dy;
+                }
+                else if (n > 0) {
+                    // The orbit of c starts from z1 = c, z0 = 0 is not part of it
+                    t = mx * ox - my * oy;
+                    oy = mx * oy + my * ox;
+                    ox = t;
+                }
+                if (ox * ox + oy * oy < INTERIOR_DERIVATIVE) {
+                    return INTERIOR;
+                }
+            }
+
+            // z = z^power + c
+            t = px * x - py * y + addRe;
+            y = px * y + py * x + addIm;
+            x = t;
+        }
+
+        return 0;
+    }
+
+}
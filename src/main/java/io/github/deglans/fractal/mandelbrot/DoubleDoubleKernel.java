@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.Complex;
+import io.github.deglans.fractal.utility.DoubleDoubleComplex;
+
+/**
+ * DoubleDoubleKernel is the inner loop of the escape-time algorithm in
+ * double-double precision (see DoubleDouble), for the zoom where the pixels
+ * are too small for EscapeTimeKernel but big enough for 32 digits
+ * (see PrecisionSelector).
+ * As EscapeTimeKernel the "burning" kernels take the absolute value of the
+ * real and imaginary part of z before the power, they are separate classes
+ * so the loops have no branch on the configuration.
+ *
+ * Only the integer powers greater than or equal to 2 are supported:
+ * - 2: direct squaring on the primitive parts, no object is created;
+ * - others: exponentiation by squaring with DoubleDoubleComplex.
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+public abstract class DoubleDoubleKernel {
+
+    /**
+     * The number of max iteration for the escape-time algorithm.
+     */
+    protected final int maxIterations;
+
+    /**
+     * Create a kernel for the given data.
+     *
+     * @param dataBox the data of the fractal instance.
+     */
+    protected DoubleDoubleKernel(DataBox dataBox) {
+        this.maxIterations = dataBox.getMaxIterations();
+    }
+
+    /**
+     * Create the kernel for the power of the given data.
+     *
+     * @param dataBox the data of the fractal instance.
+     * @param burning if true, use the absolute value of the parts of z before the power.
+     * @return the kernel, or null if the power is not supported.
+     */
+    public static DoubleDoubleKernel create(DataBox dataBox, boolean burning) {
+        Complex power = dataBox.getPower();
+        if (!power.isSmallInteger() || (power.getReal() < 2)) {
+            return null;
+        }
+        if (power.getReal() == 2) {
+            return burning ? new BurningSquareKernel(dataBox) : new SquareKernel(dataBox);
+        }
+        return burning ? new BurningIntegerKernel(dataBox) : new IntegerKernel(dataBox);
+    }
+
+    /**
+     * Return the number of max iteration for the escape-time algorithm.
+     *
+     * @return the number of max iteration for the escape-time algorithm.
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Iterate z = z^power + c starting from z0 while the square modulus of z
+     * is less than EscapeTimeKernel.BAILOUT_SQUARED.
+     *
+     * @param z0 the first point.
+     * @param c the constant.
+     * @return the number of iterations done (maxIterations if z never escaped).
+     */
+    public abstract int iterate(DoubleDoubleComplex z0, DoubleDoubleComplex c);
+
+    /**
+     * Kernel for the power 2: z^2 = (x*x - y*y) + i*(2*x*y), on the high and
+     * low parts of x and y.
+     */
+    static final class SquareKernel extends DoubleDoubleKernel {
+
+        SquareKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        public int iterate(DoubleDoubleComplex z0, DoubleDoubleComplex c) {
+            double xh = z0.getReal().getHi();
+            double xl = z0.getReal().getLo();
+            double yh = z0.getImag().getHi();
+            double yl = z0.getImag().getLo();
+            double cxh = c.getReal().getHi();
+            double cxl = c.getReal().getLo();
+            double cyh = c.getImag().getHi();
+            double cyl = c.getImag().getLo();
+            int count = 0;
+
+            while ((count < maxIterations) && (xh * xh + yh * yh < EscapeTimeKernel.BAILOUT_SQUARED)) {
+                // x^2 - y^2: the two squares and their difference
+                double p = xh * xh;
+                double e = Math.fma(xh, xh, -p) + 2 * xh * xl;
+                double x2h = p + e;
+                double x2l = e - (x2h - p);
+                p = yh * yh;
+                e = Math.fma(yh, yh, -p) + 2 * yh * yl;
+                double y2h = p + e;
+                double y2l = e - (y2h - p);
+                double s = x2h - y2h;
+                double v = s - x2h;
+                e = (x2h - (s - v)) - (y2h + v) + (x2l - y2l);
+                double rh = s + e;
+                double rl = e - (rh - s);
+
+                // 2*x*y
+                p = xh * yh;
+                e = Math.fma(xh, yh, -p) + (xh * yl + xl * yh);
+                double ih = p + e;
+                double il = e - (ih - p);
+                ih *= 2;
+                il *= 2;
+
+                // + c
+                s = rh + cxh;
+                v = s - rh;
+                e = (rh - (s - v)) + (cxh - v) + (rl + cxl);
+                xh = s + e;
+                xl = e - (xh - s);
+                s = ih + cyh;
+                v = s - ih;
+                e = (ih - (s - v)) + (cyh - v) + (il + cyl);
+                yh = s + e;
+                yl = e - (yh - s);
+                count++;
+            }
+
+            return count;
+        }
+
+    }
+
+    /**
+     * Burning kernel for the power 2: |z|^2 = (x*x - y*y) + i*|2*x*y|, on the
+     * high and low parts of x and y.
+     */
+    static final class BurningSquareKernel extends DoubleDoubleKernel {
+
+        BurningSquareKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        public int iterate(DoubleDoubleComplex z0, DoubleDoubleComplex c) {
+            double xh = z0.getReal().getHi();
+            double xl = z0.getReal().getLo();
+            double yh = z0.getImag().getHi();
+            double yl = z0.getImag().getLo();
+            double cxh = c.getReal().getHi();
+            double cxl = c.getReal().getLo();
+            double cyh = c.getImag().getHi();
+            double cyl = c.getImag().getLo();
+            int count = 0;
+
+            while ((count < maxIterations) && (xh * xh + yh * yh < EscapeTimeKernel.BAILOUT_SQUARED)) {
+                // x^2 - y^2: the two squares and their difference
+                double p = xh * xh;
+                double e = Math.fma(xh, xh, -p) + 2 * xh * xl;
+                double x2h = p + e;
+                double x2l = e - (x2h - p);
+                p = yh * yh;
+                e = Math.fma(yh, yh, -p) + 2 * yh * yl;
+                double y2h = p + e;
+                double y2l = e - (y2h - p);
+                double s = x2h - y2h;
+                double v = s - x2h;
+                e = (x2h - (s - v)) - (y2h + v) + (x2l - y2l);
+                double rh = s + e;
+                double rl = e - (rh - s);
+
+                // 2*x*y (the absolute value change only its sign)
+                p = xh * yh;
+                e = Math.fma(xh, yh, -p) + (xh * yl + xl * yh);
+                double ih = p + e;
+                double il = e - (ih - p);
+                if (ih < 0) {
+                    ih = -ih;
+                    il = -il;
+                }
+                ih *= 2;
+                il *= 2;
+
+                // + c
+                s = rh + cxh;
+                v = s - rh;
+                e = (rh - (s - v)) + (cxh - v) + (rl + cxl);
+                xh = s + e;
+                xl = e - (xh - s);
+                s = ih + cyh;
+                v = s - ih;
+                e = (ih - (s - v)) + (cyh - v) + (il + cyl);
+                yh = s + e;
+                yl = e - (yh - s);
+                count++;
+            }
+
+            return count;
+        }
+
+    }
+
+    /**
+     * Kernel for the other integer powers: exponentiation by squaring.
+     */
+    static final class IntegerKernel extends DoubleDoubleKernel {
+
+        /**
+         * The exponent.
+         */
+        private final int power;
+
+        IntegerKernel(DataBox dataBox) {
+            super(dataBox);
+            this.power = (int) dataBox.getPower().getReal();
+        }
+
+        @Override
+        public int iterate(DoubleDoubleComplex z0, DoubleDoubleComplex c) {
+            DoubleDoubleComplex z = z0;
+            int count = 0;
+
+            while ((count < maxIterations) && (z.modSquared() < EscapeTimeKernel.BAILOUT_SQUARED)) {
+                z = z.pow(power).plus(c);
+                count++;
+            }
+
+            return count;
+        }
+
+    }
+
+    /**
+     * Burning kernel for the other integer powers: exponentiation by squaring of |x| + i*|y|.
+     */
+    static final class BurningIntegerKernel extends DoubleDoubleKernel {
+
+        /**
+         * The exponent.
+         */
+        private final int power;
+
+        BurningIntegerKernel(DataBox dataBox) {
+            super(dataBox);
+            this.power = (int) dataBox.getPower().getReal();
+        }
+
+        @Override
+        public int iterate(DoubleDoubleComplex z0, DoubleDoubleComplex c) {
+            DoubleDoubleComplex z = z0;
+            int count = 0;
+
+            while ((count < maxIterations) && (z.modSquared() < EscapeTimeKernel.BAILOUT_SQUARED)) {
+                z = z.abs().pow(power).plus(c);
+                count++;
+            }
+
+            return count;
+        }
+
+    }
+
+}
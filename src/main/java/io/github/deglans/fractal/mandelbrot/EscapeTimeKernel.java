@@ -0,0 +1,907 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.Complex;
+/**
+ * EscapeTimeKernel is the inner loop of the escape-time algorithm.
+ * The kernel iterate z = z^power + c on primitive double values,
+ * so no Complex is created during the calculus, and return the raw
+ * number of iterations.
+ * The "burning" kernels take the absolute value of the real and imaginary
+ * part of z before the power (Burning Ship like fractals).
+ *
+ * The kernel is chosen once by create(), based on the power of the DataBox
+ * and on the burning flag, so its loop has no branch on the configuration:
+ * - 2: direct squaring;
+ * - 3: direct cubing;
+ * - other small integers: exponentiation by squaring;
+ * - other real numbers: polar form, z^p = |z|^p * (cos(p*arg) + i*sin(p*arg));
+ * - complex numbers: polar form with the constants of the exponent
+ *   calculated once, log(|z|) and arg(z) are calculated once per iteration.
+ * Every kernel writes its iteration only once, in loop(): the escape check,
+ * the periodicity check and the iteration until a cycle are the same loop
+ * with a different bailout or without the CycleDetector (a null detector
+ * is checked out of the loop by the JIT).
+ * The escape radius is 2 for all the fractals (BAILOUT_SQUARED), the Julia
+ * sets too: a z0 out of the circle of radius 2 takes 0 iterations.
+ *
+ * @version 0.6
+ * @author Deglans Dalpasso
+ */
+public abstract class EscapeTimeKernel {
+
+    /**
+     * The square of the escape radius.
+     */
+    public static final double BAILOUT_SQUARED = 4;
+
+    /**
+     * The number of max iteration for the escape-time algorithm.
+     */
+    protected final int maxIterations;
+
+    /**
+     * Relative tolerance for the periodicity check, zero if disabled.
+     */
+    protected final double periodicityTolerance;
+
+    /**
+     * Create a kernel for the given data.
+     *
+     * @param dataBox the data of the fractal instance.
+     */
+    protected EscapeTimeKernel(DataBox dataBox) {
+        this.maxIterations = dataBox.getMaxIterations();
+        this.periodicityTolerance = dataBox.getPeriodicityTolerance();
+    }
+
+    /**
+     * Create the fastest kernel for the power of the given data.
+     *
+     * @param dataBox the data of the fractal instance.
+     * @param burning if true, use the absolute value of the parts of z before the power.
+     * @return the kernel for the power of dataBox.
+     */
+    public static EscapeTimeKernel create(DataBox dataBox, boolean burning) {
+        Complex power = dataBox.getPower();
+
+        if (power.isSmallInteger()) {
+            switch ((int) power.getReal()) {
+                case 2:
+                    return burning ? new BurningSquareKernel(dataBox) : new SquareKernel(dataBox);
+                case 3:
+                    return burning ? new BurningCubeKernel(dataBox) : new CubeKernel(dataBox);
+                default:
+                    return burning ? new BurningIntegerKernel(dataBox) : new IntegerKernel(dataBox);
+            }
+        }
+        else if (power.getImag() == 0) {
+            return burning ? new BurningRealPowerKernel(dataBox) : new RealPowerKernel(dataBox);
+        }
+        return burning ? new BurningComplexPowerKernel(dataBox) : new ComplexPowerKernel(dataBox);
+    }
+
+    /**
+     * Check if c is inside the main cardioid or the period-2 bulb of the
+     * Mandelbrot set (power 2), in this case z never escape.
+     * https://en.wikipedia.org/wiki/Plotting_algorithms_for_the_Mandelbrot_set#Cardioid_/_bulb_checking
+     *
+     * @param cRe the real part of c.
+     * @param cIm the imaginary part of c.
+     * @return true if c is inside the main cardioid or the period-2 bulb.
+     */
+    public static boolean isInMainCardioidOrBulb(double cRe, double cIm) {
+        double im2 = cIm * cIm;
+        double x = cRe - 0.25;
+        double q = x * x + im2;
+        if (q * (q + x) <= 0.25 * im2) {
+            return true;
+        }
+        double x1 = cRe + 1;
+        return x1 * x1 + im2 <= 0.0625;
+    }
+
+
+    /**
+     * Return the number of max iteration for the escape-time algorithm.
+     *
+     * @return the number of max iteration for the escape-time algorithm.
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Iterate z = z^power + c starting from z0 while the square modulus of z
+     * is less than BAILOUT_SQUARED.
+     *
+     * @param zRe the real part of z0.
+     * @param zIm the imaginary part of z0.
+     * @param cRe the real part of c.
+     * @param cIm the imaginary part of c.
+     * @return the number of iterations done (maxIterations if z never escaped).
+     */
+    public final int iterate(double zRe, double zIm, double cRe, double cIm) {
+        return loop(zRe, zIm, cRe, cIm, BAILOUT_SQUARED, null);
+    }
+
+    /**
+     * Return true if the periodicity check is enabled by the DataBox.
+     *
+     * @return true if the periodicity check is enabled.
+     */
+    public boolean hasPeriodicityCheck() {
+        return periodicityTolerance > 0;
+    }
+
+    /**
+     * Create a CycleDetector with the periodicity tolerance of the DataBox.
+     *
+     * @return a new CycleDetector.
+     */
+    public CycleDetector newCycleDetector() {
+        return new CycleDetector(periodicityTolerance);
+    }
+
+    /**
+     * Iterate z = z^power + c as iterate() and stop as soon as the orbit is
+     * periodic, because in that case z never escape.
+     *
+     * @param zRe the real part of z0.
+     * @param zIm the imaginary part of z0.
+     * @param cRe the real part of c.
+     * @param cIm the imaginary part of c.
+     * @param detector the CycleDetector for the orbit.
+     * @return the number of iterations done (maxIterations if z never escaped
+     *         or the orbit is periodic).
+     */
+    public final int iterate(double zRe, double zIm, double cRe, double cIm, CycleDetector detector) {
+        int count = loop(zRe, zIm, cRe, cIm, BAILOUT_SQUARED, detector);
+        return detector.isCycleFound() ? maxIterations : count;
+    }
+
+    /**
+     * Iterate z = z^power + c starting from z0 until the orbit is periodic,
+     * without check the escape (used by the negative powers).
+     *
+     * @param zRe the real part of z0.
+     * @param zIm the imaginary part of z0.
+     * @param cRe the real part of c.
+     * @param cIm the imaginary part of c.
+     * @param detector the CycleDetector for the orbit.
+     * @return the number of iterations done before the cycle was found
+     *         (maxIterations if the orbit is not periodic).
+     */
+    public final int iterateUntilCycle(double zRe, double zIm, double cRe, double cIm, CycleDetector detector) {
+        // Only an infinite or NaN z stops the loop before maxIterations, it's never periodic
+        int count = loop(zRe, zIm, cRe, cIm, Double.POSITIVE_INFINITY, detector);
+        return detector.isCycleFound() ? count : maxIterations;
+    }
+
+    /**
+     * The loop of the kernel, used by iterate() and iterateUntilCycle():
+     * iterate z = z^power + c starting from z0 while the square modulus of z
+     * is less than bailoutSquared, if there is a detector stop when the orbit
+     * is periodic.
+     *
+     * @param zRe the real part of z0.
+     * @param zIm the imaginary part of z0.
+     * @param cRe the real part of c.
+     * @param cIm the imaginary part of c.
+     * @param bailoutSquared the square of the escape radius, BAILOUT_SQUARED
+     *        or infinite for the iteration until a cycle.
+     * @param detector the CycleDetector for the orbit, or null.
+     * @return the number of iterations done, if a cycle is found the
+     *         iterations done before the one that closed the cycle.
+     */
+    protected abstract int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+            CycleDetector detector);
+
+    /**
+     * Calculate a single z^power (|z|^power for the burning kernels),
+     * for the loops outside the kernel (the loops of the kernels calculate
+     * the power in local variables, so nothing is allocated per pixel).
+     * As Complex.pow(Complex), zero raised to any power is zero.
+     *
+     * @param zRe the real part of z.
+     * @param zIm the imaginary part of z.
+     * @param result array of length 2 where store the real and the imaginary part of the result.
+     */
+    public abstract void power(double zRe, double zIm, double[] result);
+
+    /**
+     * Kernel for the power 2: z^2 = (x*x - y*y) + i*(2*x*y).
+     */
+    static final class SquareKernel extends EscapeTimeKernel {
+
+        SquareKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double re2 = zRe * zRe;
+            double im2 = zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (re2 + im2 < bailoutSquared)) {
+                zIm = 2 * zRe * zIm + cIm;
+                zRe = re2 - im2 + cRe;
+                re2 = zRe * zRe;
+                im2 = zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            result[0] = zRe * zRe - zIm * zIm;
+            result[1] = 2 * zRe * zIm;
+        }
+
+    }
+
+    /**
+     * Burning kernel for the power 2: |z|^2 = (x*x - y*y) + i*|2*x*y|.
+     */
+    static final class BurningSquareKernel extends EscapeTimeKernel {
+
+        BurningSquareKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double re2 = zRe * zRe;
+            double im2 = zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (re2 + im2 < bailoutSquared)) {
+                // The absolute value change only the sign of 2*x*y
+                zIm = 2 * Math.abs(zRe * zIm) + cIm;
+                zRe = re2 - im2 + cRe;
+                re2 = zRe * zRe;
+                im2 = zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            result[0] = zRe * zRe - zIm * zIm;
+            result[1] = 2 * Math.abs(zRe * zIm);
+        }
+
+    }
+
+    /**
+     * Kernel for the power 3: z^3 = x*(x*x - 3*y*y) + i*y*(3*x*x - y*y).
+     */
+    static final class CubeKernel extends EscapeTimeKernel {
+
+        CubeKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double re2 = zRe * zRe;
+            double im2 = zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (re2 + im2 < bailoutSquared)) {
+                double tmp = zRe * (re2 - 3 * im2) + cRe;
+                zIm = zIm * (3 * re2 - im2) + cIm;
+                zRe = tmp;
+                re2 = zRe * zRe;
+                im2 = zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            double re2 = zRe * zRe;
+            double im2 = zIm * zIm;
+            result[0] = zRe * (re2 - 3 * im2);
+            result[1] = zIm * (3 * re2 - im2);
+        }
+
+    }
+
+    /**
+     * Burning kernel for the power 3, as CubeKernel with |x| and |y|.
+     */
+    static final class BurningCubeKernel extends EscapeTimeKernel {
+
+        BurningCubeKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double re2 = zRe * zRe;
+            double im2 = zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (re2 + im2 < bailoutSquared)) {
+                zRe = Math.abs(zRe);
+                zIm = Math.abs(zIm);
+                double tmp = zRe * (re2 - 3 * im2) + cRe;
+                zIm = zIm * (3 * re2 - im2) + cIm;
+                zRe = tmp;
+                re2 = zRe * zRe;
+                im2 = zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            zRe = Math.abs(zRe);
+            zIm = Math.abs(zIm);
+            double re2 = zRe * zRe;
+            double im2 = zIm * zIm;
+            result[0] = zRe * (re2 - 3 * im2);
+            result[1] = zIm * (3 * re2 - im2);
+        }
+
+    }
+
+    /**
+     * Kernel for the small integer powers: exponentiation by squaring,
+     * plus a division for the negative powers.
+     * As Complex.pow(Complex), zero raised to any power is zero.
+     */
+    static final class IntegerKernel extends EscapeTimeKernel {
+
+        /**
+         * The exponent.
+         */
+        private final int power;
+
+        /**
+         * The absolute value of the exponent.
+         */
+        private final int absPower;
+
+        IntegerKernel(DataBox dataBox) {
+            super(dataBox);
+            this.power = (int) dataBox.getPower().getReal();
+            this.absPower = Math.abs(power);
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double modSquared = zRe * zRe + zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (modSquared < bailoutSquared)) {
+                if ((zRe != 0) || (zIm != 0)) {
+                    double baseRe = zRe;
+                    double baseIm = zIm;
+                    double powRe = 1;
+                    double powIm = 0;
+                    double tmp;
+                    for (int e = absPower; e > 0; e >>= 1) {
+                        if ((e & 1) != 0) {
+                            tmp = powRe * baseRe - powIm * baseIm;
+                            powIm = powRe * baseIm + powIm * baseRe;
+                            powRe = tmp;
+                        }
+                        tmp = baseRe * baseRe - baseIm * baseIm;
+                        baseIm = 2 * baseRe * baseIm;
+                        baseRe = tmp;
+                    }
+                    if (power < 0) {
+                        double den = powRe * powRe + powIm * powIm;
+                        zRe = powRe / den;
+                        zIm = -powIm / den;
+                    }
+                    else {
+                        zRe = powRe;
+                        zIm = powIm;
+                    }
+                }
+                zRe += cRe;
+                zIm += cIm;
+                modSquared = zRe * zRe + zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            if ((zRe == 0) && (zIm == 0)) {
+                result[0] = 0;
+                result[1] = 0;
+                return;
+            }
+
+            double baseRe = zRe;
+            double baseIm = zIm;
+            double powRe = 1;
+            double powIm = 0;
+            double tmp;
+
+            for (int e = absPower; e > 0; e >>= 1) {
+                if ((e & 1) != 0) {
+                    tmp = powRe * baseRe - powIm * baseIm;
+                    powIm = powRe * baseIm + powIm * baseRe;
+                    powRe = tmp;
+                }
+                tmp = baseRe * baseRe - baseIm * baseIm;
+                baseIm = 2 * baseRe * baseIm;
+                baseRe = tmp;
+            }
+
+            if (power < 0) {
+                double den = powRe * powRe + powIm * powIm;
+                result[0] = powRe / den;
+                result[1] = -powIm / den;
+            }
+            else {
+                result[0] = powRe;
+                result[1] = powIm;
+            }
+        }
+
+    }
+
+    /**
+     * Burning kernel for the small integer powers, as IntegerKernel with |x| and |y|.
+     */
+    static final class BurningIntegerKernel extends EscapeTimeKernel {
+
+        /**
+         * The exponent.
+         */
+        private final int power;
+
+        /**
+         * The absolute value of the exponent.
+         */
+        private final int absPower;
+
+        BurningIntegerKernel(DataBox dataBox) {
+            super(dataBox);
+            this.power = (int) dataBox.getPower().getReal();
+            this.absPower = Math.abs(power);
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double modSquared = zRe * zRe + zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (modSquared < bailoutSquared)) {
+                if ((zRe != 0) || (zIm != 0)) {
+                    double baseRe = Math.abs(zRe);
+                    double baseIm = Math.abs(zIm);
+                    double powRe = 1;
+                    double powIm = 0;
+                    double tmp;
+                    for (int e = absPower; e > 0; e >>= 1) {
+                        if ((e & 1) != 0) {
+                            tmp = powRe * baseRe - powIm * baseIm;
+                            powIm = powRe * baseIm + powIm * baseRe;
+                            powRe = tmp;
+                        }
+                        tmp = baseRe * baseRe - baseIm * baseIm;
+                        baseIm = 2 * baseRe * baseIm;
+                        baseRe = tmp;
+                    }
+                    if (power < 0) {
+                        double den = powRe * powRe + powIm * powIm;
+                        zRe = powRe / den;
+                        zIm = -powIm / den;
+                    }
+                    else {
+                        zRe = powRe;
+                        zIm = powIm;
+                    }
+                }
+                zRe += cRe;
+                zIm += cIm;
+                modSquared = zRe * zRe + zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            if ((zRe == 0) && (zIm == 0)) {
+                result[0] = 0;
+                result[1] = 0;
+                return;
+            }
+
+            double baseRe = Math.abs(zRe);
+            double baseIm = Math.abs(zIm);
+            double powRe = 1;
+            double powIm = 0;
+            double tmp;
+
+            for (int e = absPower; e > 0; e >>= 1) {
+                if ((e & 1) != 0) {
+                    tmp = powRe * baseRe - powIm * baseIm;
+                    powIm = powRe * baseIm + powIm * baseRe;
+                    powRe = tmp;
+                }
+                tmp = baseRe * baseRe - baseIm * baseIm;
+                baseIm = 2 * baseRe * baseIm;
+                baseRe = tmp;
+            }
+
+            if (power < 0) {
+                double den = powRe * powRe + powIm * powIm;
+                result[0] = powRe / den;
+                result[1] = -powIm / den;
+            }
+            else {
+                result[0] = powRe;
+                result[1] = powIm;
+            }
+        }
+
+    }
+
+    /**
+     * Kernel for the real non integer powers, in polar form:
+     * z^p = (|z|^2)^(p/2) * (cos(p*arg(z)) + i*sin(p*arg(z))).
+     * Respect Complex.pow(Complex) the terms of the imaginary part of the
+     * exponent (exp() and log()) are dropped.
+     */
+    static final class RealPowerKernel extends EscapeTimeKernel {
+
+        /**
+         * The exponent.
+         */
+        private final double power;
+
+        /**
+         * Half of the exponent, used with the square modulus of z.
+         */
+        private final double halfPower;
+
+        RealPowerKernel(DataBox dataBox) {
+            super(dataBox);
+            this.power = dataBox.getPower().getReal();
+            this.halfPower = power / 2;
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double modSquared = zRe * zRe + zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (modSquared < bailoutSquared)) {
+                if (modSquared == 0) {
+                    zRe = cRe;
+                    zIm = cIm;
+                }
+                else {
+                    double arg = Math.atan2(zIm, zRe);
+                    double newMod = Math.pow(modSquared, halfPower);
+                    double newArg = power * arg;
+                    zRe = newMod * Math.cos(newArg) + cRe;
+                    zIm = newMod * Math.sin(newArg) + cIm;
+                }
+                modSquared = zRe * zRe + zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            double modSquared = zRe * zRe + zIm * zIm;
+            if (modSquared == 0) {
+                result[0] = 0;
+                result[1] = 0;
+                return;
+            }
+            double arg = Math.atan2(zIm, zRe);
+            double newMod = Math.pow(modSquared, halfPower);
+            double newArg = power * arg;
+            result[0] = newMod * Math.cos(newArg);
+            result[1] = newMod * Math.sin(newArg);
+        }
+
+    }
+
+    /**
+     * Burning kernel for the real non integer powers, as RealPowerKernel with
+     * the argument of |x| + i*|y| (the modulus doesn't change).
+     */
+    static final class BurningRealPowerKernel extends EscapeTimeKernel {
+
+        /**
+         * The exponent.
+         */
+        private final double power;
+
+        /**
+         * Half of the exponent, used with the square modulus of z.
+         */
+        private final double halfPower;
+
+        BurningRealPowerKernel(DataBox dataBox) {
+            super(dataBox);
+            this.power = dataBox.getPower().getReal();
+            this.halfPower = power / 2;
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double modSquared = zRe * zRe + zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (modSquared < bailoutSquared)) {
+                if (modSquared == 0) {
+                    zRe = cRe;
+                    zIm = cIm;
+                }
+                else {
+                    double arg = Math.atan2(Math.abs(zIm), Math.abs(zRe));
+                    double newMod = Math.pow(modSquared, halfPower);
+                    double newArg = power * arg;
+                    zRe = newMod * Math.cos(newArg) + cRe;
+                    zIm = newMod * Math.sin(newArg) + cIm;
+                }
+                modSquared = zRe * zRe + zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            double modSquared = zRe * zRe + zIm * zIm;
+            if (modSquared == 0) {
+                result[0] = 0;
+                result[1] = 0;
+                return;
+            }
+            double arg = Math.atan2(Math.abs(zIm), Math.abs(zRe));
+            double newMod = Math.pow(modSquared, halfPower);
+            double newArg = power * arg;
+            result[0] = newMod * Math.cos(newArg);
+            result[1] = newMod * Math.sin(newArg);
+        }
+
+    }
+
+    /**
+     * Kernel for the complex powers, in polar form:
+     * with p = a + i*b, log|z| = l and arg(z) = t
+     * z^p = exp(a*l - b*t) * (cos(a*t + b*l) + i*sin(a*t + b*l)).
+     * Respect Complex.pow(Complex) arg(z) and log|z| are calculated only once
+     * and Math.pow() is replaced by a single exp().
+     */
+    static final class ComplexPowerKernel extends EscapeTimeKernel {
+
+        /**
+         * The real part of the exponent.
+         */
+        private final double powerRe;
+
+        /**
+         * The imaginary part of the exponent.
+         */
+        private final double powerIm;
+
+        ComplexPowerKernel(DataBox dataBox) {
+            super(dataBox);
+            this.powerRe = dataBox.getPower().getReal();
+            this.powerIm = dataBox.getPower().getImag();
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double modSquared = zRe * zRe + zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (modSquared < bailoutSquared)) {
+                if (modSquared == 0) {
+                    zRe = cRe;
+                    zIm = cIm;
+                }
+                else {
+                    double logMod = 0.5 * Math.log(modSquared);
+                    double arg = Math.atan2(zIm, zRe);
+                    double newMod = Math.exp(powerRe * logMod - powerIm * arg);
+                    double newArg = powerRe * arg + powerIm * logMod;
+                    zRe = newMod * Math.cos(newArg) + cRe;
+                    zIm = newMod * Math.sin(newArg) + cIm;
+                }
+                modSquared = zRe * zRe + zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            double modSquared = zRe * zRe + zIm * zIm;
+            if (modSquared == 0) {
+                result[0] = 0;
+                result[1] = 0;
+                return;
+            }
+            double logMod = 0.5 * Math.log(modSquared);
+            double arg = Math.atan2(zIm, zRe);
+            double newMod = Math.exp(powerRe * logMod - powerIm * arg);
+            double newArg = powerRe * arg + powerIm * logMod;
+            result[0] = newMod * Math.cos(newArg);
+            result[1] = newMod * Math.sin(newArg);
+        }
+
+    }
+
+    /**
+     * Burning kernel for the complex powers, as ComplexPowerKernel with
+     * the argument of |x| + i*|y| (the modulus doesn't change).
+     */
+    static final class BurningComplexPowerKernel extends EscapeTimeKernel {
+
+        /**
+         * The real part of the exponent.
+         */
+        private final double powerRe;
+
+        /**
+         * The imaginary part of the exponent.
+         */
+        private final double powerIm;
+
+        BurningComplexPowerKernel(DataBox dataBox) {
+            super(dataBox);
+            this.powerRe = dataBox.getPower().getReal();
+            this.powerIm = dataBox.getPower().getImag();
+        }
+
+        @Override
+        protected int loop(double zRe, double zIm, double cRe, double cIm, double bailoutSquared,
+                CycleDetector detector) {
+            int count = 0;
+            double modSquared = zRe * zRe + zIm * zIm;
+
+            if (detector != null) {
+                detector.reset(zRe, zIm);
+            }
+            while ((count < maxIterations) && (modSquared < bailoutSquared)) {
+                if (modSquared == 0) {
+                    zRe = cRe;
+                    zIm = cIm;
+                }
+                else {
+                    double logMod = 0.5 * Math.log(modSquared);
+                    double arg = Math.atan2(Math.abs(zIm), Math.abs(zRe));
+                    double newMod = Math.exp(powerRe * logMod - powerIm * arg);
+                    double newArg = powerRe * arg + powerIm * logMod;
+                    zRe = newMod * Math.cos(newArg) + cRe;
+                    zIm = newMod * Math.sin(newArg) + cIm;
+                }
+                modSquared = zRe * zRe + zIm * zIm;
+                if ((detector != null) && detector.check(zRe, zIm)) {
+                    return count;
+                }
+                count++;
+            }
+
+            return count;
+        }
+
+        @Override
+        public void power(double zRe, double zIm, double[] result) {
+            double modSquared = zRe * zRe + zIm * zIm;
+            if (modSquared == 0) {
+                result[0] = 0;
+                result[1] = 0;
+                return;
+            }
+            double logMod = 0.5 * Math.log(modSquared);
+            double arg = Math.atan2(Math.abs(zIm), Math.abs(zRe));
+            double newMod = Math.exp(powerRe * logMod - powerIm * arg);
+            double newArg = powerRe * arg + powerIm * logMod;
+            result[0] = newMod * Math.cos(newArg);
+            result[1] = newMod * Math.sin(newArg);
+        }
+
+    }
+
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.Complex;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Formula is an iteration function z = f(z, c, k) written by the user,
+ * as "z^3 + c*z + k". It's parsed once in a tree and compiled by
+ * FormulaCompiler in a FormulaKernel whose loop is plain bytecode on
+ * primitive doubles, so the JIT optimizes it as a hand-written kernel.
+ *
+ * The language:
+ * - the variables z (the point iterated), c (the pixel, or the constant
+ *   for the Julia sets) and k (the constant of the DataBox);
+ * - the number literals, as 2, 0.5, 1e-3, and the imaginary unit i (also 2i);
+ * - the operators +, -, *, /, ^ (right associative, the integer powers are
+ *   expanded in multiplications) and the parentheses;
+ * - the functions exp, log, sin, cos, conj and abs (the absolute value of
+ *   the real and imaginary parts, as the Burning Ship).
+ * The parts with only numbers are calculated by the parser.
+ * The parser and the compiler are recursive, so the depth of the formula
+ * (the nested parentheses, functions and operations) is limited to MAX_DEPTH.
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+public final class Formula {
+
+    /**
+     * The names of the supported functions.
+     */
+    static final String[] FUNCTIONS = {"exp", "log", "sin", "cos", "conj", "abs"};
+
+    /**
+     * The maximum depth of the formula tree and of the nested parentheses.
+     */
+    static final int MAX_DEPTH = 256;
+
+    /**
+     * The maximum number of kernels kept compiled.
+     */
+    static final int MAX_KERNELS = 32;
+
+    /**
+     * The kernels already compiled, by normalized formula: the least recently
+     * used is removed when they are more than MAX_KERNELS, so its hidden
+     * class can be unloaded.
+     */
+    private static final Map<String, FormulaKernel> KERNELS = Collections.synchronizedMap(
+            new LinkedHashMap<String, FormulaKernel>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FormulaKernel> eldest) {
+                    return size() > MAX_KERNELS;
+                }
+            });
+
+    /**
+     * The kind of a node of the formula tree.
+     */
+    enum Kind {
+        CONSTANT, VARIABLE, NEGATE, ADD, SUBTRACT, MULTIPLY, DIVIDE, POWER, FUNCTION
+    }
+
+    /**
+     * A node of the formula tree.
+     */
+    static final class Node {
+
+        /**
+         * The kind of the node.
+         */
+        final Kind kind;
+
+        /**
+         * The value of a CONSTANT, null for the others.
+         */
+        final Complex value;
+
+        /**
+         * The name of a VARIABLE or FUNCTION, null for the others.
+         */
+        final String name;
+
+        /**
+         * The operands, null if missing.
+         */
+        final Node left;
+        final Node right;
+
+        /**
+         * The depth of the tree of this node, 1 for a leaf.
+         */
+        final int depth;
+
+        Node(Kind kind, Complex value, String name, Node left, Node right) {
+            this.kind = kind;
+            this.value = value;
+            this.name = name;
+            this.left = left;
+            this.right = right;
+            this.depth = 1 + Math.max((left == null) ? 0 : left.depth, (right == null) ? 0 : right.depth);
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case CONSTANT:
+                    return "(" + value.getReal() + (value.getImag() < 0 ? "" : "+") + value.getImag() + "i)";
+                case VARIABLE:
+                    return name;
+                case NEGATE:
+                    return "(-" + left + ")";
+                case FUNCTION:
+                    return name + "(" + left + ")";
+                default:
+                    return "(" + left + " " + "+-*/^".charAt(kind.ordinal() - Kind.ADD.ordinal()) + " " + right + ")";
+            }
+        }
+
+    }
+
+    /**
+     * The text of the formula.
+     */
+    private final String text;
+
+    /**
+     * The root of the formula tree.
+     */
+    private final Node root;
+
+    /**
+     * The position of the parser in the text.
+     */
+    private int position = 0;
+
+    /**
+     * The number of unary expressions that the parser is parsing.
+     */
+    private int nesting = 0;
+
+    /**
+     * Parse the text of a formula.
+     *
+     * @param text the formula.
+     * @throws IllegalArgumentException if the formula is not valid.
+     */
+    private Formula(String text) {
+        this.text = text;
+        Node node = parseExpression();
+        skipSpaces();
+        if (position < text.length()) {
+            throw error("unexpected '" + text.charAt(position) + "'");
+        }
+        this.root = node;
+    }
+
+    /**
+     * Parse the text of a formula.
+     *
+     * @param text the formula, as "z^2 + c".
+     * @return the formula.
+     * @throws IllegalArgumentException if the formula is not valid.
+     */
+    public static Formula parse(String text) {
+        return new Formula(text);
+    }
+
+    /**
+     * Return the text of the formula.
+     *
+     * @return the text of the formula.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Return the root of the formula tree.
+     *
+     * @return the root of the formula tree.
+     */
+    Node getRoot() {
+        return root;
+    }
+
+    /**
+     * Return the kernel of this formula, it's compiled only the first time
+     * that the same formula is used.
+     *
+     * @return the kernel of this formula.
+     */
+    public FormulaKernel compile() {
+        return KERNELS.computeIfAbsent(root.toString(), key -> new FormulaCompiler(root).compile());
+    }
+
+    /**
+     * Return the formula with all the parentheses, as it's compiled.
+     *
+     * @return the normalized formula.
+     */
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    /**
+     * expression := term (('+' | '-') term)*
+     */
+    private Node parseExpression() {
+        Node node = parseTerm();
+        while (true) {
+            if (accept('+')) {
+                node = binary(Kind.ADD, node, parseTerm());
+            }
+            else if (accept('-')) {
+                node = binary(Kind.SUBTRACT, node, parseTerm());
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * term := unary (('*' | '/') unary)*
+     */
+    private Node parseTerm() {
+        Node node = parseUnary();
+        while (true) {
+            if (accept('*')) {
+                node = binary(Kind.MULTIPLY, node, parseUnary());
+            }
+            else if (accept('/')) {
+                node = binary(Kind.DIVIDE, node, parseUnary());
+            }
+            else {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * unary := '-' unary | '+' unary | power
+     */
+    private Node parseUnary() {
+        // Every recursion of the parser passes from here
+        if (nesting == MAX_DEPTH) {
+            throw error("too deeply nested");
+        }
+        nesting++;
+        Node node;
+        if (accept('-')) {
+            node = parseUnary();
+            if (node.kind == Kind.CONSTANT) {
+                node = constant(new Complex(-node.value.getReal(), -node.value.getImag()));
+            }
+            else {
+                node = check(new Node(Kind.NEGATE, null, null, node, null));
+            }
+        }
+        else if (accept('+')) {
+            node = parseUnary();
+        }
+        else {
+            node = parsePower();
+        }
+        nesting--;
+        return node;
+    }
+
+    /**
+     * power := atom ('^' unary)?
+     */
+    private Node parsePower() {
+        Node node = parseAtom();
+        if (accept('^')) {
+            node = binary(Kind.POWER, node, parseUnary());
+        }
+        return node;
+    }
+
+    /**
+     * atom := number | number 'i' | 'i' | variable | function '(' expression ')' | '(' expression ')'
+     */
+    private Node parseAtom() {
+        skipSpaces();
+        if (position >= text.length()) {
+            throw error("unexpected end");
+        }
+        char ch = text.charAt(position);
+        if (accept('(')) {
+            Node node = parseExpression();
+            expect(')');
+            return node;
+        }
+        if (Character.isDigit(ch) || (ch == '.')) {
+            double number = parseNumber();
+            if ((position < text.length()) && (text.charAt(position) == 'i')) {
+                position++;
+                return constant(new Complex(0, number));
+            }
+            return constant(new Complex(number, 0));
+        }
+        if (Character.isLetter(ch)) {
+            int start = position;
+            while ((position < text.length()) && Character.isLetter(text.charAt(position))) {
+                position++;
+            }
+            String name = text.substring(start, position);
+            switch (name) {
+                case "i":
+                    return constant(new Complex(0, 1));
+                case "z":
+                case "c":
+                case "k":
+                    return new Node(Kind.VARIABLE, null, name, null, null);
+                default:
+                    for (String function : FUNCTIONS) {
+                        if (function.equals(name)) {
+                            expect('(');
+                            Node argument = parseExpression();
+                            expect(')');
+                            return check(new Node(Kind.FUNCTION, null, name, argument, null));
+                        }
+                    }
+                    position = start;
+                    throw error("unknown name '" + name + "'");
+            }
+        }
+        throw error("unexpected '" + ch + "'");
+    }
+
+    /**
+     * Parse a number as 2, 0.5 or 1e-3.
+     *
+     * @return the number.
+     */
+    private double parseNumber() {
+        int start = position;
+        while ((position < text.length())
+                && (Character.isDigit(text.charAt(position)) || (text.charAt(position) == '.'))) {
+            position++;
+        }
+        if ((position < text.length()) && (text.charAt(position) == 'e')) {
+            int mark = position;
+            position++;
+            if ((position < text.length()) && ((text.charAt(position) == '-') || (text.charAt(position) == '+'))) {
+                position++;
+            }
+            if ((position < text.length()) && Character.isDigit(text.charAt(position))) {
+                while ((position < text.length()) && Character.isDigit(text.charAt(position))) {
+                    position++;
+                }
+            }
+            else {
+                position = mark;
+            }
+        }
+        try {
+            return Double.parseDouble(text.substring(start, position));
+        }
+        catch (NumberFormatException ex) {
+            position = start;
+            throw error("bad number");
+        }
+    }
+
+    /**
+     * Create a binary node, or its value if both the operands are constants.
+     *
+     * @param kind the operation.
+     * @param left the left operand.
+     * @param right the right operand.
+     * @return the node.
+     * @throws IllegalArgumentException if the tree is deeper than MAX_DEPTH.
+     */
+    private Node binary(Kind kind, Node left, Node right) {
+        if ((left.kind == Kind.CONSTANT) && (right.kind == Kind.CONSTANT)) {
+            Complex a = left.value;
+            Complex b = right.value;
+            switch (kind) {
+                case ADD:
+                    return constant(a.plus(b));
+                case SUBTRACT:
+                    return constant(a.minus(b));
+                case MULTIPLY:
+                    return constant(a.times(b));
+                case DIVIDE:
+                    return constant(a.div(b));
+                default:
+                    return constant(a.pow(b));
+            }
+        }
+        return check(new Node(kind, null, null, left, right));
+    }
+
+    /**
+     * Check the depth of a new node.
+     *
+     * @param node the node.
+     * @return the node.
+     * @throws IllegalArgumentException if the tree is deeper than MAX_DEPTH.
+     */
+    private Node check(Node node) {
+        if (node.depth > MAX_DEPTH) {
+            throw error("too long");
+        }
+        return node;
+    }
+
+    /**
+     * Create a constant node.
+     *
+     * @param value the value.
+     * @return the node.
+     */
+    private static Node constant(Complex value) {
+        return new Node(Kind.CONSTANT, value, null, null, null);
+    }
+
+    /**
+     * Skip the spaces and if the next char is ch consume it.
+     *
+     * @param ch the expected char.
+     * @return true if ch was found.
+     */
+    private boolean accept(char ch) {
+        skipSpaces();
+        if ((position < text.length()) && (text.charAt(position) == ch)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Consume the char ch.
+     *
+     * @param ch the expected char.
+     * @throws IllegalArgumentException if the next char is not ch.
+     */
+    private void expect(char ch) {
+        if (!accept(ch)) {
+            throw error("expected '" + ch + "'");
+        }
+    }
+
+    /**
+     * Skip the spaces.
+     */
+    private void skipSpaces() {
+        while ((position < text.length()) && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * Create the exception for an error at the current position.
+     *
+     * @param message the description of the error.
+     * @return the exception.
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Formula \"" + text + "\": " + message
+                + " at position " + (position + 1));
+    }
+
+}
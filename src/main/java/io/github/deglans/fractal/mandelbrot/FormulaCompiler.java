@@ -0,0 +1,874 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * FormulaCompiler translates the tree of a Formula in the bytecode of a
+ * FormulaKernel and loads it as a hidden class (MethodHandles.Lookup.defineHiddenClass()),
+ * so the class is unloaded when the kernel is not used anymore (Formula
+ * keeps only the kernels recently used).
+ *
+ * The whole escape-time loop is generated: every real or imaginary part of
+ * the intermediate values is a local double variable or a constant, the
+ * operations with constant 0 or 1 are removed (the real numbers cost as
+ * in a real kernel), the integer powers become multiplications.
+ * The transcendental functions call java.lang.Math, the non-integer powers
+ * call logModulus() and expModulus() and the negative integer powers call
+ * divideOrZero() for the zero (as Complex.pow(Complex) zero raised to a
+ * negative or non-integer power is zero).
+ *
+ * The generated method is:
+ * <pre>
+ * int iterate(zRe, zIm, cRe, cIm, kRe, kIm, maxIterations) {
+ *     int count = 0;
+ *     while ((count &lt; maxIterations) &amp;&amp; (zRe*zRe + zIm*zIm &lt; BAILOUT_SQUARED)) {
+ *         ... the formula ...
+ *         zRe = resultRe;
+ *         zIm = resultIm;
+ *         count++;
+ *     }
+ *     return count;
+ * }
+ * </pre>
+ *
+ * @version 0.3
+ * @author Deglans Dalpasso
+ */
+final class FormulaCompiler {
+
+    /**
+     * The name of the generated class, in the package of this class as
+     * required by defineHiddenClass().
+     */
+    static final String CLASS_NAME = FormulaCompiler.class.getPackage().getName().replace('.', '/')
+            + "/CompiledFormula";
+
+    /**
+     * The internal names of the classes used by the generated class.
+     */
+    private static final String OBJECT = "java/lang/Object";
+    private static final String MATH = "java/lang/Math";
+    private static final String KERNEL = FormulaKernel.class.getName().replace('.', '/');
+    private static final String SELF = FormulaCompiler.class.getName().replace('.', '/');
+
+    /**
+     * The descriptor of FormulaKernel.iterate().
+     */
+    private static final String ITERATE_DESCRIPTOR = "(DDDDDDI)I";
+
+    /**
+     * The local variables of iterate() (a double takes two slots).
+     */
+    private static final int Z_RE = 1;
+    private static final int Z_IM = 3;
+    private static final int C_RE = 5;
+    private static final int C_IM = 7;
+    private static final int K_RE = 9;
+    private static final int K_IM = 11;
+    private static final int MAX = 13;
+    private static final int COUNT = 14;
+    private static final int FIRST_TEMP = 15;
+
+    /**
+     * The maximum depth of the operand stack: three doubles (the bailout check).
+     */
+    private static final int MAX_STACK = 6;
+
+    /**
+     * The opcodes used.
+     */
+    private static final int ICONST_0 = 0x03;
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int LDC2_W = 0x14;
+    private static final int ILOAD = 0x15;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ISTORE = 0x36;
+    private static final int DSTORE = 0x39;
+    private static final int DUP2 = 0x5c;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DDIV = 0x6f;
+    private static final int DNEG = 0x77;
+    private static final int IINC = 0x84;
+    private static final int DCMPG = 0x98;
+    private static final int IFGE = 0x9c;
+    private static final int IF_ICMPGE = 0xa2;
+    private static final int GOTO = 0xa7;
+    private static final int IRETURN = 0xac;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int WIDE = 0xc4;
+
+    /**
+     * The real or imaginary part of a value: a local variable or a constant.
+     */
+    private static final class Part {
+
+        /**
+         * The slot of the local variable, -1 for a constant.
+         */
+        final int slot;
+
+        /**
+         * The value of a constant.
+         */
+        final double constant;
+
+        Part(int slot, double constant) {
+            this.slot = slot;
+            this.constant = constant;
+        }
+
+        boolean isConstant() {
+            return slot < 0;
+        }
+
+        boolean is(double value) {
+            return isConstant() && (constant == value);
+        }
+
+    }
+
+    /**
+     * A complex value.
+     */
+    private static final class Value {
+
+        final Part re;
+        final Part im;
+
+        Value(Part re, Part im) {
+            this.re = re;
+            this.im = im;
+        }
+
+    }
+
+    /**
+     * The root of the formula tree.
+     */
+    private final Formula.Node root;
+
+    /**
+     * The bytecode of iterate().
+     */
+    private byte[] code = new byte[256];
+
+    /**
+     * The length of the bytecode of iterate().
+     */
+    private int length = 0;
+
+    /**
+     * The next free slot of the local variables.
+     */
+    private int nextSlot = FIRST_TEMP;
+
+    /**
+     * The constant pool.
+     */
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolCount = 1;
+
+    /**
+     * Create a compiler for the tree of a formula.
+     *
+     * @param root the root of the formula tree.
+     */
+    FormulaCompiler(Formula.Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Generate the class and create the kernel.
+     *
+     * @return the kernel.
+     * @throws IllegalArgumentException if the formula is too long for a method.
+     * @throws IllegalStateException if the class can't be loaded.
+     */
+    FormulaKernel compile() {
+        byte[] bytes;
+        try {
+            bytes = generate();
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (FormulaKernel) lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class)).invoke();
+        }
+        catch (Throwable ex) {
+            throw new IllegalStateException("Formula " + root + " not compiled", ex);
+        }
+    }
+
+    /**
+     * Generate the class file.
+     *
+     * @return the class file.
+     * @throws IOException never, the streams are in memory.
+     */
+    private byte[] generate() throws IOException {
+        // iterate(): the loop
+        emit(ICONST_0);
+        emitLocal(ISTORE, COUNT);
+        int loop = length;
+        emitLocal(ILOAD, COUNT);
+        emitLocal(ILOAD, MAX);
+        int exitCount = length;
+        emit(IF_ICMPGE);
+        emit2(0);
+        emitLocal(DLOAD, Z_RE);
+        emit(DUP2);
+        emit(DMUL);
+        emitLocal(DLOAD, Z_IM);
+        emit(DUP2);
+        emit(DMUL);
+        emit(DADD);
+        load(constant(EscapeTimeKernel.BAILOUT_SQUARED));
+        // NaN compares as greater, so a NaN orbit escapes
+        emit(DCMPG);
+        int exitBailout = length;
+        emit(IFGE);
+        emit2(0);
+
+        Value z = generate(root);
+        load(z.re);
+        load(z.im);
+        emitLocal(DSTORE, Z_IM);
+        emitLocal(DSTORE, Z_RE);
+        emit(IINC);
+        emit(COUNT);
+        emit(1);
+        int back = length;
+        emit(GOTO);
+        emit2(loop - back);
+
+        int end = length;
+        emitLocal(ILOAD, COUNT);
+        emit(IRETURN);
+        if (length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Formula " + root + " too long");
+        }
+        patch(exitCount, end);
+        patch(exitBailout, end);
+
+        // The constants of the class, before the pool is written
+        int thisClass = classIndex(CLASS_NAME);
+        int objectClass = classIndex(OBJECT);
+        int kernelClass = classIndex(KERNEL);
+        int objectInit = methodIndex(OBJECT, "<init>", "()V");
+        int initName = utf8Index("<init>");
+        int initDescriptor = utf8Index("()V");
+        int iterateName = utf8Index("iterate");
+        int iterateDescriptor = utf8Index(ITERATE_DESCRIPTOR);
+        int codeName = utf8Index("Code");
+        int stackMapName = utf8Index("StackMapTable");
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(classBytes);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        // Java 8 class file
+        out.writeShort(52);
+        out.writeShort(poolCount);
+        out.write(poolBytes.toByteArray());
+        // public final super
+        out.writeShort(0x0031);
+        out.writeShort(thisClass);
+        out.writeShort(objectClass);
+        out.writeShort(1);
+        out.writeShort(kernelClass);
+        // no fields, two methods
+        out.writeShort(0);
+        out.writeShort(2);
+
+        // public <init>() { super(); }
+        byte[] init = {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit,
+            (byte) RETURN};
+        out.writeShort(0x0001);
+        out.writeShort(initName);
+        out.writeShort(initDescriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + init.length);
+        out.writeShort(1);
+        out.writeShort(1);
+        out.writeInt(init.length);
+        out.write(init);
+        out.writeShort(0);
+        out.writeShort(0);
+
+        // public int iterate(...), the stack map has the same frame at the loop and at the end
+        ByteArrayOutputStream frameBytes = new ByteArrayOutputStream();
+        DataOutputStream frames = new DataOutputStream(frameBytes);
+        frames.writeShort(2);
+        writeFrame(frames, loop, thisClass);
+        writeFrame(frames, end - loop - 1, thisClass);
+        byte[] stackMap = frameBytes.toByteArray();
+
+        out.writeShort(0x0001);
+        out.writeShort(iterateName);
+        out.writeShort(iterateDescriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + length + 6 + stackMap.length);
+        out.writeShort(MAX_STACK);
+        out.writeShort(nextSlot);
+        out.writeInt(length);
+        out.write(code, 0, length);
+        out.writeShort(0);
+        out.writeShort(1);
+        out.writeShort(stackMapName);
+        out.writeInt(stackMap.length);
+        out.write(stackMap);
+
+        // no class attributes
+        out.writeShort(0);
+        return classBytes.toByteArray();
+    }
+
+    /**
+     * Write a full frame with the parameters and the counter of iterate().
+     *
+     * @param frames the stream of the frames.
+     * @param offsetDelta the offset from the previous frame.
+     * @param thisClass the index of this class in the constant pool.
+     * @throws IOException never, the stream is in memory.
+     */
+    private static void writeFrame(DataOutputStream frames, int offsetDelta, int thisClass) throws IOException {
+        frames.writeByte(255);
+        frames.writeShort(offsetDelta);
+        frames.writeShort(9);
+        frames.writeByte(7);
+        frames.writeShort(thisClass);
+        for (int i = 0; i < 6; i++) {
+            frames.writeByte(3);
+        }
+        frames.writeByte(1);
+        frames.writeByte(1);
+        frames.writeShort(0);
+    }
+
+    /**
+     * Generate the code of a node.
+     *
+     * @param node the node.
+     * @return the value of the node.
+     */
+    private Value generate(Formula.Node node) {
+        switch (node.kind) {
+            case CONSTANT:
+                return new Value(constant(node.value.getReal()), constant(node.value.getImag()));
+            case VARIABLE:
+                switch (node.name) {
+                    case "z":
+                        return new Value(local(Z_RE), local(Z_IM));
+                    case "c":
+                        return new Value(local(C_RE), local(C_IM));
+                    default:
+                        return new Value(local(K_RE), local(K_IM));
+                }
+            case NEGATE: {
+                Value a = generate(node.left);
+                return new Value(negate(a.re), negate(a.im));
+            }
+            case ADD: {
+                Value a = generate(node.left);
+                Value b = generate(node.right);
+                return new Value(add(a.re, b.re), add(a.im, b.im));
+            }
+            case SUBTRACT: {
+                Value a = generate(node.left);
+                Value b = generate(node.right);
+                return new Value(subtract(a.re, b.re), subtract(a.im, b.im));
+            }
+            case MULTIPLY:
+                return multiply(generate(node.left), generate(node.right));
+            case DIVIDE:
+                return divide(generate(node.left), generate(node.right));
+            case POWER:
+                return power(node.left, node.right);
+            default:
+                return function(node.name, generate(node.left));
+        }
+    }
+
+    /**
+     * a * b = (a.re*b.re - a.im*b.im) + i*(a.re*b.im + a.im*b.re)
+     */
+    private Value multiply(Value a, Value b) {
+        return new Value(subtract(multiply(a.re, b.re), multiply(a.im, b.im)),
+                add(multiply(a.re, b.im), multiply(a.im, b.re)));
+    }
+
+    /**
+     * a^2 = (a.re*a.re - a.im*a.im) + i*(2*a.re*a.im)
+     */
+    private Value square(Value a) {
+        Part product = multiply(a.re, a.im);
+        return new Value(subtract(multiply(a.re, a.re), multiply(a.im, a.im)), add(product, product));
+    }
+
+    /**
+     * a / b, with a division for every part if b is real.
+     */
+    private Value divide(Value a, Value b) {
+        if (b.im.is(0)) {
+            return new Value(divide(a.re, b.re), divide(a.im, b.re));
+        }
+        Part den = add(multiply(b.re, b.re), multiply(b.im, b.im));
+        return new Value(divide(add(multiply(a.re, b.re), multiply(a.im, b.im)), den),
+                divide(subtract(multiply(a.im, b.re), multiply(a.re, b.im)), den));
+    }
+
+    /**
+     * base^exponent: exponentiation by squaring for the small integers,
+     * else e^(exponent*log(base)).
+     */
+    private Value power(Formula.Node base, Formula.Node exponent) {
+        Value a = generate(base);
+        if ((exponent.kind == Formula.Kind.CONSTANT) && exponent.value.isSmallInteger()) {
+            int n = (int) exponent.value.getReal();
+            Value result = integerPower(a, Math.abs(n));
+            return (n < 0) ? reciprocal(result) : result;
+        }
+        // e^(b*log(a)): the modulus and the argument, the constant parts are folded
+        Value b = generate(exponent);
+        Part mod2 = add(multiply(a.re, a.re), multiply(a.im, a.im));
+        Part logMod = call(SELF, "logModulus", "(D)D", mod2);
+        Part arg = call(MATH, "atan2", "(DD)D", a.im, a.re);
+        Part mod = call(SELF, "expModulus", "(DD)D",
+                subtract(multiply(b.re, logMod), multiply(b.im, arg)), mod2);
+        Part angle = add(multiply(b.im, logMod), multiply(b.re, arg));
+        return new Value(multiply(mod, call(MATH, "cos", "(D)D", angle)),
+                multiply(mod, call(MATH, "sin", "(D)D", angle)));
+    }
+
+    /**
+     * 1 / a = conj(a) / |a|^2, zero if a is zero.
+     */
+    private Value reciprocal(Value a) {
+        Part den = add(multiply(a.re, a.re), multiply(a.im, a.im));
+        Part re = call(SELF, "divideOrZero", "(DD)D", a.re, den);
+        Part im = a.im.is(0) ? constant(0) : call(SELF, "divideOrZero", "(DD)D", negate(a.im), den);
+        return new Value(re, im);
+    }
+
+    /**
+     * a^n with n greater than or equal to 0.
+     */
+    private Value integerPower(Value a, int n) {
+        Value result = null;
+        Value base = a;
+        while (n > 0) {
+            if ((n & 1) == 1) {
+                result = (result == null) ? base : multiply(result, base);
+            }
+            n >>= 1;
+            if (n > 0) {
+                base = square(base);
+            }
+        }
+        return (result == null) ? new Value(constant(1), constant(0)) : result;
+    }
+
+    /**
+     * The functions of the formula.
+     */
+    private Value function(String name, Value a) {
+        switch (name) {
+            case "exp": {
+                // e^re * (cos(im) + i*sin(im))
+                Part mod = call(MATH, "exp", "(D)D", a.re);
+                if (a.im.is(0)) {
+                    return new Value(mod, constant(0));
+                }
+                return new Value(multiply(mod, call(MATH, "cos", "(D)D", a.im)),
+                        multiply(mod, call(MATH, "sin", "(D)D", a.im)));
+            }
+            case "log": {
+                // ln|a| + i*arg(a)
+                Part mod2 = add(multiply(a.re, a.re), multiply(a.im, a.im));
+                return new Value(multiply(constant(0.5), call(MATH, "log", "(D)D", mod2)),
+                        call(MATH, "atan2", "(DD)D", a.im, a.re));
+            }
+            case "sin":
+                // sin(re)*cosh(im) + i*cos(re)*sinh(im)
+                return new Value(multiply(call(MATH, "sin", "(D)D", a.re), call(MATH, "cosh", "(D)D", a.im)),
+                        multiply(call(MATH, "cos", "(D)D", a.re), call(MATH, "sinh", "(D)D", a.im)));
+            case "cos":
+                // cos(re)*cosh(im) - i*sin(re)*sinh(im)
+                return new Value(multiply(call(MATH, "cos", "(D)D", a.re), call(MATH, "cosh", "(D)D", a.im)),
+                        negate(multiply(call(MATH, "sin", "(D)D", a.re), call(MATH, "sinh", "(D)D", a.im))));
+            case "conj":
+                return new Value(a.re, negate(a.im));
+            default:
+                return new Value(call(MATH, "abs", "(D)D", a.re), call(MATH, "abs", "(D)D", a.im));
+        }
+    }
+
+    /**
+     * a + b. The operations on the parts fold the constants and remove
+     * the operations with 0 and 1.
+     */
+    private Part add(Part a, Part b) {
+        if (a.isConstant() && b.isConstant()) {
+            return constant(a.constant + b.constant);
+        }
+        if (a.is(0)) {
+            return b;
+        }
+        if (b.is(0)) {
+            return a;
+        }
+        return operation(DADD, a, b);
+    }
+
+    /**
+     * a - b.
+     */
+    private Part subtract(Part a, Part b) {
+        if (a.isConstant() && b.isConstant()) {
+            return constant(a.constant - b.constant);
+        }
+        if (b.is(0)) {
+            return a;
+        }
+        if (a.is(0)) {
+            return negate(b);
+        }
+        return operation(DSUB, a, b);
+    }
+
+    /**
+     * a * b.
+     */
+    private Part multiply(Part a, Part b) {
+        if (a.isConstant() && b.isConstant()) {
+            return constant(a.constant * b.constant);
+        }
+        if (a.is(0) || b.is(0)) {
+            return constant(0);
+        }
+        if (a.is(1)) {
+            return b;
+        }
+        if (b.is(1)) {
+            return a;
+        }
+        if (a.is(-1)) {
+            return negate(b);
+        }
+        if (b.is(-1)) {
+            return negate(a);
+        }
+        return operation(DMUL, a, b);
+    }
+
+    /**
+     * a / b.
+     */
+    private Part divide(Part a, Part b) {
+        if (a.isConstant() && b.isConstant()) {
+            return constant(a.constant / b.constant);
+        }
+        if (b.is(1)) {
+            return a;
+        }
+        if (a.is(0)) {
+            return constant(0);
+        }
+        return operation(DDIV, a, b);
+    }
+
+    /**
+     * -a.
+     */
+    private Part negate(Part a) {
+        if (a.isConstant()) {
+            return constant(-a.constant);
+        }
+        load(a);
+        emit(DNEG);
+        return store();
+    }
+
+    /**
+     * Load a and b, apply the opcode and store the result in a new local variable.
+     */
+    private Part operation(int opcode, Part a, Part b) {
+        load(a);
+        load(b);
+        emit(opcode);
+        return store();
+    }
+
+    /**
+     * Call a static method with double arguments and a double result.
+     */
+    private Part call(String owner, String name, String descriptor, Part... arguments) {
+        for (Part argument : arguments) {
+            load(argument);
+        }
+        int method = methodIndex(owner, name, descriptor);
+        emit(INVOKESTATIC);
+        emit2(method);
+        return store();
+    }
+
+    /**
+     * A constant part.
+     */
+    private static Part constant(double value) {
+        return new Part(-1, value);
+    }
+
+    /**
+     * A part in a local variable.
+     */
+    private static Part local(int slot) {
+        return new Part(slot, 0);
+    }
+
+    /**
+     * Push a part on the stack.
+     */
+    private void load(Part part) {
+        if (!part.isConstant()) {
+            emitLocal(DLOAD, part.slot);
+        }
+        else if (Double.doubleToRawLongBits(part.constant) == 0) {
+            emit(DCONST_0);
+        }
+        else if (part.constant == 1) {
+            emit(DCONST_1);
+        }
+        else {
+            emit(LDC2_W);
+            emit2(doubleIndex(part.constant));
+        }
+    }
+
+    /**
+     * Store the top of the stack in a new local variable.
+     */
+    private Part store() {
+        int slot = nextSlot;
+        nextSlot += 2;
+        if (nextSlot > 0xffff) {
+            throw new IllegalArgumentException("Formula " + root + " too long");
+        }
+        emitLocal(DSTORE, slot);
+        return local(slot);
+    }
+
+    /**
+     * Emit an instruction on a local variable, with the wide prefix if needed.
+     */
+    private void emitLocal(int opcode, int slot) {
+        if (slot > 0xff) {
+            emit(WIDE);
+            emit(opcode);
+            emit2(slot);
+        }
+        else {
+            emit(opcode);
+            emit(slot);
+        }
+    }
+
+    /**
+     * Append a byte to the bytecode.
+     */
+    private void emit(int b) {
+        if (length == code.length) {
+            code = Arrays.copyOf(code, 2 * code.length);
+        }
+        code[length++] = (byte) b;
+    }
+
+    /**
+     * Append two bytes to the bytecode (big-endian).
+     */
+    private void emit2(int s) {
+        emit(s >> 8);
+        emit(s);
+    }
+
+    /**
+     * Set the target of the branch at position.
+     */
+    private void patch(int position, int target) {
+        int offset = target - position;
+        code[position + 1] = (byte) (offset >> 8);
+        code[position + 2] = (byte) offset;
+    }
+
+    /**
+     * The index of a string in the constant pool, every entry is added once.
+     */
+    private int utf8Index(String s) {
+        Integer index = poolIndex.get("U" + s);
+        if (index == null) {
+            index = addEntry("U" + s, 1);
+            try {
+                pool.writeByte(1);
+                pool.writeUTF(s);
+            }
+            catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * The index of a class in the constant pool.
+     */
+    private int classIndex(String name) {
+        Integer index = poolIndex.get("C" + name);
+        if (index == null) {
+            int nameIndex = utf8Index(name);
+            index = addEntry("C" + name, 1);
+            writeEntry(7, nameIndex, -1);
+        }
+        return index;
+    }
+
+    /**
+     * The index of a method in the constant pool.
+     */
+    private int methodIndex(String owner, String name, String descriptor) {
+        String key = "M" + owner + "." + name + descriptor;
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            int ownerIndex = classIndex(owner);
+            int nameIndex = utf8Index(name);
+            int descriptorIndex = utf8Index(descriptor);
+            Integer nameAndType = poolIndex.get("N" + name + descriptor);
+            if (nameAndType == null) {
+                nameAndType = addEntry("N" + name + descriptor, 1);
+                writeEntry(12, nameIndex, descriptorIndex);
+            }
+            index = addEntry(key, 1);
+            writeEntry(10, ownerIndex, nameAndType);
+        }
+        return index;
+    }
+
+    /**
+     * The index of a double in the constant pool.
+     */
+    private int doubleIndex(double value) {
+        String key = "D" + Double.doubleToRawLongBits(value);
+        Integer index = poolIndex.get(key);
+        if (index == null) {
+            // A double takes two entries
+            index = addEntry(key, 2);
+            try {
+                pool.writeByte(6);
+                pool.writeDouble(value);
+            }
+            catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Reserve the index of a new entry of the constant pool.
+     */
+    private int addEntry(String key, int size) {
+        int index = poolCount;
+        poolCount += size;
+        if (poolCount > 0xffff) {
+            throw new IllegalArgumentException("Formula " + root + " too long");
+        }
+        poolIndex.put(key, index);
+        return index;
+    }
+
+    /**
+     * Write an entry of the constant pool with one or two indexes (second is -1 if missing).
+     */
+    private void writeEntry(int tag, int first, int second) {
+        try {
+            pool.writeByte(tag);
+            pool.writeShort(first);
+            if (second >= 0) {
+                pool.writeShort(second);
+            }
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * x / den, zero if den is zero (zero raised to a negative integer power
+     * is zero, as Complex.pow(Complex)). Called by the generated code.
+     *
+     * @param x the numerator.
+     * @param den the square modulus of the power.
+     * @return x / den, or zero if den is zero.
+     */
+    static double divideOrZero(double x, double den) {
+        return (den == 0) ? 0 : x / den;
+    }
+
+    /**
+     * ln|z| from |z|^2, zero if z is zero (with expModulus() zero raised
+     * to a non-integer power is zero, as Complex.pow(Complex)). Called by the generated code.
+     *
+     * @param mod2 the square modulus of z.
+     * @return ln|z|, or zero if z is zero.
+     */
+    static double logModulus(double mod2) {
+        return (mod2 == 0) ? 0 : 0.5 * Math.log(mod2);
+    }
+
+    /**
+     * The modulus of z^w from the exponent of e. Called by the generated code.
+     *
+     * @param exponent Re(w)*ln|z| - Im(w)*arg(z).
+     * @param mod2 the square modulus of z.
+     * @return e^exponent, or zero if z is zero.
+     */
+    static double expModulus(double exponent, double mod2) {
+        return (mod2 == 0) ? 0 : Math.exp(exponent);
+    }
+
+}
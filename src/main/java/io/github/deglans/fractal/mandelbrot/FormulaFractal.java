@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.Complex;
+import io.github.deglans.fractal.utility.ColorPalette;
+
+import javafx.scene.paint.Color;
+
+/**
+ * FormulaFractal calculates the fractal of the formula of the DataBox
+ * (see Formula) with the escape-time algorithm and a simple color palette:
+ * - Mandelbrot like: z0 = 0 and c is the point;
+ * - Julia like: z0 is the point and c is the constant of the DataBox.
+ * The formula is compiled in a FormulaKernel when the instance is created.
+ *
+ * @version 0.3
+ * @author Deglans Dalpasso
+ */
+public class FormulaFractal extends MandelbrotBase {
+
+    /**
+     * The data of this fractal instance.
+     */
+    protected final DataBox dataBox;
+
+    /**
+     * The color palette of this fractal instance.
+     */
+    protected final ColorPalette colorPalette;
+
+    /**
+     * The compiled formula.
+     */
+    protected final FormulaKernel kernel;
+
+    /**
+     * If true z0 is the point, else c is the point.
+     */
+    protected final boolean julia;
+
+    /**
+     * The real part of the constant of the DataBox, read once and not for every pixel.
+     */
+    protected final double constantRe;
+
+    /**
+     * The imaginary part of the constant of the DataBox.
+     */
+    protected final double constantIm;
+
+    /**
+     * The number of max iteration for the escape-time algorithm.
+     */
+    protected final int maxIterations;
+
+    /**
+     * Create a FormulaFractal instance with the given data
+     * and the default colors palette or HUE palette.
+     *
+     * @param dataBox the data of this fractal instance.
+     * @param julia if true z0 is the point, else c is the point.
+     * @param hue if true, use a HUE palette, else use the default color palette.
+     * @throws IllegalArgumentException if the formula is not valid.
+     */
+    public FormulaFractal(DataBox dataBox, boolean julia, boolean hue) {
+        this(dataBox, julia, new ColorPalette(dataBox.getMaxIterations(), hue));
+    }
+
+    /**
+     * Create a FormulaFractal instance with the given data.
+     *
+     * @param dataBox the data of this fractal instance.
+     * @param julia if true z0 is the point, else c is the point.
+     * @param colorPalette the palette of this fractal instance.
+     * @throws IllegalArgumentException if the formula is not valid.
+     */
+    public FormulaFractal(DataBox dataBox, boolean julia, ColorPalette colorPalette) {
+        super(dataBox.getCartesianPlane(), dataBox.getImage());
+        this.dataBox = dataBox;
+        this.colorPalette = colorPalette;
+        this.kernel = Formula.parse(dataBox.getFormula()).compile();
+        this.julia = julia;
+        this.constantRe = dataBox.getConstant().getReal();
+        this.constantIm = dataBox.getConstant().getImag();
+        this.maxIterations = dataBox.getMaxIterations();
+    }
+
+    /**
+     * Calculate the color of c through the escape-time algorithm.
+     *
+     * @param c the point to be calculated.
+     * @return the color of c.
+     */
+    @Override
+    protected Color calcPoint(Complex c) {
+        return calcPoint(c.getReal(), c.getImag());
+    }
+
+    /**
+     * Calculate the color of (re, im) through the escape-time algorithm.
+     *
+     * @param re the real part of the point to be calculated.
+     * @param im the imaginary part of the point to be calculated.
+     * @return the color of (re, im).
+     */
+    @Override
+    protected Color calcPoint(double re, double im) {
+        int count;
+        if (julia) {
+            count = kernel.iterate(re, im, constantRe, constantIm, constantRe, constantIm, maxIterations);
+        }
+        else {
+            count = kernel.iterate(0, 0, re, im, constantRe, constantIm, maxIterations);
+        }
+        return colorPalette.getColor(count);
+    }
+
+    /**
+     * Return the maximum number of iterations of the DataBox.
+     *
+     * @return the maximum number of iterations.
+     */
+    @Override
+    protected int getMaxIterations() {
+        return maxIterations;
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * FormulaKernel is the escape-time loop of a user formula, its
+ * implementations are generated at runtime by Formula.compile().
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+public interface FormulaKernel {
+
+    /**
+     * Iterate z = formula(z, c, k) starting from z0 while the square modulus
+     * of z is less than EscapeTimeKernel.BAILOUT_SQUARED.
+     *
+     * @param zRe the real part of z0.
+     * @param zIm the imaginary part of z0.
+     * @param cRe the real part of c.
+     * @param cIm the imaginary part of c.
+     * @param kRe the real part of the constant k.
+     * @param kIm the imaginary part of the constant k.
+     * @param maxIterations the number of max iteration.
+     * @return the number of iterations done (maxIterations if z never escaped).
+     */
+    int iterate(double zRe, double zIm, double cRe, double cIm, double kRe, double kIm,
+            int maxIterations);
+
+}
@@ -18,35 +18,81 @@ package io.github.deglans.fractal.mandelbrot;
 
 import io.github.deglans.fractal.utility.ColorPalette;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
 /**
- * FractalFactory is the factory for all fractal.
+ * FractalFactory is the factory for all fractal: a registry of the fractal
+ * types of the FractalProvider, the built-in one first and then the plugins
+ * found by java.util.ServiceLoader. Every type is listed once for every
+ * PaletteKind of its provider.
  *
- * @version 0.3
+ * @version 0.6
  * @author Deglans Dalpasso
  */
 public class FractalFactory {
 
+    /**
+     * The providers of the fractal types, in the order of the list.
+     */
+    private static final Map<String, FractalProvider> PROVIDERS = new LinkedHashMap<>();
+
+    static {
+        register(new BuiltinFractalProvider());
+        Iterator<FractalProvider> plugins = ServiceLoader.load(FractalProvider.class).iterator();
+        while (true) {
+            try {
+                if (!plugins.hasNext()) {
+                    break;
+                }
+                register(plugins.next());
+            }
+            catch (ServiceConfigurationError ex) {
+                // A broken plugin doesn't hide the others
+                System.err.println("Fractal plugin not loaded: " + ex);
+            }
+        }
+    }
+
     /**
      * The list of all fractal.
      */
-    public static final String[] FRACTAL_LIST = {
-        "Mandelbrot Simple",
-        "Mandelbrot Simple (default color)",
-        "Mandelbrot Simple (HUE color)",
-        "Julia Simple",
-        "Julia Simple (default color)",
-        "Julia Simple (HUE color)",
-        "Mandelbrot Periodic",
-        "Mandelbrot Periodic (default color)",
-        "Mandelbrot Periodic (HUE color)",
-        "Burning Ship Simple",
-        "Burning Ship Simple (default color)",
-        "Burning Ship Simple (HUE color)",
-        "Burning Julia Simple",
-        "Burning Julia Simple (default color)",
-        "Burning Julia Simple (HUE color)",
-        "Mandelbrot Lyapunov"
-    };
+    public static final String[] FRACTAL_LIST = buildFractalList();
+
+    /**
+     * Add the types of a provider, a type already registered is not replaced.
+     *
+     * @param provider the provider.
+     */
+    private static void register(FractalProvider provider) {
+        for (String type : provider.getFractalTypes()) {
+            if (PROVIDERS.putIfAbsent(type, provider) != null) {
+                System.err.println("Fractal type \"" + type + "\" of "
+                        + provider.getClass().getName() + " already registered");
+            }
+        }
+    }
+
+    /**
+     * Build the names of every type with every palette kind.
+     *
+     * @return the list of all fractal.
+     */
+    private static String[] buildFractalList() {
+        List<String> list = new ArrayList<>();
+        for (String type : PROVIDERS.keySet()) {
+            for (PaletteKind kind : PROVIDERS.get(type).getPaletteKinds(type)) {
+                list.add(kind.getName(type));
+            }
+        }
+        return list.toArray(new String[0]);
+    }
 
     /**
      * Factory for create fractal instances.
@@ -54,63 +100,18 @@ public class FractalFactory {
      * @param selectedFractal the selected fractal.
      * @param dataBox the data for calculate the fractal.
      * @param colorPalette the colors for the fractal.
-     * @return the fractal ready to calculate.
+     * @return the fractal ready to calculate, or null if the fractal is not in the list.
      */
     public static MandelbrotBase bulidFractal(String selectedFractal,
             DataBox dataBox, ColorPalette colorPalette) {
 
-        switch (selectedFractal) {
-            case "Mandelbrot Simple":
-                return new MandelbrotSimple(dataBox, colorPalette);
-
-            case "Mandelbrot Simple (default color)":
-                return new MandelbrotSimple(dataBox, false);
-
-            case "Mandelbrot Simple (HUE color)":
-                return new MandelbrotSimple(dataBox, true);
-
-            case "Julia Simple":
-                return new JuliaSimple(dataBox, colorPalette);
-
-            case "Julia Simple (default color)":
-                return new JuliaSimple(dataBox, false);
-
-            case "Julia Simple (HUE color)":
-                return new JuliaSimple(dataBox, true);
-
-            case "Mandelbrot Periodic":
-                return new MandelbrotPeriodic(dataBox, colorPalette);
-
-            case "Mandelbrot Periodic (default color)":
-                return new MandelbrotPeriodic(dataBox, false);
-
-            case "Mandelbrot Periodic (HUE color)":
-                return new MandelbrotPeriodic(dataBox, true);
-
-            case "Burning Ship Simple":
-                return new BurningShipSimple(dataBox, colorPalette);
-
-            case "Burning Ship Simple (default color)":
-                return new BurningShipSimple(dataBox, false);
-
-            case "Burning Ship Simple (HUE color)":
-                return new BurningShipSimple(dataBox, true);
-
-            case "Burning Julia Simple":
-                return new BurningJuliaSimple(dataBox, colorPalette);
-
-            case "Burning Julia Simple (default color)":
-                return new BurningJuliaSimple(dataBox, false);
-
-            case "Burning Julia Simple (HUE color)":
-                return new BurningJuliaSimple(dataBox, true);
-
-            case "Mandelbrot Lyapunov":
-                return new MandelbrotLyapunov(dataBox, false);
-
-            default:
-                return null;
+        PaletteKind kind = PaletteKind.of(selectedFractal);
+        String type = kind.getType(selectedFractal);
+        FractalProvider provider = PROVIDERS.get(type);
+        if ((provider == null) || !Arrays.asList(provider.getPaletteKinds(type)).contains(kind)) {
+            return null;
         }
+        return provider.create(type, dataBox, kind.getPalette(dataBox.getMaxIterations(), colorPalette));
     }
 
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.ColorPalette;
+
+/**
+ * FractalProvider is a plugin of FractalFactory that creates some types of
+ * fractal. The built-in fractals are in BuiltinFractalProvider, the others
+ * are found with java.util.ServiceLoader: a jar in the class path with the
+ * file META-INF/services/io.github.deglans.fractal.mandelbrot.FractalProvider,
+ * that contains the name of a public implementation with a public constructor
+ * without parameters, adds its types to the list of the fractals.
+ *
+ * The fractal is created for the concrete configuration (the power, the
+ * constant, the number of iterations and the palette of the DataBox), so the
+ * provider can choose a class or a kernel specialised for it: the hot loop
+ * then sees only final fields and a single implementation.
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+public interface FractalProvider {
+
+    /**
+     * Return the names of the fractal types of this provider, every type is
+     * listed once for every PaletteKind of getPaletteKinds().
+     *
+     * @return the names of the fractal types, in the order of the list.
+     */
+    String[] getFractalTypes();
+
+    /**
+     * Return the palette kinds of a fractal type, by default all of them.
+     *
+     * @param type one of the names returned by getFractalTypes().
+     * @return the palette kinds listed for the type.
+     */
+    default PaletteKind[] getPaletteKinds(String type) {
+        return PaletteKind.values();
+    }
+
+    /**
+     * Create a fractal of the given type for the given data.
+     *
+     * @param type one of the names returned by getFractalTypes().
+     * @param dataBox the data for calculate the fractal.
+     * @param colorPalette the colors for the fractal (of the selected PaletteKind).
+     * @return the fractal ready to calculate.
+     * @throws IllegalArgumentException if the data is not valid for the type.
+     */
+    MandelbrotBase create(String type, DataBox dataBox, ColorPalette colorPalette);
+
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.CartesianPlane;
+import io.github.deglans.fractal.utility.DoubleDoubleComplex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import javafx.scene.paint.Color;
+
+/**
+ * GlitchCorrection calculates again the pixels of a deep zoom image that the
+ * PerturbationEngine marked as glitches (GLITCH) or as inexact (INEXACT) in
+ * the status buffer of MandelbrotBase, the colors of these pixels are only
+ * placeholders (any color can come from a palette).
+ *
+ * The glitches are grouped in connected blobs (the pixels of a blob have a
+ * similar orbit), for every blob the pixel nearest to its centroid becomes
+ * the reference of a secondary PerturbationEngine, then the pixels of the
+ * blob are calculated again with it. The pixels that are still glitches
+ * make new blobs for the next round. The secondary references and the
+ * pixels are calculated in parallel.
+ * After MAX_ROUNDS rounds (or MAX_REFERENCES references) the remaining
+ * glitches are calculated exactly: in double-double if it separates the
+ * pixels, else with a secondary engine that has the pixel itself as
+ * reference (so the whole orbit is in arbitrary precision). Only the first
+ * MAX_EXACT_REFERENCES glitches (the biggest blobs first) get their own
+ * reference, the others use the nearest reference already calculated.
+ * The inexact pixels are calculated in double-double if it separates the
+ * pixels (a nearer reference doesn't help them, the rounding errors are in
+ * their own orbit), else they keep the result of the perturbation: they can
+ * be many, and an orbit in arbitrary precision for each costs too much.
+ *
+ * https://mathr.co.uk/blog/2021-05-14_deep_zoom_theory_and_practice.html
+ *
+ * @version 0.5
+ * @author Deglans Dalpasso
+ */
+final class GlitchCorrection {
+
+    /**
+     * The maximum number of rounds.
+     */
+    static final int MAX_ROUNDS = 8;
+
+    /**
+     * The maximum number of secondary references for one image.
+     */
+    static final int MAX_REFERENCES = 256;
+
+    /**
+     * The maximum number of remaining glitches calculated with their own
+     * reference, every one is an orbit in arbitrary precision.
+     */
+    static final int MAX_EXACT_REFERENCES = 64;
+
+    /**
+     * The status of a pixel with its final color.
+     */
+    static final byte EXACT = 0;
+
+    /**
+     * The status of a pixel marked as glitch.
+     */
+    static final byte GLITCH = 1;
+
+    /**
+     * The status of a pixel marked as inexact.
+     */
+    static final byte INEXACT = 2;
+
+    /**
+     * The fractal to render.
+     */
+    private final MandelbrotBase fractal;
+
+    /**
+     * The PerturbationEngine of the center of the plane.
+     */
+    private final PerturbationEngine engine;
+
+    /**
+     * The function of the fractal that gives the color from the iterations.
+     */
+    private final IntFunction<Color> coloring;
+
+    /**
+     * The function of the fractal that calculates a pixel in double-double,
+     * null if the double-double doesn't separate the pixels.
+     */
+    private final Function<DoubleDoubleComplex, Color> doubleDouble;
+
+    /**
+     * The CartesianPlane of the image.
+     */
+    private final CartesianPlane plane;
+
+    /**
+     * The pixels of the image, by rows.
+     */
+    private final Color[] pixels;
+
+    /**
+     * The status of the pixels (EXACT, GLITCH or INEXACT), by rows.
+     */
+    private final byte[] status;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The references calculated: the engine of the center of the plane and the secondary ones.
+     */
+    private final List<PerturbationEngine> available = new ArrayList<>();
+
+    /**
+     * The offsets from the center of the plane of the available references, {real, imaginary}.
+     */
+    private final List<double[]> offsets = new ArrayList<>();
+
+    /**
+     * The number of secondary references used.
+     */
+    private int references = 0;
+
+    /**
+     * The number of glitches calculated exactly.
+     */
+    private int unresolved = 0;
+
+    /**
+     * The number of inexact pixels.
+     */
+    private int inexact = 0;
+
+    /**
+     * Create the correction for an image already rendered.
+     *
+     * @param fractal the fractal to render.
+     * @param engine the PerturbationEngine of the center of the plane.
+     * @param coloring the function of the fractal that gives the color from the iterations.
+     * @param doubleDouble the function of the fractal that calculates a pixel in double-double,
+     * null if the double-double doesn't separate the pixels.
+     * @param plane the CartesianPlane of the image.
+     * @param pixels the pixels of the image, by rows.
+     * @param status the status of the pixels (EXACT, GLITCH or INEXACT), by rows.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     */
+    GlitchCorrection(MandelbrotBase fractal, PerturbationEngine engine, IntFunction<Color> coloring,
+            Function<DoubleDoubleComplex, Color> doubleDouble, CartesianPlane plane,
+            Color[] pixels, byte[] status, int width, int height) {
+        this.fractal = fractal;
+        this.engine = engine;
+        this.coloring = coloring;
+        this.doubleDouble = doubleDouble;
+        this.plane = plane;
+        this.pixels = pixels;
+        this.status = status;
+        this.width = width;
+        this.height = height;
+        available.add(engine);
+        offsets.add(new double[] {0, 0});
+    }
+
+    /**
+     * Calculate again the glitches of the image.
+     *
+     * @return the number of glitches found in the image.
+     */
+    int correct() {
+        List<int[]> blobs = findBlobs();
+        int glitches = 0;
+        for (int[] blob : blobs) {
+            glitches += blob.length;
+        }
+
+        for (int round = 0; (round < MAX_ROUNDS) && !blobs.isEmpty(); round++) {
+            if (fractal.isCancelled()) {
+                return glitches;
+            }
+            // The biggest blobs first, if the references are not enough
+            blobs.sort((a, b) -> Integer.compare(b.length, a.length));
+            int n = Math.min(blobs.size(), MAX_REFERENCES - references);
+            if (n == 0) {
+                break;
+            }
+            final List<int[]> selected = blobs.subList(0, n);
+
+            PerturbationEngine[] secondary = new PerturbationEngine[n];
+            int[] centers = new int[n];
+            IntStream.range(0, n).parallel().forEach((int i) -> {
+                int p = nearestToCentroid(selected.get(i));
+                centers[i] = p;
+                secondary[i] = engine.secondary(plane.toDeltaReal(p % width), plane.toDeltaImag(p / width));
+            });
+            for (int i = 0; i < n; i++) {
+                addReference(secondary[i], centers[i]);
+            }
+
+            // Flatten the pixels of the blobs, for balance the threads
+            int size = 0;
+            for (int[] blob : selected) {
+                size += blob.length;
+            }
+            int[] todo = new int[size];
+            int[] owner = new int[size];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                for (int p : selected.get(i)) {
+                    todo[k] = p;
+                    owner[k] = i;
+                    k++;
+                }
+            }
+            IntStream.range(0, size).parallel().forEach((int i) -> {
+                int p = todo[i];
+                int count = secondary[owner[i]].iterate(plane.toDeltaReal(p % width),
+                        plane.toDeltaImag(p / width), true);
+                if (count == PerturbationEngine.INEXACT) {
+                    status[p] = INEXACT;
+                }
+                else if (count != PerturbationEngine.GLITCH) {
+                    pixels[p] = coloring.apply(count);
+                    status[p] = EXACT;
+                }
+            });
+
+            blobs = findBlobs();
+        }
+
+        // Calculate the remaining glitches exactly, the biggest blobs first
+        blobs.sort((a, b) -> Integer.compare(b.length, a.length));
+        int size = 0;
+        for (int[] blob : blobs) {
+            size += blob.length;
+        }
+        int[] remaining = new int[size];
+        int k = 0;
+        for (int[] blob : blobs) {
+            System.arraycopy(blob, 0, remaining, k, blob.length);
+            k += blob.length;
+        }
+        unresolved = size;
+
+        int own = (doubleDouble != null) ? 0 : Math.min(size, MAX_EXACT_REFERENCES);
+        PerturbationEngine[] exact = new PerturbationEngine[own];
+        IntStream.range(0, own).parallel().forEach((int i) -> {
+            if (!fractal.isCancelled()) {
+                int p = remaining[i];
+                double deltaRe = plane.toDeltaReal(p % width);
+                double deltaIm = plane.toDeltaImag(p / width);
+                // The offset of the pixel from its own reference is 0: no rounding errors
+                exact[i] = engine.secondary(deltaRe, deltaIm);
+                pixels[p] = coloring.apply(exact[i].iterate(deltaRe, deltaIm, false));
+                status[p] = EXACT;
+            }
+        });
+        if (fractal.isCancelled()) {
+            return glitches;
+        }
+        for (int i = 0; i < own; i++) {
+            addReference(exact[i], remaining[i]);
+        }
+        IntStream.range(own, size).parallel().forEach((int i) -> {
+            if (!fractal.isCancelled()) {
+                int p = remaining[i];
+                pixels[p] = calcExact(p, nearestReference(p));
+                status[p] = EXACT;
+            }
+        });
+
+        List<Integer> inexactPixels = new ArrayList<>();
+        for (int p = 0; p < status.length; p++) {
+            if (status[p] == INEXACT) {
+                inexactPixels.add(p);
+            }
+        }
+        inexact = inexactPixels.size();
+        inexactPixels.parallelStream().forEach((Integer p) -> {
+            if (!fractal.isCancelled()) {
+                pixels[p] = calcExact(p, engine);
+                status[p] = EXACT;
+            }
+        });
+        return glitches;
+    }
+
+    /**
+     * Calculate the pixel p in double-double if it separates the pixels, else
+     * with the given reference without the detection.
+     *
+     * @param p the pixel.
+     * @param reference the reference used if the double-double doesn't separate the pixels.
+     * @return the color of the pixel.
+     */
+    private Color calcExact(int p, PerturbationEngine reference) {
+        int x = p % width;
+        int y = p / width;
+        if (doubleDouble != null) {
+            return doubleDouble.apply(plane.toDoubleDoubleComplex(x, y));
+        }
+        return coloring.apply(reference.iterate(plane.toDeltaReal(x), plane.toDeltaImag(y), false));
+    }
+
+    /**
+     * Add a secondary reference to the available ones.
+     *
+     * @param reference the secondary PerturbationEngine.
+     * @param p the pixel of the reference.
+     */
+    private void addReference(PerturbationEngine reference, int p) {
+        available.add(reference);
+        offsets.add(new double[] {plane.toDeltaReal(p % width), plane.toDeltaImag(p / width)});
+        references++;
+    }
+
+    /**
+     * Return the available reference nearest to the pixel p.
+     *
+     * @param p the pixel.
+     * @return the nearest reference.
+     */
+    private PerturbationEngine nearestReference(int p) {
+        double deltaRe = plane.toDeltaReal(p % width);
+        double deltaIm = plane.toDeltaImag(p / width);
+        int best = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < offsets.size(); i++) {
+            double dx = offsets.get(i)[0] - deltaRe;
+            double dy = offsets.get(i)[1] - deltaIm;
+            double distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return available.get(best);
+    }
+
+    /**
+     * Return the number of secondary references used.
+     *
+     * @return the number of secondary references.
+     */
+    int getReferences() {
+        return references;
+    }
+
+    /**
+     * Return the number of glitches calculated exactly, because the
+     * secondary references didn't resolve them.
+     *
+     * @return the number of unresolved glitches.
+     */
+    int getUnresolved() {
+        return unresolved;
+    }
+
+    /**
+     * Return the number of inexact pixels.
+     *
+     * @return the number of inexact pixels.
+     */
+    int getInexact() {
+        return inexact;
+    }
+
+    /**
+     * Find the 4-connected blobs of glitches.
+     *
+     * @return the indexes of the pixels of every blob.
+     */
+    private List<int[]> findBlobs() {
+        boolean[] visited = new boolean[width * height];
+        int[] stack = new int[width * height];
+        List<int[]> blobs = new ArrayList<>();
+        for (int start = 0; start < status.length; start++) {
+            if (visited[start] || !isGlitch(start)) {
+                continue;
+            }
+            // Flood fill, the stack holds also the pixels of the blob
+            int top = 0;
+            int size = 0;
+            stack[top++] = start;
+            visited[start] = true;
+            while (size < top) {
+                int p = stack[size++];
+                int x = p % width;
+                int y = p / width;
+                if (x > 0) {
+                    top = push(p - 1, stack, top, visited);
+                }
+                if (x < width - 1) {
+                    top = push(p + 1, stack, top, visited);
+                }
+                if (y > 0) {
+                    top = push(p - width, stack, top, visited);
+                }
+                if (y < height - 1) {
+                    top = push(p + width, stack, top, visited);
+                }
+            }
+            int[] blob = new int[size];
+            System.arraycopy(stack, 0, blob, 0, size);
+            blobs.add(blob);
+        }
+        return blobs;
+    }
+
+    /**
+     * Add the pixel p to the stack if it's an unvisited glitch.
+     *
+     * @param p the pixel.
+     * @param stack the stack.
+     * @param top the size of the stack.
+     * @param visited the visited pixels.
+     * @return the new size of the stack.
+     */
+    private int push(int p, int[] stack, int top, boolean[] visited) {
+        if (!visited[p] && isGlitch(p)) {
+            visited[p] = true;
+            stack[top++] = p;
+        }
+        return top;
+    }
+
+    /**
+     * Check if the pixel p is a glitch.
+     *
+     * @param p the pixel.
+     * @return true if the pixel is a glitch.
+     */
+    private boolean isGlitch(int p) {
+        return status[p] == GLITCH;
+    }
+
+    /**
+     * Return the pixel of the blob nearest to its centroid, the centroid
+     * itself can be outside of a blob that is not convex.
+     *
+     * @param blob the pixels of the blob.
+     * @return the pixel nearest to the centroid.
+     */
+    private int nearestToCentroid(int[] blob) {
+        double cx = 0;
+        double cy = 0;
+        for (int p : blob) {
+            cx += p % width;
+            cy += p / width;
+        }
+        cx /= blob.length;
+        cy /= blob.length;
+
+        int best = blob[0];
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int p : blob) {
+            double dx = p % width - cx;
+            double dy = p / width - cy;
+            double distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = p;
+            }
+        }
+        return best;
+    }
+
+}
@@ -18,7 +18,10 @@ package io.github.deglans.fractal.mandelbrot;
 
 import io.github.deglans.fractal.utility.Complex;
 import io.github.deglans.fractal.utility.ColorPalette;
+import io.github.deglans.fractal.utility.DoubleDoubleComplex;
 
+import java.util.Arrays;
+import java.util.function.Function;
 import javafx.scene.paint.Color;
 
 /**
@@ -27,7 +30,7 @@ import javafx.scene.paint.Color;
  *
  * http://mcgoodwin.net/julia/juliajewels.html
  *
- * @version 0.12
+ * @version 0.21
  * @author Deglans Dalpasso
  */
 public class JuliaSimple extends MandelbrotBase {
@@ -42,6 +45,32 @@ public class JuliaSimple extends MandelbrotBase {
      */
     protected final ColorPalette colorPalette;
 
+    /**
+     * The kernel of the escape-time algorithm.
+     */
+    protected final EscapeTimeKernel kernel;
+
+    /**
+     * The kernel of the escape-time algorithm in double-double precision,
+     * null if the power is not supported.
+     */
+    protected final DoubleDoubleKernel doubleDoubleKernel;
+
+    /**
+     * The real part of the constant, read once from the DataBox.
+     */
+    protected final double constantRe;
+
+    /**
+     * The imaginary part of the constant, read once from the DataBox.
+     */
+    protected final double constantIm;
+
+    /**
+     * The constant in double-double precision.
+     */
+    protected final DoubleDoubleComplex doubleDoubleConstant;
+
     /**
      * Create a JuliaSimple instance with the given data
      * and the default colors palette or HUE palette.
@@ -53,6 +82,11 @@ public class JuliaSimple extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = new ColorPalette(this.dataBox.getMaxIterations(), hue);
+        this.kernel = EscapeTimeKernel.create(dataBox, false);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, false);
+        this.constantRe = dataBox.getConstant().getReal();
+        this.constantIm = dataBox.getConstant().getImag();
+        this.doubleDoubleConstant = new DoubleDoubleComplex(dataBox.getConstant());
     }
 
     /**
@@ -65,6 +99,11 @@ public class JuliaSimple extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = colorPalette;
+        this.kernel = EscapeTimeKernel.create(dataBox, false);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, false);
+        this.constantRe = dataBox.getConstant().getReal();
+        this.constantIm = dataBox.getConstant().getImag();
+        this.doubleDoubleConstant = new DoubleDoubleComplex(dataBox.getConstant());
     }
 
     /**
@@ -75,15 +114,157 @@ public class JuliaSimple extends MandelbrotBase {
      */
     @Override
     protected Color calcPoint(Complex c) {
-        Complex z = new Complex(c);
-        int count = 0;
+        return calcPoint(c.getReal(), c.getImag());
+    }
+
+    /**
+     * Calculate the color of (re, im) through the escape-time algorithm.
+     *
+     * @param re the real part of the point to be calculated.
+     * @param im the imaginary part of the point to be calculated.
+     * @return the color of (re, im).
+     */
+    @Override
+    protected Color calcPoint(double re, double im) {
+        return colorPalette.getColor(iterate(kernel, re, im, constantRe, constantIm));
+    }
 
-        while ((count < dataBox.getMaxIterations()) && (z.mod() < Math.max(2, c.mod()))) {
-            z = z.pow(dataBox.getPower()).plus(dataBox.getConstant());
-            count++;
+    /**
+     * For the deep zoom use a PerturbationEngine with the orbit that starts at the center of the plane as reference,
+     * only for the integer powers greater than or equal to 2.
+     *
+     * The iterations are colored with the palette.
+     *
+     * @return the PerturbationRenderer, or null if the power is not supported.
+     */
+    @Override
+    protected PerturbationRenderer createPerturbationRenderer() {
+        if (!PerturbationEngine.isSupported(dataBox.getPower())) {
+            return null;
         }
+        return new PerturbationRenderer(PerturbationEngine.julia(dataBox), colorPalette::getColor);
+    }
 
-        return colorPalette.getColor(count);
+    /**
+     * The Julia set of an integer power greater than or equal to 2 is connected
+     * if the constant is in the Mandelbrot set of the same power.
+     *
+     * @return true if the power is an integer greater than or equal to 2
+     *         and the constant does not escape.
+     */
+    @Override
+    protected boolean isConnected() {
+        return dataBox.getPower().isSmallInteger() && (dataBox.getPower().getReal() >= 2)
+                && (kernel.iterate(0, 0, constantRe, constantIm) == kernel.getMaxIterations());
+    }
+
+    /**
+     * The power 2 without the periodicity check can be iterated a row at once.
+     *
+     * @return the RowRenderer, or null if the power is not 2.
+     */
+    @Override
+    protected RowRenderer createRowRenderer() {
+        if (kernel.hasPeriodicityCheck()) {
+            return null;
+        }
+        return RowRenderer.create(RowKernel.create(dataBox, false), this::calcRow);
+    }
+
+    /**
+     * Calculate the colors of a row with the RowKernel.
+     *
+     * @param rowKernel the RowKernel.
+     * @param re the real parts of the points of the row.
+     * @param im the imaginary part of the points of the row.
+     * @param colors the array where the colors of the points are stored.
+     */
+    private void calcRow(RowKernel rowKernel, double[] re, double im, Color[] colors) {
+        int width = re.length;
+        double[] zIm = new double[width];
+        double[] cRe = new double[width];
+        double[] cIm = new double[width];
+        Arrays.fill(zIm, im);
+        Arrays.fill(cRe, constantRe);
+        Arrays.fill(cIm, constantIm);
+
+        int[] counts = new int[width];
+        rowKernel.iterate(re, zIm, cRe, cIm, width, counts);
+        for (int x = 0; x < width; x++) {
+            colors[x] = colorPalette.getColor(counts[x]);
+        }
+    }
+
+    /**
+     * The distance estimation is supported for the integer powers greater than or equal to 2,
+     * the interior is looked for only if the Julia set is connected.
+     *
+     * The distances are colored with the palette.
+     *
+     * @return the DistanceRenderer, or null if the power is not supported.
+     */
+    @Override
+    protected DistanceRenderer createDistanceRenderer() {
+        if (!DistanceEstimator.isSupported(dataBox)) {
+            return null;
+        }
+        return new DistanceRenderer(DistanceEstimator.julia(dataBox, isConnected()),
+                colorPalette::getDistanceColor);
+    }
+
+    /**
+     * The Julia set of an even integer power is symmetric about the origin,
+     * because (-z)^power = z^power.
+     *
+     * @return POINT if the power is an even integer, else NONE.
+     */
+    @Override
+    protected Symmetry getSymmetry() {
+        boolean even = dataBox.getPower().isSmallInteger() && (dataBox.getPower().getReal() % 2 == 0);
+        return even ? Symmetry.POINT : Symmetry.NONE;
+    }
+
+    /**
+     * Return the maximum number of iterations of the DataBox.
+     *
+     * @return the maximum number of iterations.
+     */
+    @Override
+    protected int getMaxIterations() {
+        return dataBox.getMaxIterations();
+    }
+
+    /**
+     * The perturbation is supported for the integer powers greater than or equal to 2.
+     *
+     * @return true if the power is supported by PerturbationEngine.
+     */
+    @Override
+    protected boolean isPerturbationSupported() {
+        return PerturbationEngine.isSupported(dataBox.getPower());
+    }
+
+    /**
+     * The double-double precision is supported for the integer powers
+     * greater than or equal to 2.
+     *
+     * @return the function that calculates a point in double-double precision,
+     *         or null if the power is not supported by DoubleDoubleKernel.
+     */
+    @Override
+    protected Function<DoubleDoubleComplex, Color> createDoubleDoubleFunction() {
+        return (doubleDoubleKernel == null) ? null : this::calcPoint;
+    }
+
+    /**
+     * Calculate the color of z0 through the escape-time algorithm in
+     * double-double precision.
+     *
+     * @param z0 the point to be calculated.
+     * @return the color of z0.
+     */
+    private Color calcPoint(DoubleDoubleComplex z0) {
+        return colorPalette.getColor(doubleDoubleKernel.iterate(z0, doubleDoubleConstant));
     }
 
 }
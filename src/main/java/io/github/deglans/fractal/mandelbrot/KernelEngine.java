@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * KernelEngine is the way MandelbrotBase iterates the pixels in double precision.
+ * VECTOR is used only by the fractals that have a RowKernel (the power 2
+ * without the periodicity check), the others always use SCALAR.
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public enum KernelEngine {
+
+    /**
+     * Iterate one pixel at a time (EscapeTimeKernel).
+     */
+    SCALAR,
+
+    /**
+     * Iterate a row of pixels at once with the Vector API (RowKernel),
+     * or one by one if the module jdk.incubator.vector is not available.
+     */
+    VECTOR
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * LyapunovExponent calculates the Lyapunov exponent of the orbit of c
+ * under z = z^power + c, that is the mean of ln|f'(z)| = ln|power*z^(power-1)|
+ * along the orbit: negative if the orbit is attracted by a cycle (the point
+ * is in the set), positive if it is chaotic or it escapes.
+ *
+ * |power*z^(power-1)|^2 = |power|^2 * |z|^(2*(Re(power)-1)) * e^(-2*Im(power)*arg(z)),
+ * so only the product of the |z|^2 is needed: it's accumulated by
+ * multiplications and its logarithm is taken once every BATCH iterations.
+ * The product and every |z|^2 multiplied are kept in
+ * [1 / PRODUCT_LIMIT, PRODUCT_LIMIT], so the product can't overflow or
+ * underflow: a |z|^2 out of this range is added in logarithm directly.
+ * arg(z) is needed only for the complex powers.
+ *
+ * The iteration stops before maxIterations when the exponent is decided:
+ * - the orbit escaped (only for the powers with real part greater than 1);
+ * - the orbit hit zero (the derivative is 0 or infinite);
+ * - the orbit overflowed (only for the other powers);
+ * - the running exponent changed less than CONVERGENCE_TOLERANCE in the last batch.
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+public final class LyapunovExponent {
+
+    /**
+     * The number of iterations between two logarithms.
+     */
+    static final int BATCH = 16;
+
+    /**
+     * The minimum number of iterations before the convergence is checked.
+     */
+    static final int MIN_ITERATIONS = 4 * BATCH;
+
+    /**
+     * The maximum change of the exponent in a batch for stop the iteration.
+     */
+    static final double CONVERGENCE_TOLERANCE = 1e-4;
+
+    /**
+     * The bound of the product of the |z|^2 and of its factors, its square
+     * is far from the overflow and the underflow of a double.
+     */
+    static final double PRODUCT_LIMIT = 1e150;
+
+    /**
+     * The square of the escape radius.
+     */
+    static final double BAILOUT_SQUARED = 4;
+
+    /**
+     * The array of every thread where the kernel stores z^power, so calc()
+     * allocates nothing.
+     */
+    private static final ThreadLocal<double[]> SCRATCH = ThreadLocal.withInitial(() -> new double[2]);
+
+    /**
+     * The kernel that calculates z^power.
+     */
+    private final EscapeTimeKernel kernel;
+
+    /**
+     * The number of max iteration.
+     */
+    private final int maxIterations;
+
+    /**
+     * ln(|power|^2).
+     */
+    private final double logPowerSquared;
+
+    /**
+     * The real part of the power minus 1.
+     */
+    private final double exponentRe;
+
+    /**
+     * The imaginary part of the power.
+     */
+    private final double exponentIm;
+
+    /**
+     * If true the orbits can escape (the real part of the power is greater than 1).
+     */
+    private final boolean escape;
+
+    /**
+     * Create a LyapunovExponent for the power and the max iterations of the given data.
+     *
+     * @param dataBox the data of the fractal instance.
+     */
+    public LyapunovExponent(DataBox dataBox) {
+        this.kernel = EscapeTimeKernel.create(dataBox, false);
+        this.maxIterations = dataBox.getMaxIterations();
+        double re = dataBox.getPower().getReal();
+        double im = dataBox.getPower().getImag();
+        this.logPowerSquared = Math.log(re * re + im * im);
+        this.exponentRe = re - 1;
+        this.exponentIm = im;
+        this.escape = re > 1;
+    }
+
+    /**
+     * Return the number of max iteration.
+     *
+     * @return the number of max iteration.
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Calculate the Lyapunov exponent of the orbit of c.
+     *
+     * @param cRe the real part of c.
+     * @param cIm the imaginary part of c.
+     * @return the exponent, Double.NEGATIVE_INFINITY if the orbit hit the zero
+     *         of the derivative, Double.POSITIVE_INFINITY if it hit its pole.
+     */
+    public double calc(double cRe, double cIm) {
+        double[] zp = SCRATCH.get();
+        double x = 0;
+        double y = 0;
+        // Sum of ln(|z|^2) and of arg(z) of the logged iterations, product of the others
+        double logSum = 0;
+        double argSum = 0;
+        double product = 1;
+        int n = 0;
+        double previous = Double.NaN;
+
+        while (n < maxIterations) {
+            // z0 = 0 is not part of the orbit, the derivative is taken from z1 = c
+            kernel.power(x, y, zp);
+            x = zp[0] + cRe;
+            y = zp[1] + cIm;
+            if ((x == 0) && (y == 0)) {
+                return (exponentRe > 0) ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            }
+            double r2 = x * x + y * y;
+            if ((r2 >= 1 / PRODUCT_LIMIT) && (r2 <= PRODUCT_LIMIT)) {
+                product *= r2;
+            }
+            else if (Double.isFinite(x) && Double.isFinite(y)) {
+                // Too big or too small for the product (r2 can be overflowed or underflowed)
+                logSum += 2 * Math.log(Math.hypot(x, y));
+            }
+            else {
+                // The exponent of the iterations before the overflow
+                return exponent(logSum + Math.log(product), argSum, n);
+            }
+            if (exponentIm != 0) {
+                argSum += Math.atan2(y, x);
+            }
+            n++;
+
+            boolean escaped = escape && (r2 >= BAILOUT_SQUARED);
+            boolean batchEnd = (n % BATCH == 0) || (n == maxIterations);
+            if (batchEnd || escaped || (product > PRODUCT_LIMIT) || (product < 1 / PRODUCT_LIMIT)) {
+                logSum += Math.log(product);
+                product = 1;
+            }
+            if (escaped) {
+                return exponent(logSum, argSum, n);
+            }
+            if (batchEnd && (n >= MIN_ITERATIONS)) {
+                double current = exponent(logSum, argSum, n);
+                if (Math.abs(current - previous) < CONVERGENCE_TOLERANCE) {
+                    return current;
+                }
+                previous = current;
+            }
+        }
+
+        return exponent(logSum + Math.log(product), argSum, n);
+    }
+
+    /**
+     * Return the mean of ln|power*z^(power-1)| over n iterations.
+     *
+     * @param logSum the sum of ln(|z|^2).
+     * @param argSum the sum of arg(z).
+     * @param n the number of iterations.
+     * @return the exponent, 0 if n is 0.
+     */
+    private double exponent(double logSum, double argSum, int n) {
+        if (n == 0) {
+            return 0;
+        }
+        return (n * logPowerSquared + exponentRe * logSum - 2 * exponentIm * argSum) / (2 * n);
+    }
+
+}
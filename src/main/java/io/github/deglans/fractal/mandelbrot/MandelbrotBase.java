@@ -17,13 +17,20 @@
 package io.github.deglans.fractal.mandelbrot;
 
 import io.github.deglans.fractal.utility.CartesianPlane;
+import io.github.deglans.fractal.utility.ColorPalette;
 import io.github.deglans.fractal.utility.Complex;
+import io.github.deglans.fractal.utility.DoubleDoubleComplex;
+import io.github.deglans.fractal.utility.TileScheduler;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.IntStream;
 import javafx.concurrent.Task;
-import javafx.scene.image.PixelWriter;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
 import javafx.scene.paint.Color;
 import javafx.util.Callback;
@@ -34,18 +41,25 @@ import javafx.util.Callback;
  * multi-threading.
  * The instances create by this class are "one shot" and can't be reused.
  *
- * @version 0.12
+ * @version 0.34
  * @author Deglans Dalpasso
  */
 public abstract class MandelbrotBase extends Task<Long> implements Callable<Long> {
 
+    /**
+     * The color of the pixels marked in the status buffer until GlitchCorrection
+     * calculates them again, only the previews of the progressive rendering show it.
+     */
+    static final Color MARKED_COLOR = Color.TRANSPARENT;
+
     /**
      * The CartesianPlane for conversion between CanvasPoint and Complex coordinate.
      */
     private final CartesianPlane plane;
 
     /**
-     * The result of the calculus.
+     * The result of the calculus, null if the pixels are only calculated
+     * in the ARGB buffer.
      */
     private final WritableImage image;
 
@@ -54,11 +68,109 @@ public abstract class MandelbrotBase extends Task<Long> implements Callable<Long
      */
     private Callback onFinish = null;
 
+    /**
+     * The Callback function called after every preview pass of the
+     * progressive rendering, with the step of the pass.
+     */
+    private Callback<int[], Void> onPass = null;
+
+    /**
+     * The statistics of the calculus.
+     */
+    protected final RenderStatistics statistics = new RenderStatistics();
+
+    /**
+     * The strategy used to visit the pixels of the image.
+     */
+    private RenderStrategy renderStrategy = RenderStrategy.BRUTE_FORCE;
+
+    /**
+     * The scheduler of the tiles when every pixel is calculated.
+     */
+    private TileScheduler tileScheduler = TileScheduler.DEFAULT;
+
+    /**
+     * The way the pixels are iterated in double precision.
+     */
+    private KernelEngine kernelEngine = KernelEngine.SCALAR;
+
+    /**
+     * The kernel that iterates a row of pixels at once, null if the pixels
+     * are iterated one by one (see createRowRenderer()).
+     */
+    private RowRenderer rowRenderer = null;
+
+    /**
+     * The engine for the deep zoom, null if the double precision is enough
+     * or if the fractal doesn't support it (see createPerturbationRenderer()).
+     */
+    private PerturbationRenderer perturbation = null;
+
+    /**
+     * The function that calculates a point in double-double precision, null
+     * if the fractal doesn't support it (see createDoubleDoubleFunction()).
+     */
+    private Function<DoubleDoubleComplex, Color> doubleDoubleFunction = null;
+
+    /**
+     * If true the pixels are calculated in double-double precision.
+     */
+    private boolean doubleDouble = false;
+
+    /**
+     * What is used to give the color to the pixels.
+     */
+    private ColoringMode coloringMode = ColoringMode.ESCAPE_TIME;
+
+    /**
+     * The estimator of the distance from the boundary, null if the pixels
+     * are colored by escape time (see createDistanceRenderer()).
+     */
+    private DistanceRenderer distanceEstimator = null;
+
+    /**
+     * The distance of every pixel from the boundary of the set in pixels
+     * (DistanceEstimator.INTERIOR inside the set), null if the pixels are
+     * colored by escape time.
+     */
+    private double[] distances = null;
+
+    /**
+     * The colors of the pixels of the image, by rows.
+     */
+    private Color[] pixels = null;
+
+    /**
+     * The status of every pixel calculated with the perturbation, by rows:
+     * GlitchCorrection.GLITCH or GlitchCorrection.INEXACT for the pixels
+     * that must be calculated again, else GlitchCorrection.EXACT.
+     * Null if the perturbation isn't used.
+     */
+    private byte[] status = null;
+
+    /**
+     * The pixels of the image in packed ARGB ints, by rows: filled without
+     * locks (every pixel by one thread) and written in the image at once.
+     */
+    private int[] argb = null;
+
+    /**
+     * The result of a previous calculus of the same fractal whose pixels
+     * can be reused, null if every pixel is calculated.
+     */
+    private RenderedFrame previousFrame = null;
+
+    /**
+     * The result of this calculus, null until it's finished.
+     */
+    private volatile RenderedFrame frame = null;
+
     /**
      * Create a new instance for one fractal calculus.
      *
      * @param plane the CartesianPlane for conversion between CanvasPoint and Complex coordinate.
-     * @param image the result of the calculus.
+     * @param image the result of the calculus, or null to only calculate the pixels
+     *        (see getArgb()) without the JavaFX toolkit: the progress is not updated.
      */
     public MandelbrotBase(CartesianPlane plane, WritableImage image) {
         this.plane = plane;
@@ -77,6 +189,117 @@ public abstract class MandelbrotBase extends Task<Long> implements Callable<Long
         this.onFinish = onFinish;
     }
 
+    /**
+     * Set the Callback function called, from the rendering thread, after every
+     * preview pass of the progressive rendering with the pixels calculated so
+     * far as blocks of the size of the step, in packed ARGB ints by rows.
+     * The array is not modified after the call, so it can be published on
+     * the JavaFX Application Thread; the image is written only once, before
+     * the end of the calculus, and notified as usual (onFinish, onSucceeded).
+     *
+     * @param onPass the function to be call with the preview of the pass.
+     */
+    public void setOnPass(Callback<int[], Void> onPass) {
+        this.onPass = onPass;
+    }
+
+    /**
+     * Set the strategy used to visit the pixels of the image.
+     * The strategies different from BRUTE_FORCE are used only if the fractal
+     * is a connected set (see isConnected()), except PROGRESSIVE that
+     * guesses pixels only for the connected sets.
+     *
+     * @param renderStrategy the strategy used to visit the pixels of the image.
+     */
+    public void setRenderStrategy(RenderStrategy renderStrategy) {
+        this.renderStrategy = renderStrategy;
+    }
+
+    /**
+     * Set the scheduler of the tiles (their size and the number of threads)
+     * used when every pixel is calculated.
+     *
+     * @param tileScheduler the scheduler of the tiles.
+     */
+    public void setTileScheduler(TileScheduler tileScheduler) {
+        this.tileScheduler = tileScheduler;
+    }
+
+    /**
+     * Set the way the pixels are iterated in double precision.
+     * VECTOR is used only if the fractal has a RowKernel (see createRowRenderer()).
+     *
+     * @param kernelEngine the way the pixels are iterated.
+     */
+    public void setKernelEngine(KernelEngine kernelEngine) {
+        this.kernelEngine = kernelEngine;
+    }
+
+    /**
+     * Set what is used to give the color to the pixels.
+     * DISTANCE_ESTIMATION is used only if the fractal has a DistanceEstimator
+     * (see createDistanceRenderer()) and the precision is DOUBLE.
+     *
+     * @param coloringMode what is used to give the color to the pixels.
+     */
+    public void setColoringMode(ColoringMode coloringMode) {
+        this.coloringMode = coloringMode;
+    }
+
+    /**
+     * Return the distance of every pixel from the boundary of the set, in pixels,
+     * by rows: DistanceEstimator.INTERIOR for the pixels inside the set, 0 for
+     * the pixels on the boundary (or that didn't escape in maxIterations).
+     * It's filled by call() only if the pixels are colored by distance estimation.
+     *
+     * @return the distances, or null if the pixels are colored by escape time.
+     */
+    public double[] getDistanceBuffer() {
+        return distances;
+    }
+
+    /**
+     * Set the result of a previous calculus of the same fractal (same class,
+     * data and palette): the old pixels that have exactly the coordinates of
+     * pixels of the new view are copied and only the others are calculated,
+     * as the new strips after a pan (see RenderedFrame). The pixels are
+     * reused only in double precision.
+     * The caller must ensure that the fractal is the same.
+     *
+     * @param previousFrame the previous result, or null to calculate every pixel.
+     */
+    public void setPreviousFrame(RenderedFrame previousFrame) {
+        this.previousFrame = previousFrame;
+    }
+
+    /**
+     * Return the result of this calculus, to be reused by the next one.
+     *
+     * @return the result, or null if the calculus isn't finished or was cancelled.
+     */
+    public RenderedFrame getFrame() {
+        return frame;
+    }
+
+    /**
+     * Return the pixels of the image in packed ARGB ints, by rows, as they
+     * are written in the image.
+     *
+     * @return the pixels, or null if the calculus isn't started.
+     */
+    int[] getArgb() {
+        return argb;
+    }
+
+    /**
+     * Return the statistics of the calculus.
+     *
+     * @return the statistics of the calculus.
+     */
+    public RenderStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Function for calculate the fractal.
      *
@@ -87,37 +310,585 @@ public abstract class MandelbrotBase extends Task<Long> implements Callable<Long
     public Long call() throws Exception {
         long startTime = System.currentTimeMillis();
 
-        // Use a stream for the y loop
-        IntStream yStream = IntStream.range(0, (int)plane.getHeight()).parallel();
+        // Choose the cheapest precision that separates the pixels
+        doubleDoubleFunction = createDoubleDoubleFunction();
+        PrecisionSelector selector = new PrecisionSelector(plane, getMaxIterations(),
+                doubleDoubleFunction != null, isPerturbationSupported());
+        Precision precision = selector.getPrecision();
+        String reason = selector.getReason();
+        if (precision == Precision.PERTURBATION) {
+            perturbation = createPerturbationRenderer();
+            if (perturbation != null) {
+                statistics.setSeriesSkip(perturbation.getEngine().getSkippedIterations());
+            }
+            else {
+                precision = Precision.DOUBLE;
+                reason = "the fractal didn't create the PerturbationEngine";
+            }
+        }
+        doubleDouble = (precision == Precision.DOUBLE_DOUBLE);
+        statistics.setPrecision(precision, reason);
+        if ((precision == Precision.DOUBLE) && (coloringMode == ColoringMode.DISTANCE_ESTIMATION)) {
+            distanceEstimator = createDistanceRenderer();
+            if (distanceEstimator != null) {
+                distances = new double[(int) plane.getWidth() * (int) plane.getHeight()];
+            }
+        }
+        if ((precision == Precision.DOUBLE) && (distanceEstimator == null)
+                && (kernelEngine == KernelEngine.VECTOR)) {
+            rowRenderer = createRowRenderer();
+        }
+        if (distanceEstimator != null) {
+            statistics.setKernel("distance estimator");
+        }
+        else {
+            statistics.setKernel((rowRenderer == null) ? "pixel by pixel" : rowRenderer.toString());
+        }
+
+        int width = (int) plane.getWidth();
+        int height = (int) plane.getHeight();
+        pixels = new Color[width * height];
+        argb = new int[width * height];
+        if (perturbation != null) {
+            status = new byte[width * height];
+        }
+        RenderedFrame rendered = new RenderedFrame(plane, precision, pixels, distances);
+        int[][] reused = (previousFrame == null) ? null
+                : previousFrame.map(plane, precision, distances != null);
+
+        // The symmetry is used when every pixel is calculated
+        SymmetryPlanner symmetry = null;
+        if ((getSymmetry() != Symmetry.NONE) && ((distanceEstimator != null) || ((perturbation == null)
+                && ((renderStrategy == RenderStrategy.BRUTE_FORCE) || !isConnected())))) {
+            symmetry = new SymmetryPlanner(plane, getSymmetry());
+        }
+
+        if ((reused != null) && (symmetry != null)
+                && (symmetry.getMirroredPixels() > RenderedFrame.countReused(reused))) {
+            // The symmetry saves more pixels
+            reused = null;
+        }
+
+        if (reused != null) {
+            // Only the pixels that weren't in the previous view
+            renderReused(reused[0], reused[1]);
+        }
+        else if (renderStrategy == RenderStrategy.PROGRESSIVE) {
+            renderProgressive();
+        }
+        else if ((symmetry != null) && (symmetry.getMirroredPixels() > 0)) {
+            renderSymmetric(symmetry);
+        }
+        else if (distanceEstimator != null) {
+            // The distance changes in every pixel, no region can be guessed
+            renderBruteForce();
+        }
+        else if (perturbation != null) {
+            // The glitches are corrected before the image is written
+            renderBuffered();
+        }
+        else if ((renderStrategy == RenderStrategy.BRUTE_FORCE) || !isConnected()) {
+            renderBruteForce();
+        }
+        else {
+            renderBuffered();
+        }
+
+        if (!isCancelled()) {
+            frame = rendered;
+        }
+
+        // if set use the onFinish callback function
+        if (onFinish != null) {
+            onFinish.call(null);
+        }
+
+        return System.currentTimeMillis() - startTime;
+    }
+
+    /**
+     * Calculate every pixel, the tiles are calculated in parallel
+     * (see TileScheduler) and stored in the ARGB buffer as soon as they are
+     * ready; the image is written when all the tiles are done.
+     */
+    private void renderBruteForce() {
+        int width = (int) plane.getWidth();
+        int height = (int) plane.getHeight();
+        int tiles = tileScheduler.getTileCount(width, height);
 
         // Counter for the progress bar
         final AtomicInteger progress = new AtomicInteger(0);
-        PixelWriter pixelWriter = image.getPixelWriter();
 
-        yStream.forEach((int y) -> {
-            Color c;
-            for (int x = 0; x < plane.getWidth(); x++) {
-                if (isCancelled()) {
-                    return;
+        statistics.setTileCosts(tileScheduler.render(width, height, (int x0, int y0, int x1, int y1) -> {
+            // The tiles are disjoint: no lock is needed on the buffers
+            int tileWidth = x1 - x0;
+            for (int y = y0; y < y1; y++) {
+                calcRow(y, x0, x1, pixels, y * width + x0);
+                toArgb(pixels, y * width + x0, argb, y * width + x0, tileWidth);
+            }
+            reportProgress(progress.incrementAndGet(), tiles);
+        }, this::isCancelled));
+        if (isCancelled()) {
+            return;
+        }
+
+        publishImage(width, height);
+    }
+
+    /**
+     * Render the image in a buffer, with a strategy that guess the pixels
+     * inside uniform regions (see MarianiSilverTask) if
+     * the fractal is connected, correct the glitches of the deep zoom
+     * (see GlitchCorrection) then copy the pixels in the image.
+     */
+    private void renderBuffered() {
+        int width = (int) plane.getWidth();
+        int height = (int) plane.getHeight();
+
+        if ((renderStrategy == RenderStrategy.BRUTE_FORCE) || !isConnected()) {
+            int tiles = tileScheduler.getTileCount(width, height);
+            final AtomicInteger progress = new AtomicInteger(0);
+            statistics.setTileCosts(tileScheduler.render(width, height, (int x0, int y0, int x1, int y1) -> {
+                for (int y = y0; y < y1; y++) {
+                    calcRow(y, x0, x1, pixels, y * width + x0);
+                }
+                reportProgress(progress.incrementAndGet(), tiles);
+            }, this::isCancelled));
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(new MarianiSilverTask(this, pixels, width, height));
+        }
+        if (isCancelled()) {
+            return;
+        }
+
+        correctGlitches(pixels, width, height);
+        if (isCancelled()) {
+            return;
+        }
+
+        writeImage(pixels, width, height);
+    }
+
+    /**
+     * Render the image from coarse to fine (see ProgressiveRendering), after
+     * every pass onPass is called with a preview made of blocks.
+     * The pixels are guessed only if the fractal is connected, and not when
+     * colored by distance or with the perturbation (the glitches are
+     * corrected at the end).
+     */
+    private void renderProgressive() {
+        int width = (int) plane.getWidth();
+        int height = (int) plane.getHeight();
+        boolean guess = isConnected() && (distanceEstimator == null) && (perturbation == null);
+        int passes = Integer.numberOfTrailingZeros(ProgressiveRendering.FIRST_STEP) + 1;
+
+        ProgressiveRendering progressive = new ProgressiveRendering(this, pixels, width, height, guess);
+        statistics.addFilledPixels(progressive.render(tileScheduler, (int step) -> {
+            reportProgress(passes - Integer.numberOfTrailingZeros(step), passes);
+            if (onPass != null) {
+                onPass.call(preview(pixels, width, height, step));
+            }
+        }));
+        if (isCancelled()) {
+            return;
+        }
+
+        correctGlitches(pixels, width, height);
+        if (isCancelled()) {
+            return;
+        }
+
+        writeImage(pixels, width, height);
+    }
+
+    /**
+     * Copy the pixels of the previous frame that are pixels of this view
+     * (see RenderedFrame) and calculate only the others, by tiles: after a
+     * pan the new strips, after a zoom-out the pixels between the old ones.
+     *
+     * @param columns the column of the previous frame of every column, or -1.
+     * @param rows the row of the previous frame of every row, or -1.
+     */
+    private void renderReused(int[] columns, int[] rows) {
+        int width = (int) plane.getWidth();
+        int height = (int) plane.getHeight();
+        statistics.addReusedPixels(previousFrame.copy(pixels, distances, columns, rows));
+
+        int tiles = tileScheduler.getTileCount(width, height);
+        final AtomicInteger progress = new AtomicInteger(0);
+        statistics.setTileCosts(tileScheduler.render(width, height, (int x0, int y0, int x1, int y1) -> {
+            for (int y = y0; y < y1; y++) {
+                if (rows[y] < 0) {
+                    calcRow(y, x0, x1, pixels, y * width + x0);
+                    continue;
                 }
-                // Calculate the point and draw it
-                c = calcPoint(plane.toComplex(x, y));
-                synchronized (pixelWriter) {
-                    pixelWriter.setColor(x, y, c);
+                // The runs of columns not in the previous frame
+                int x = x0;
+                while (x < x1) {
+                    if (columns[x] >= 0) {
+                        x++;
+                        continue;
+                    }
+                    int start = x;
+                    while ((x < x1) && (columns[x] < 0)) {
+                        x++;
+                    }
+                    calcRow(y, start, x, pixels, y * width + start);
                 }
             }
-            if (isCancelled()) {
+            reportProgress(progress.incrementAndGet(), tiles);
+        }, this::isCancelled));
+        if (isCancelled()) {
+            return;
+        }
+
+        correctGlitches(pixels, width, height);
+        if (isCancelled()) {
+            return;
+        }
+
+        writeImage(pixels, width, height);
+    }
+
+    /**
+     * Calculate again the glitches of the deep zoom (see GlitchCorrection),
+     * if the pixels were calculated with the perturbation.
+     *
+     * @param pixels the colors of the pixels, by rows.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     */
+    private void correctGlitches(Color[] pixels, int width, int height) {
+        if (perturbation != null) {
+            boolean doubleDoubleSeparates = PrecisionSelector.separates(plane, getMaxIterations(),
+                    PrecisionSelector.DOUBLE_DOUBLE_EPSILON);
+            GlitchCorrection correction = new GlitchCorrection(this, perturbation.getEngine(),
+                    perturbation::toColor, doubleDoubleSeparates ? doubleDoubleFunction : null,
+                    plane, pixels, status, width, height);
+            statistics.addGlitchedPixels(correction.correct());
+            statistics.addSecondaryReferences(correction.getReferences());
+            statistics.addUnresolvedGlitches(correction.getUnresolved());
+            statistics.addInexactPixels(correction.getInexact());
+        }
+    }
+
+    /**
+     * Calculate only the pixels that aren't the mirror image of other pixels
+     * of the image (see SymmetryPlanner), the rows are calculated in parallel,
+     * then copy the mirrored pixels (and their distances) and write the image.
+     *
+     * @param planner the planner of the symmetry of the image.
+     */
+    private void renderSymmetric(SymmetryPlanner planner) {
+        int width = (int) plane.getWidth();
+        int height = (int) plane.getHeight();
+
+        int tiles = tileScheduler.getTileCount(width, height);
+        final AtomicInteger progress = new AtomicInteger(0);
+        statistics.setTileCosts(tileScheduler.render(width, height, (int x0, int y0, int x1, int y1) -> {
+            for (int y = y0; y < y1; y++) {
+                if (planner.getSourceRow(y) < 0) {
+                    calcRow(y, x0, x1, pixels, y * width + x0);
+                    continue;
+                }
+                // Only the pixels whose mirror is outside the image
+                for (int x = x0; x < x1; x++) {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    if (planner.getSourceColumn(x) < 0) {
+                        pixels[y * width + x] = calcPixel(x, y);
+                    }
+                }
+            }
+            reportProgress(progress.incrementAndGet(), tiles);
+        }, this::isCancelled));
+        if (isCancelled()) {
+            return;
+        }
+
+        IntStream.range(0, height).parallel().forEach((int y) -> {
+            int source = planner.getSourceRow(y);
+            if (source < 0) {
                 return;
             }
-            updateProgress(progress.incrementAndGet(), plane.getHeight());
+            for (int x = 0; x < width; x++) {
+                int sourceX = planner.getSourceColumn(x);
+                if (sourceX >= 0) {
+                    pixels[y * width + x] = pixels[source * width + sourceX];
+                    if (distances != null) {
+                        distances[y * width + x] = distances[source * width + sourceX];
+                    }
+                }
+            }
         });
+        statistics.addMirroredPixels(planner.getMirroredPixels());
 
-        // if set use the onFinish callback function
-        if (onFinish != null) {
-            onFinish.call(null);
+        writeImage(pixels, width, height);
+    }
+
+    /**
+     * Copy the buffer of the pixels in the image.
+     *
+     * @param pixels the colors of the pixels, by rows.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     */
+    private void writeImage(Color[] pixels, int width, int height) {
+        // The rows are converted in parallel, then written with one transfer
+        IntStream.range(0, height).parallel().forEach((int y) ->
+                toArgb(pixels, y * width, argb, y * width, width));
+        publishImage(width, height);
+    }
+
+    /**
+     * Write the ARGB buffer in the image with one transfer, when no thread
+     * is writing the buffer anymore: the image is read (drawn, saved) only
+     * after the end of the calculus.
+     *
+     * @param width the width of the image.
+     * @param height the height of the image.
+     */
+    private void publishImage(int width, int height) {
+        if (image != null) {
+            image.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argb, 0, width);
         }
+        statistics.addPixels((long) width * height);
+        reportProgress(height, height);
+    }
 
-        return System.currentTimeMillis() - startTime;
+    /**
+     * Update the progress of the Task, only if there is an image: the
+     * progress is published on the JavaFX Application Thread.
+     *
+     * @param workDone the work done.
+     * @param max the total work.
+     */
+    private void reportProgress(long workDone, long max) {
+        if (image != null) {
+            updateProgress(workDone, max);
+        }
+    }
+
+    /**
+     * Make a preview of the image: every pixel takes the color of the
+     * calculated pixel at the top left of its block of step x step pixels.
+     *
+     * @param pixels the colors of the pixels, by rows.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @param step the side of the blocks.
+     * @return the preview in packed ARGB ints, by rows.
+     */
+    private static int[] preview(Color[] pixels, int width, int height, int step) {
+        int[] argb = new int[width * height];
+        IntStream.range(0, (height + step - 1) / step).parallel().forEach((int row) -> {
+            int y = row * step;
+            int offset = y * width;
+            for (int x = 0; x < width; x += step) {
+                int color = ColorPalette.toArgb(pixels[offset + x]);
+                int end = Math.min(x + step, width);
+                for (int i = x; i < end; i++) {
+                    argb[offset + i] = color;
+                }
+            }
+            int end = Math.min(y + step, height);
+            for (int j = y + 1; j < end; j++) {
+                System.arraycopy(argb, offset, argb, j * width, width);
+            }
+        });
+        return argb;
+    }
+
+    /**
+     * Convert a run of colors in packed ARGB ints (see ColorPalette.toArgb()).
+     *
+     * @param colors the colors.
+     * @param offset the index in colors of the first color.
+     * @param argb the array where the ints are stored.
+     * @param argbOffset the index in argb of the first int.
+     * @param length the number of colors.
+     */
+    private static void toArgb(Color[] colors, int offset, int[] argb, int argbOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            argb[argbOffset + i] = ColorPalette.toArgb(colors[offset + i]);
+        }
+    }
+
+    /**
+     * Calculate the colors of the pixels x0 <= x < x1 of the row y of the
+     * image, with the RowKernel if there is one, else pixel by pixel.
+     *
+     * @param y the row.
+     * @param x0 the first column.
+     * @param x1 the column after the last one.
+     * @param colors the array where the colors are stored.
+     * @param offset the index in colors of the pixel (x0, y).
+     */
+    private void calcRow(int y, int x0, int x1, Color[] colors, int offset) {
+        if (rowRenderer != null) {
+            double[] re = new double[x1 - x0];
+            for (int x = x0; x < x1; x++) {
+                re[x - x0] = plane.toReal(x);
+            }
+            Color[] row = new Color[re.length];
+            rowRenderer.calcRow(re, plane.toImag(y), row);
+            System.arraycopy(row, 0, colors, offset, row.length);
+            return;
+        }
+        for (int x = x0; x < x1; x++) {
+            if (isCancelled()) {
+                return;
+            }
+            colors[offset + x - x0] = calcPixel(x, y);
+        }
+    }
+
+    /**
+     * Calculate the color of the pixel (x, y) of the image.
+     *
+     * @param x the column of the pixel.
+     * @param y the row of the pixel.
+     * @return the color of the pixel.
+     */
+    Color calcPixel(int x, int y) {
+        if (distanceEstimator != null) {
+            double distance = distanceEstimator.estimate(plane.toReal(x), plane.toImag(y));
+            if (distance == DistanceEstimator.INTERIOR) {
+                statistics.incrementInteriorPixels();
+            }
+            else {
+                distance *= plane.getScale();
+            }
+            distances[y * (int) plane.getWidth() + x] = distance;
+            return distanceEstimator.toColor(distance);
+        }
+        if (perturbation != null) {
+            int count = perturbation.getEngine().iterate(plane.toDeltaReal(x), plane.toDeltaImag(y));
+            if (count == PerturbationEngine.GLITCH) {
+                status[y * (int) plane.getWidth() + x] = GlitchCorrection.GLITCH;
+                return MARKED_COLOR;
+            }
+            if (count == PerturbationEngine.INEXACT) {
+                status[y * (int) plane.getWidth() + x] = GlitchCorrection.INEXACT;
+                return MARKED_COLOR;
+            }
+            return perturbation.toColor(count);
+        }
+        if (doubleDouble) {
+            return doubleDoubleFunction.apply(plane.toDoubleDoubleComplex(x, y));
+        }
+        return calcPoint(plane.toReal(x), plane.toImag(y));
+    }
+
+    /**
+     * Check if the pixel p is marked in the status buffer, as a glitch or as
+     * inexact: its color is only a placeholder.
+     *
+     * @param p the index of the pixel, by rows.
+     * @return true if the pixel must be calculated again.
+     */
+    boolean isMarked(int p) {
+        return (status != null) && (status[p] != GlitchCorrection.EXACT);
+    }
+
+    /**
+     * Return the maximum number of iterations of a pixel, used to choose the
+     * precision (the rounding errors grow with the iterations).
+     * By default return 0 (unknown).
+     *
+     * @return the maximum number of iterations.
+     */
+    protected int getMaxIterations() {
+        return 0;
+    }
+
+    /**
+     * Return true if this fractal can be calculated with a PerturbationEngine
+     * (see createPerturbationRenderer()).
+     * By default return false.
+     *
+     * @return true if the perturbation is supported.
+     */
+    protected boolean isPerturbationSupported() {
+        return false;
+    }
+
+    /**
+     * Create the PerturbationEngine used for the deep zoom with the function
+     * that colors its iterations, it's called once before the rendering only
+     * if the perturbation is chosen as precision.
+     * By default return null (the fractal is calculated in double precision).
+     *
+     * @return the PerturbationRenderer, or null if it's not supported.
+     */
+    protected PerturbationRenderer createPerturbationRenderer() {
+        return null;
+    }
+
+    /**
+     * Create the RowKernel used to iterate a row of pixels at once with the
+     * function that calculates the row, it's called once before the
+     * rendering if the KernelEngine is VECTOR and the precision is DOUBLE.
+     * By default return null (the pixels are iterated one by one).
+     *
+     * @return the RowRenderer, or null if it's not supported.
+     */
+    protected RowRenderer createRowRenderer() {
+        return null;
+    }
+
+    /**
+     * Create the DistanceEstimator used when the pixels are colored by
+     * distance estimation with the function that colors the distances, it's
+     * called once before the rendering only if the ColoringMode is
+     * DISTANCE_ESTIMATION and the precision is DOUBLE.
+     * By default return null (the pixels are colored by escape time).
+     *
+     * @return the DistanceRenderer, or null if it's not supported.
+     */
+    protected DistanceRenderer createDistanceRenderer() {
+        return null;
+    }
+
+    /**
+     * Create the function that calculates the color of a point in
+     * double-double precision, when the double precision is not enough.
+     * It's called once before the rendering, the precision is chosen only
+     * among the supported ones.
+     * By default return null (the double-double precision is not supported).
+     *
+     * @return the function, or null if the double-double precision is not supported.
+     */
+    protected Function<DoubleDoubleComplex, Color> createDoubleDoubleFunction() {
+        return null;
+    }
+
+    /**
+     * Return the symmetry of this fractal, used to copy the mirrored pixels
+     * instead of calculate them when every pixel is calculated (see SymmetryPlanner).
+     * By default return NONE.
+     *
+     * @return the symmetry of this fractal.
+     */
+    protected Symmetry getSymmetry() {
+        return Symmetry.NONE;
+    }
+
+    /**
+     * Return true if this fractal is a connected set, in this case the
+     * render strategies that guess the pixels inside a uniform border
+     * (as Mariani-Silver) are used. Their result is near to the one of the
+     * brute force but not the same: the pixels are only samples of the set,
+     * so a detail thinner than a pixel can be hidden by a uniform border
+     * (see RenderStrategy).
+     * By default return false.
+     *
+     * @return true if this fractal is a connected set.
+     */
+    protected boolean isConnected() {
+        return false;
     }
 
     /**
@@ -128,4 +899,214 @@ public abstract class MandelbrotBase extends Task<Long> implements Callable<Long
      */
     protected abstract Color calcPoint(Complex c);
 
+    /**
+     * Run an EscapeTimeKernel on one point, with the periodicity check if it is
+     * enabled by the DataBox (the periodicity hits are added to the statistics).
+     *
+     * @param kernel the kernel to use.
+     * @param zRe the real part of z0.
+     * @param zIm the imaginary part of z0.
+     * @param cRe the real part of c.
+     * @param cIm the imaginary part of c.
+     * @return the number of iterations done.
+     */
+    protected int iterate(EscapeTimeKernel kernel, double zRe, double zIm, double cRe, double cIm) {
+        if (!kernel.hasPeriodicityCheck()) {
+            return kernel.iterate(zRe, zIm, cRe, cIm);
+        }
+        CycleDetector detector = kernel.newCycleDetector();
+        int count = kernel.iterate(zRe, zIm, cRe, cIm, detector);
+        if (detector.isCycleFound()) {
+            statistics.incrementPeriodicPixels();
+        }
+        return count;
+    }
+
+    /**
+     * The function used by call() to calculate a point of the fractal.
+     * By default wrap the point in a Complex and use calcPoint(Complex),
+     * the fractals that use an EscapeTimeKernel override it to iterate
+     * directly on the primitive coordinates.
+     *
+     * @param re the real part of the point to be calculate.
+     * @param im the imaginary part of the point to be calculate.
+     * @return the color of this point.
+     */
+    protected Color calcPoint(double re, double im) {
+        return calcPoint(new Complex(re, im));
+    }
+
+    /**
+     * A PerturbationEngine together with the function of the fractal that
+     * gives the color of a point from the iterations done by the engine.
+     */
+    protected static final class PerturbationRenderer {
+
+        /**
+         * The engine for the deep zoom.
+         */
+        private final PerturbationEngine engine;
+
+        /**
+         * The function that gives the color from the iterations.
+         */
+        private final IntFunction<Color> coloring;
+
+        /**
+         * Create a PerturbationRenderer.
+         *
+         * @param engine the engine for the deep zoom.
+         * @param coloring the function that gives the color from the iterations.
+         */
+        public PerturbationRenderer(PerturbationEngine engine, IntFunction<Color> coloring) {
+            this.engine = engine;
+            this.coloring = coloring;
+        }
+
+        /**
+         * Return the engine for the deep zoom.
+         *
+         * @return the engine.
+         */
+        public PerturbationEngine getEngine() {
+            return engine;
+        }
+
+        /**
+         * Return the color of a point from the iterations done by the engine.
+         *
+         * @param iterations the number of iterations done.
+         * @return the color of the point.
+         */
+        public Color toColor(int iterations) {
+            return coloring.apply(iterations);
+        }
+
+    }
+
+    /**
+     * A DistanceEstimator together with the function of the fractal that
+     * gives the color of a point from its distance.
+     */
+    protected static final class DistanceRenderer {
+
+        /**
+         * The estimator of the distance from the boundary.
+         */
+        private final DistanceEstimator estimator;
+
+        /**
+         * The function that gives the color from the distance.
+         */
+        private final DoubleFunction<Color> coloring;
+
+        /**
+         * Create a DistanceRenderer.
+         *
+         * @param estimator the estimator of the distance from the boundary.
+         * @param coloring the function that gives the color from the distance in pixels
+         *        (DistanceEstimator.INTERIOR inside the set).
+         */
+        public DistanceRenderer(DistanceEstimator estimator, DoubleFunction<Color> coloring) {
+            this.estimator = estimator;
+            this.coloring = coloring;
+        }
+
+        /**
+         * Estimate the distance of a point from the boundary (see DistanceEstimator.estimate()).
+         *
+         * @param re the real part of the point.
+         * @param im the imaginary part of the point.
+         * @return the distance, DistanceEstimator.INTERIOR inside the set.
+         */
+        public double estimate(double re, double im) {
+            return estimator.estimate(re, im);
+        }
+
+        /**
+         * Return the color of a point from its distance from the boundary.
+         *
+         * @param distance the distance in pixels, DistanceEstimator.INTERIOR inside the set.
+         * @return the color of the point.
+         */
+        public Color toColor(double distance) {
+            return coloring.apply(distance);
+        }
+
+    }
+
+    /**
+     * A RowKernel together with the function of the fractal that uses it to
+     * calculate the colors of a row.
+     */
+    protected static final class RowRenderer {
+
+        /**
+         * The kernel that iterates a row of pixels at once.
+         */
+        private final RowKernel kernel;
+
+        /**
+         * The function that calculates the colors of a row with the kernel.
+         */
+        private final RowFunction function;
+
+        /**
+         * Create a RowRenderer.
+         *
+         * @param kernel the kernel that iterates a row of pixels at once.
+         * @param function the function that calculates the colors of a row with the kernel.
+         */
+        public RowRenderer(RowKernel kernel, RowFunction function) {
+            this.kernel = kernel;
+            this.function = function;
+        }
+
+        /**
+         * Create a RowRenderer if there is a kernel.
+         *
+         * @param kernel the kernel that iterates a row of pixels at once, or null.
+         * @param function the function that calculates the colors of a row with the kernel.
+         * @return the RowRenderer, or null if the kernel is null.
+         */
+        public static RowRenderer create(RowKernel kernel, RowFunction function) {
+            return (kernel == null) ? null : new RowRenderer(kernel, function);
+        }
+
+        /**
+         * Calculate the colors of a row.
+         *
+         * @param re the real parts of the points of the row.
+         * @param im the imaginary part of the points of the row.
+         * @param colors the array where the colors of the points are stored.
+         */
+        public void calcRow(double[] re, double im, Color[] colors) {
+            function.calcRow(kernel, re, im, colors);
+        }
+
+        @Override
+        public String toString() {
+            return kernel.toString();
+        }
+
+    }
+
+    /**
+     * The function of a fractal that calculates the colors of a row with a RowKernel.
+     */
+    @FunctionalInterface
+    protected interface RowFunction {
+
+        /**
+         * Calculate the colors of a row with the RowKernel.
+         *
+         * @param kernel the RowKernel.
+         * @param re the real parts of the points of the row.
+         * @param im the imaginary part of the points of the row.
+         * @param colors the array where the colors of the points are stored.
+         */
+        void calcRow(RowKernel kernel, double[] re, double im, Color[] colors);
+
+    }
+
 }
@@ -22,12 +22,15 @@ import io.github.deglans.fractal.utility.ColorPalette;
 import javafx.scene.paint.Color;
 
 /**
- * MandelbrotLyapunov is a more advanced way to calculate the Mandelbrot fractals.
- * This class did not work!
+ * MandelbrotLyapunov colors the Mandelbrot fractals with the Lyapunov exponent
+ * of the orbit of every point (see LyapunovExponent): the points with
+ * a negative exponent are in the set and they fade to the set color as the
+ * orbit is more stable, the others take the palette color of e^-exponent,
+ * so the boundary (exponent near 0) has the last color of the palette.
  *
  * http://math.stackexchange.com/questions/1257555/how-to-compute-a-negative-multibrot-set
  *
- * @version 0.2
+ * @version 0.3
  * @author Deglans Dalpasso
  */
 public class MandelbrotLyapunov extends MandelbrotBase {
@@ -42,6 +45,11 @@ public class MandelbrotLyapunov extends MandelbrotBase {
      */
     protected final ColorPalette colorPalette;
 
+    /**
+     * The calculator of the Lyapunov exponent.
+     */
+    protected final LyapunovExponent lyapunov;
+
     /**
      * Create a MandelbrotLyapunov instance with the given data
      * and the default colors palette or HUE palette.
@@ -53,6 +61,7 @@ public class MandelbrotLyapunov extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = new ColorPalette(this.dataBox.getMaxIterations(), hue);
+        this.lyapunov = new LyapunovExponent(dataBox);
     }
 
     /**
@@ -65,30 +74,53 @@ public class MandelbrotLyapunov extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = colorPalette;
+        this.lyapunov = new LyapunovExponent(dataBox);
     }
 
+    /**
+     * Calculate the color of c from the Lyapunov exponent of its orbit.
+     *
+     * @param c the point to be calculated.
+     * @return the color of c.
+     */
     @Override
     protected Color calcPoint(Complex c) {
-        // http://math.stackexchange.com/questions/1257555/how-to-compute-a-negative-multibrot-set
-        Complex z = new Complex(0, 0);
-        Complex derivative;
-        double lyapunov = 0;
-
-        for (int count = 0; count < dataBox.getMaxIterations(); count++) {
-            z = z.pow(dataBox.getPower()).plus(c);
-            derivative = new Complex(z);
-            lyapunov += Math.log(derivative.mod());
-        }
+        return calcPoint(c.getReal(), c.getImag());
+    }
 
-        lyapunov /= dataBox.getMaxIterations();
+    /**
+     * Calculate the color of (re, im) from the Lyapunov exponent of its orbit.
+     *
+     * @param re the real part of the point to be calculated.
+     * @param im the imaginary part of the point to be calculated.
+     * @return the color of (re, im).
+     */
+    @Override
+    protected Color calcPoint(double re, double im) {
+        return toColor(lyapunov.calc(re, im));
+    }
 
-        if (lyapunov <= 0) {
-            // If it is equal to or less than zero, then it is part of the set.
-            return Color.BLACK;
-        }
-        else {
-            return Color.WHITE;
+    /**
+     * Return the color of a Lyapunov exponent, continuous across zero.
+     *
+     * @param exponent the Lyapunov exponent.
+     * @return the color of the exponent.
+     */
+    protected Color toColor(double exponent) {
+        if (exponent > 0) {
+            return colorPalette.getContinuousColor(Math.exp(-exponent));
         }
+        return colorPalette.getColorSet().interpolate(colorPalette.getContinuousColor(1), Math.exp(exponent));
+    }
+
+    /**
+     * Return the maximum number of iterations of the DataBox.
+     *
+     * @return the maximum number of iterations.
+     */
+    @Override
+    protected int getMaxIterations() {
+        return dataBox.getMaxIterations();
     }
 
 }
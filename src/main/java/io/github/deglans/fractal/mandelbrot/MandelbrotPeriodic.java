@@ -18,22 +18,31 @@ package io.github.deglans.fractal.mandelbrot;
 
 import io.github.deglans.fractal.utility.Complex;
 import io.github.deglans.fractal.utility.ColorPalette;
+import io.github.deglans.fractal.utility.DoubleDoubleComplex;
 
+import java.util.Arrays;
+import java.util.function.Function;
 import javafx.scene.paint.Color;
 
 /**
  * MandelbrotPeriodic is an advanced way to calculate the Mandelbrot fractals.
  * MandelbrotPeriodic use the escape-time algorithm for the power that have
- * a real part positive or equal zero and detect periodic behavior for the negative.
+ * a real part positive or equal zero and detect periodic behavior for the negative
+ * (the color is given by the number of iterations before the cycle is found).
  * Still use a simple colors table.
  *
  * http://math.stackexchange.com/questions/1257555/how-to-compute-a-negative-multibrot-set
  *
- * @version 0.12
+ * @version 0.19
  * @author Deglans Dalpasso
  */
 public class MandelbrotPeriodic extends MandelbrotBase {
 
+    /**
+     * Relative tolerance used to detect the periodic behavior.
+     */
+    public static final double PERIODIC_TOLERANCE = 0.01;
+
     /**
      * The data of this fractal instance.
      */
@@ -44,6 +53,29 @@ public class MandelbrotPeriodic extends MandelbrotBase {
      */
     protected final ColorPalette colorPalette;
 
+    /**
+     * The kernel of the escape-time algorithm.
+     */
+    protected final EscapeTimeKernel kernel;
+
+    /**
+     * The kernel of the escape-time algorithm in double-double precision,
+     * null if the power is not supported.
+     */
+    protected final DoubleDoubleKernel doubleDoubleKernel;
+
+    /**
+     * If true, check the main cardioid and the period-2 bulb before iterate
+     * (only for the power 2).
+     */
+    protected final boolean cardioidCheck;
+
+    /**
+     * If true, iterate until the orbit is periodic
+     * (the power has a negative real part).
+     */
+    protected final boolean cycleDetection;
+
     /**
      * Create a MandelbrotPeriodic instance with the given data
      * and the default colors palette or HUE palette.
@@ -55,6 +87,10 @@ public class MandelbrotPeriodic extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = new ColorPalette(this.dataBox.getMaxIterations(), hue);
+        this.kernel = EscapeTimeKernel.create(dataBox, false);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, false);
+        this.cardioidCheck = (dataBox.getPower().getReal() == 2) && (dataBox.getPower().getImag() == 0);
+        this.cycleDetection = dataBox.getPower().getReal() < 0;
     }
 
     /**
@@ -67,158 +103,137 @@ public class MandelbrotPeriodic extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = colorPalette;
+        this.kernel = EscapeTimeKernel.create(dataBox, false);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, false);
+        this.cardioidCheck = (dataBox.getPower().getReal() == 2) && (dataBox.getPower().getImag() == 0);
+        this.cycleDetection = dataBox.getPower().getReal() < 0;
     }
 
     /**
-     * If the power has a real part positive or equal zero use the escape-time algorithm
-     * else check the periodic behavior algorithm.
+     * Calculate the color of c, see calcPoint(double, double).
      *
      * @param c the point to be calculated.
      * @return the color of c.
      */
     @Override
     protected Color calcPoint(Complex c) {
-        int count = 0;
-        Complex z = new Complex(0, 0);
-
-        if (dataBox.getPower().getReal() < 0) {
-            PeriodicBehavior matcher = new PeriodicBehavior(
-                    dataBox.getMaxIterations() > 1000 ? 100 : dataBox.getMaxIterations()/10);
+        return calcPoint(c.getReal(), c.getImag());
+    }
 
-            while ((count < dataBox.getMaxIterations()) && (!matcher.checkNumber(z))) {
-                z = z.pow(dataBox.getPower()).plus(c);
-                count++;
-            }
+    /**
+     * If the power has a real part positive or equal zero use the escape-time kernel
+     * else iterate until the orbit is periodic (see CycleDetector).
+     * For the power 2 the points inside the main cardioid or the period-2 bulb
+     * are in the set without iterate.
+     *
+     * @param re the real part of the point to be calculated.
+     * @param im the imaginary part of the point to be calculated.
+     * @return the color of (re, im).
+     */
+    @Override
+    protected Color calcPoint(double re, double im) {
+        if (cycleDetection) {
+            return colorPalette.getColor(kernel.iterateUntilCycle(0, 0, re, im,
+                    new CycleDetector(PERIODIC_TOLERANCE)));
         }
-        else {
-            while ((count < dataBox.getMaxIterations()) && (z.mod() < 2)) {
-                z = z.pow(dataBox.getPower()).plus(c);
-                count++;
-            }
+        if (cardioidCheck && EscapeTimeKernel.isInMainCardioidOrBulb(re, im)) {
+            statistics.incrementCardioidPixels();
+            return colorPalette.getColor(kernel.getMaxIterations());
         }
-
-        return colorPalette.getColor(count);
+        return colorPalette.getColor(iterate(kernel, 0, 0, re, im));
     }
 
     /**
-     * PeriodicBehavior is an helper class for check the periodic behavior.
-     * Need to be improved.
+     * The Mandelbrot set of an integer power greater than or equal to 2 is connected.
      *
-     * @version 0.10
-     * @author Deglans Dalpasso
-     */
-    protected class PeriodicBehavior {
-
-        /**
-         * Default buffer length.
-         */
-        static final int DEFAULT_BUFFER_LENGTH = 10;
-
-        /**
-         * Default delta between values.
-         */
-        static final double DELTA = 0.01;
-
-        /**
-         * The buffer.
-         */
-        private Complex[] buffer;
-
-        /**
-         * The pattern.
-         */
-        private Complex[] pattern;
-
-        /**
-         * The index in the buffer.
-         */
-        private int index;
-
-        /**
-         * Create the PeriodicBehavior with the buffer of the default length.
-         */
-        PeriodicBehavior() {
-            this(DEFAULT_BUFFER_LENGTH);
-        }
+     * @return true if the power is an integer greater than or equal to 2.
+     */
+    @Override
+    protected boolean isConnected() {
+        return dataBox.getPower().isSmallInteger() && (dataBox.getPower().getReal() >= 2);
+    }
 
-        /**
-         * Create the PeriodicBehavior with the given length.
-         *
-         * @param len the length of the buffer.
-         */
-        PeriodicBehavior(int len) {
-            buffer = new Complex[len];
-            index = 0;
+    /**
+     * The power 2 without the periodicity check can be iterated a row at once.
+     *
+     * @return the RowRenderer, or null if the power is not 2.
+     */
+    @Override
+    protected RowRenderer createRowRenderer() {
+        if (kernel.hasPeriodicityCheck()) {
+            return null;
         }
+        return RowRenderer.create(RowKernel.create(dataBox, false), this::calcRow);
+    }
 
-        /**
-         * Insert z in the buffer and check for the periodicity.
-         *
-         * @param z the number to check.
-         * @return true if there is a periodicity.
-         */
-        boolean checkNumber(Complex z) {
-            if (index < buffer.length) {
-                buffer[index] = new Complex(z);
-                index++;
-                if (index == buffer.length) {
-                    return checkPeriodicity();
-                }
-                return false;
+    /**
+     * Calculate the colors of a row with the RowKernel, the points inside
+     * the main cardioid or the period-2 bulb are not iterated.
+     *
+     * @param rowKernel the RowKernel.
+     * @param re the real parts of the points of the row.
+     * @param im the imaginary part of the points of the row.
+     * @param colors the array where the colors of the points are stored.
+     */
+    private void calcRow(RowKernel rowKernel, double[] re, double im, Color[] colors) {
+        int width = re.length;
+        double[] zero = new double[width];
+        double[] cRe = new double[width];
+        double[] cIm = new double[width];
+        int[] index = new int[width];
+        int n = 0;
+        for (int x = 0; x < width; x++) {
+            if (cardioidCheck && EscapeTimeKernel.isInMainCardioidOrBulb(re[x], im)) {
+                statistics.incrementCardioidPixels();
+                colors[x] = colorPalette.getColor(kernel.getMaxIterations());
             }
             else {
-                for (int k = 0; k < buffer.length - 1; k++) {
-                    buffer[k] = buffer[k+1];
-                }
-                buffer[buffer.length - 1] = new Complex(z);
-                return checkPeriodicity();
+                index[n] = x;
+                cRe[n] = re[x];
+                n++;
             }
         }
+        Arrays.fill(cIm, im);
 
-        /**
-         * Perform the periodicity check.
-         *
-         * @return true if there is a periodicity.
-         */
-        private boolean checkPeriodicity() {
-            for (int len = buffer.length / 2; len >= 2; len--) {
-                makePattern(len);
-                for (int start = len; start < len * 2; start++) {
-                    if (check(len)) {
-                        return true;
-                    }
-                }
-            }
-            return false;
+        int[] counts = new int[width];
+        rowKernel.iterate(zero, zero, cRe, cIm, n, counts);
+        for (int i = 0; i < n; i++) {
+            colors[index[i]] = colorPalette.getColor(counts[i]);
         }
+    }
 
-        /**
-         * Make the pattern for the check.
-         *
-         * @param len the length of the pattern.
-         */
-        private void makePattern(int len) {
-            pattern = new Complex[len];
-            for (int k = 0; k < len; k++) {
-                pattern[k] = buffer[k];
-            }
-        }
+    /**
+     * Return the maximum number of iterations of the DataBox.
+     *
+     * @return the maximum number of iterations.
+     */
+    @Override
+    protected int getMaxIterations() {
+        return dataBox.getMaxIterations();
+    }
 
-        /**
-         * Perform the periodicity check.
-         *
-         * @param len
-         * @return true if there is a periodicity.
-         */
-        private boolean check(int len) {
-            for (int k = 0; k < len; k++) {
-                if (!pattern[k].equals(buffer[len+k], DELTA)) {
-                    return false;
-                }
-            }
-            return true;
-        }
+    /**
+     * The double-double precision is supported for the integer powers
+     * greater than or equal to 2.
+     *
+     * @return the function that calculates a point in double-double precision,
+     *         or null if the power is not supported by DoubleDoubleKernel.
+     */
+    @Override
+    protected Function<DoubleDoubleComplex, Color> createDoubleDoubleFunction() {
+        return (doubleDoubleKernel == null) ? null : this::calcPoint;
+    }
 
+    /**
+     * Calculate the color of c through the escape-time algorithm in
+     * double-double precision, without the cardioid check (in double it
+     * could misplace the points near the border).
+     *
+     * @param c the point to be calculated.
+     * @return the color of c.
+     */
+    private Color calcPoint(DoubleDoubleComplex c) {
+        return colorPalette.getColor(doubleDoubleKernel.iterate(DoubleDoubleComplex.ZERO, c));
     }
 
 }
@@ -18,14 +18,17 @@ package io.github.deglans.fractal.mandelbrot;
 
 import io.github.deglans.fractal.utility.Complex;
 import io.github.deglans.fractal.utility.ColorPalette;
+import io.github.deglans.fractal.utility.DoubleDoubleComplex;
 
+import java.util.Arrays;
+import java.util.function.Function;
 import javafx.scene.paint.Color;
 
 /**
  * MandelbrotSimple is the most simple way to calculate the Mandelbrot fractals.
  * MandelbrotSimple use the escape-time algorithm and a simple color palette.
  *
- * @version 0.12
+ * @version 0.20
  * @author Deglans Dalpasso
  */
 public class MandelbrotSimple extends MandelbrotBase {
@@ -40,6 +43,23 @@ public class MandelbrotSimple extends MandelbrotBase {
      */
     protected final ColorPalette colorPalette;
 
+    /**
+     * The kernel of the escape-time algorithm.
+     */
+    protected final EscapeTimeKernel kernel;
+
+    /**
+     * The kernel of the escape-time algorithm in double-double precision,
+     * null if the power is not supported.
+     */
+    protected final DoubleDoubleKernel doubleDoubleKernel;
+
+    /**
+     * If true, check the main cardioid and the period-2 bulb before iterate
+     * (only for the power 2).
+     */
+    protected final boolean cardioidCheck;
+
     /**
      * Create a MandelbrotSimple instance with the given data
      * and the default colors palette or HUE palette.
@@ -51,6 +71,9 @@ public class MandelbrotSimple extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = new ColorPalette(this.dataBox.getMaxIterations(), hue);
+        this.kernel = EscapeTimeKernel.create(dataBox, false);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, false);
+        this.cardioidCheck = (dataBox.getPower().getReal() == 2) && (dataBox.getPower().getImag() == 0);
     }
 
     /**
@@ -63,6 +86,9 @@ public class MandelbrotSimple extends MandelbrotBase {
         super(dataBox.getCartesianPlane(), dataBox.getImage());
         this.dataBox = dataBox;
         this.colorPalette = colorPalette;
+        this.kernel = EscapeTimeKernel.create(dataBox, false);
+        this.doubleDoubleKernel = DoubleDoubleKernel.create(dataBox, false);
+        this.cardioidCheck = (dataBox.getPower().getReal() == 2) && (dataBox.getPower().getImag() == 0);
     }
 
     /**
@@ -73,15 +99,169 @@ public class MandelbrotSimple extends MandelbrotBase {
      */
     @Override
     protected Color calcPoint(Complex c) {
-        int count = 0;
-        Complex z = new Complex(0, 0);
+        return calcPoint(c.getReal(), c.getImag());
+    }
 
-        while ((count < dataBox.getMaxIterations()) && (z.mod() < 2)) {
-            z = z.pow(dataBox.getPower()).plus(c);
-            count++;
+    /**
+     * Calculate the color of (re, im) through the escape-time algorithm.
+     * For the power 2 the points inside the main cardioid or the period-2 bulb
+     * are in the set without iterate.
+     *
+     * @param re the real part of the point to be calculated.
+     * @param im the imaginary part of the point to be calculated.
+     * @return the color of (re, im).
+     */
+    @Override
+    protected Color calcPoint(double re, double im) {
+        if (cardioidCheck && EscapeTimeKernel.isInMainCardioidOrBulb(re, im)) {
+            statistics.incrementCardioidPixels();
+            return colorPalette.getColor(kernel.getMaxIterations());
+        }
+        return colorPalette.getColor(iterate(kernel, 0, 0, re, im));
+    }
+
+    /**
+     * For the deep zoom use a PerturbationEngine with the orbit of the center of the plane as reference,
+     * only for the integer powers greater than or equal to 2.
+     *
+     * The iterations are colored with the palette.
+     *
+     * @return the PerturbationRenderer, or null if the power is not supported.
+     */
+    @Override
+    protected PerturbationRenderer createPerturbationRenderer() {
+        if (!PerturbationEngine.isSupported(dataBox.getPower())) {
+            return null;
+        }
+        return new PerturbationRenderer(PerturbationEngine.mandelbrot(dataBox), colorPalette::getColor);
+    }
+
+    /**
+     * The Mandelbrot set of an integer power greater than or equal to 2 is connected.
+     *
+     * @return true if the power is an integer greater than or equal to 2.
+     */
+    @Override
+    protected boolean isConnected() {
+        return dataBox.getPower().isSmallInteger() && (dataBox.getPower().getReal() >= 2);
+    }
+
+    /**
+     * The power 2 without the periodicity check can be iterated a row at once.
+     *
+     * @return the RowRenderer, or null if the power is not 2.
+     */
+    @Override
+    protected RowRenderer createRowRenderer() {
+        if (kernel.hasPeriodicityCheck()) {
+            return null;
+        }
+        return RowRenderer.create(RowKernel.create(dataBox, false), this::calcRow);
+    }
+
+    /**
+     * Calculate the colors of a row with the RowKernel, the points inside
+     * the main cardioid or the period-2 bulb are not iterated.
+     *
+     * @param rowKernel the RowKernel.
+     * @param re the real parts of the points of the row.
+     * @param im the imaginary part of the points of the row.
+     * @param colors the array where the colors of the points are stored.
+     */
+    private void calcRow(RowKernel rowKernel, double[] re, double im, Color[] colors) {
+        int width = re.length;
+        double[] zero = new double[width];
+        double[] cRe = new double[width];
+        double[] cIm = new double[width];
+        int[] index = new int[width];
+        int n = 0;
+        for (int x = 0; x < width; x++) {
+            if (cardioidCheck && EscapeTimeKernel.isInMainCardioidOrBulb(re[x], im)) {
+                statistics.incrementCardioidPixels();
+                colors[x] = colorPalette.getColor(kernel.getMaxIterations());
+            }
+            else {
+                index[n] = x;
+                cRe[n] = re[x];
+                n++;
+            }
         }
+        Arrays.fill(cIm, im);
 
-        return colorPalette.getColor(count);
+        int[] counts = new int[width];
+        rowKernel.iterate(zero, zero, cRe, cIm, n, counts);
+        for (int i = 0; i < n; i++) {
+            colors[index[i]] = colorPalette.getColor(counts[i]);
+        }
+    }
+
+    /**
+     * The distance estimation is supported for the integer powers greater than or equal to 2.
+     *
+     * The distances are colored with the palette.
+     *
+     * @return the DistanceRenderer, or null if the power is not supported.
+     */
+    @Override
+    protected DistanceRenderer createDistanceRenderer() {
+        if (!DistanceEstimator.isSupported(dataBox)) {
+            return null;
+        }
+        return new DistanceRenderer(DistanceEstimator.mandelbrot(dataBox), colorPalette::getDistanceColor);
+    }
+
+    /**
+     * The Mandelbrot set of a real power is symmetric about the real axis.
+     *
+     * @return CONJUGATE if the power is real, else NONE.
+     */
+    @Override
+    protected Symmetry getSymmetry() {
+        return (dataBox.getPower().getImag() == 0) ? Symmetry.CONJUGATE : Symmetry.NONE;
+    }
+
+    /**
+     * Return the maximum number of iterations of the DataBox.
+     *
+     * @return the maximum number of iterations.
+     */
+    @Override
+    protected int getMaxIterations() {
+        return dataBox.getMaxIterations();
+    }
+
+    /**
+     * The perturbation is supported for the integer powers greater than or equal to 2.
+     *
+     * @return true if the power is supported by PerturbationEngine.
+     */
+    @Override
+    protected boolean isPerturbationSupported() {
+        return PerturbationEngine.isSupported(dataBox.getPower());
+    }
+
+    /**
+     * The double-double precision is supported for the integer powers
+     * greater than or equal to 2.
+     *
+     * @return the function that calculates a point in double-double precision,
+     *         or null if the power is not supported by DoubleDoubleKernel.
+     */
+    @Override
+    protected Function<DoubleDoubleComplex, Color> createDoubleDoubleFunction() {
+        return (doubleDoubleKernel == null) ? null : this::calcPoint;
+    }
+
+    /**
+     * Calculate the color of c through the escape-time algorithm in
+     * double-double precision, without the cardioid check (in double it
+     * could misplace the points near the border).
+     *
+     * @param c the point to be calculated.
+     * @return the color of c.
+     */
+    private Color calcPoint(DoubleDoubleComplex c) {
+        return colorPalette.getColor(doubleDoubleKernel.iterate(DoubleDoubleComplex.ZERO, c));
     }
 
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import java.util.concurrent.RecursiveAction;
+import javafx.scene.paint.Color;
+
+/**
+ * MarianiSilverTask is the fork/join task of the Mariani-Silver algorithm.
+ * The border of the rectangle is already calculated when the task starts:
+ * if all the border has the same color the inside is filled with it,
+ * else the rectangle is split in two along the longer side, the split line
+ * is calculated and the two halves became new tasks.
+ * This can be used only for connected sets, where a rectangle with a
+ * uniform border can't contain something different, and even then it is
+ * approximate: a detail thinner than a pixel is sampled as isolated pixels
+ * that a uniform border can hide (see RenderStrategy).
+ *
+ * https://mrob.com/pub/muency/marianisilveralgorithm.html
+ *
+ * @version 0.5
+ * @author Deglans Dalpasso
+ */
+class MarianiSilverTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Under this size (in pixels) the inside of the rectangle is calculated directly.
+     */
+    static final int MIN_SIZE = 6;
+
+    /**
+     * The fractal to render.
+     */
+    private final MandelbrotBase fractal;
+
+    /**
+     * The pixels of the image, by rows.
+     */
+    private final Color[] pixels;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The left column of the rectangle (included).
+     */
+    private final int x0;
+
+    /**
+     * The top row of the rectangle (included).
+     */
+    private final int y0;
+
+    /**
+     * The right column of the rectangle (included).
+     */
+    private final int x1;
+
+    /**
+     * The bottom row of the rectangle (included).
+     */
+    private final int y1;
+
+    /**
+     * Create the task for the whole image, the border is calculated here.
+     *
+     * @param fractal the fractal to render.
+     * @param pixels the pixels of the image, by rows.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     */
+    MarianiSilverTask(MandelbrotBase fractal, Color[] pixels, int width, int height) {
+        this(fractal, pixels, width, 0, 0, width - 1, height - 1);
+        for (int x = x0; x <= x1; x++) {
+            calc(x, y0);
+            calc(x, y1);
+        }
+        for (int y = y0 + 1; y < y1; y++) {
+            calc(x0, y);
+            calc(x1, y);
+        }
+    }
+
+    /**
+     * Create the task for a rectangle with the border already calculated.
+     *
+     * @param fractal the fractal to render.
+     * @param pixels the pixels of the image, by rows.
+     * @param width the width of the image.
+     * @param x0 the left column of the rectangle.
+     * @param y0 the top row of the rectangle.
+     * @param x1 the right column of the rectangle.
+     * @param y1 the bottom row of the rectangle.
+     */
+    private MarianiSilverTask(MandelbrotBase fractal, Color[] pixels, int width,
+            int x0, int y0, int x1, int y1) {
+        this.fractal = fractal;
+        this.pixels = pixels;
+        this.width = width;
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x1 = x1;
+        this.y1 = y1;
+    }
+
+    /**
+     * Fill, calculate or split the rectangle.
+     */
+    @Override
+    protected void compute() {
+        if (fractal.isCancelled() || (x1 - x0 < 2) || (y1 - y0 < 2)) {
+            // Cancelled or no inside
+            return;
+        }
+
+        Color border = uniformBorder();
+        if (border != null) {
+            for (int y = y0 + 1; y < y1; y++) {
+                for (int x = x0 + 1; x < x1; x++) {
+                    pixels[y * width + x] = border;
+                }
+            }
+            fractal.getStatistics().addFilledPixels((long) (x1 - x0 - 1) * (y1 - y0 - 1));
+            return;
+        }
+
+        if ((x1 - x0 < MIN_SIZE) || (y1 - y0 < MIN_SIZE)) {
+            for (int y = y0 + 1; y < y1; y++) {
+                for (int x = x0 + 1; x < x1; x++) {
+                    calc(x, y);
+                }
+            }
+            return;
+        }
+
+        if (x1 - x0 >= y1 - y0) {
+            int xm = (x0 + x1) >>> 1;
+            for (int y = y0 + 1; y < y1; y++) {
+                calc(xm, y);
+            }
+            invokeAll(new MarianiSilverTask(fractal, pixels, width, x0, y0, xm, y1),
+                    new MarianiSilverTask(fractal, pixels, width, xm, y0, x1, y1));
+        }
+        else {
+            int ym = (y0 + y1) >>> 1;
+            for (int x = x0 + 1; x < x1; x++) {
+                calc(x, ym);
+            }
+            invokeAll(new MarianiSilverTask(fractal, pixels, width, x0, y0, x1, ym),
+                    new MarianiSilverTask(fractal, pixels, width, x0, ym, x1, y1));
+        }
+    }
+
+    /**
+     * Check if all the border of the rectangle has the same color.
+     * A pixel marked as glitch or inexact (see MandelbrotBase.isMarked()) has
+     * no color yet, so the border is not uniform.
+     *
+     * @return the color of the border, or null if it is not uniform.
+     */
+    private Color uniformBorder() {
+        Color c = pixels[y0 * width + x0];
+        for (int x = x0; x <= x1; x++) {
+            if (!isUniform(c, y0 * width + x) || !isUniform(c, y1 * width + x)) {
+                return null;
+            }
+        }
+        for (int y = y0 + 1; y < y1; y++) {
+            if (!isUniform(c, y * width + x0) || !isUniform(c, y * width + x1)) {
+                return null;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Check if the pixel p has the color c and is not marked.
+     *
+     * @param c the color of the border.
+     * @param p the index of the pixel.
+     * @return true if the pixel has the color of the border.
+     */
+    private boolean isUniform(Color c, int p) {
+        return c.equals(pixels[p]) && !fractal.isMarked(p);
+    }
+
+    /**
+     * Calculate a pixel.
+     *
+     * @param x the column of the pixel.
+     * @param y the row of the pixel.
+     */
+    private void calc(int x, int y) {
+        pixels[y * width + x] = fractal.calcPixel(x, y);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.ColorPalette;
+
+/**
+ * PaletteKind is the kind of color palette of a fractal of the list of
+ * FractalFactory: every fractal type is listed once for every kind, the
+ * name of the kind is appended to the name of the type.
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public enum PaletteKind {
+
+    /**
+     * The palette chosen by the user.
+     */
+    CUSTOM(""),
+
+    /**
+     * The default color palette.
+     */
+    DEFAULT(" (default color)"),
+
+    /**
+     * The HUE palette.
+     */
+    HUE(" (HUE color)");
+
+    /**
+     * The suffix of the name of the fractal.
+     */
+    private final String suffix;
+
+    PaletteKind(String suffix) {
+        this.suffix = suffix;
+    }
+
+    /**
+     * Return the name of the fractal type with this palette.
+     *
+     * @param type the name of the fractal type.
+     * @return the name shown in the list of the fractals.
+     */
+    public String getName(String type) {
+        return type + suffix;
+    }
+
+    /**
+     * Return the fractal type of a name of the list of the fractals.
+     *
+     * @param name the name of the fractal.
+     * @return the name of the fractal type without the suffix of this kind.
+     */
+    public String getType(String name) {
+        return name.substring(0, name.length() - suffix.length());
+    }
+
+    /**
+     * Return the palette of this kind.
+     *
+     * @param maxIterations the number of max iteration of the fractal.
+     * @param colorPalette the palette chosen by the user.
+     * @return the palette chosen by the user, or a new palette of this kind.
+     */
+    public ColorPalette getPalette(int maxIterations, ColorPalette colorPalette) {
+        switch (this) {
+            case DEFAULT:
+                return new ColorPalette(maxIterations, false);
+            case HUE:
+                return new ColorPalette(maxIterations, true);
+            default:
+                return colorPalette;
+        }
+    }
+
+    /**
+     * Return the palette kind of a name of the list of the fractals.
+     *
+     * @param name the name of the fractal.
+     * @return the kind whose suffix ends the name (CUSTOM if none).
+     */
+    public static PaletteKind of(String name) {
+        for (PaletteKind kind : values()) {
+            if (!kind.suffix.isEmpty() && name.endsWith(kind.suffix)) {
+                return kind;
+            }
+        }
+        return CUSTOM;
+    }
+
+}
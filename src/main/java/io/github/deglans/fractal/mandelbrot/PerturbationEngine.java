@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.BigComplex;
+import io.github.deglans.fractal.utility.CartesianPlane;
+import io.github.deglans.fractal.utility.Complex;
+
+/**
+ * PerturbationEngine calculates the escape-time of the pixels of a deep zoom.
+ * Only one orbit, at the center of the CartesianPlane, is calculated with
+ * arbitrary precision (see ReferenceOrbit), every pixel is iterated in double
+ * as a small offset (delta) from this orbit:
+ * z = Z + d, so d(n+1) = (Z(n) + d(n))^p - Z(n)^p + dc
+ * where the difference is expanded with the binomial coefficients for don't
+ * lose precision (for p = 2: d(n+1) = (2*Z(n) + d(n))*d(n) + dc).
+ * For the Mandelbrot set the offset is on c (d(0) = 0, dc = offset),
+ * for the Julia set the offset is on z0 (d(0) = offset, dc = 0).
+ *
+ * When |Z(n) + d(n) - Z(0)| is less than |d(n)|, or at the end of the
+ * reference orbit (because the reference escaped), the pixel is rebased on
+ * the start of the orbit: d = z - Z(0), so the offset stays small and keeps
+ * its precision (Zhuoran's rebasing).
+ * A pixel is a glitch (its offset lost the precision) if |Z(n) + d(n)| is
+ * still much smaller than |Z(n)| (Pauldelbrot's criterion), the glitches
+ * are calculated again with a secondary engine that has a reference orbit
+ * near them (see secondary() and GlitchCorrection).
+ * Along the orbit a bound of the rounding errors of d is estimated (they grow
+ * as the derivative 2|z|): a pixel is inexact if at the end the bound is greater
+ * than ERROR_TOLERANCE, because its chaotic orbit amplified the rounding errors
+ * of the double enough to change its iterations (it happens also without the
+ * perturbation), the inexact pixels are calculated again by GlitchCorrection.
+ *
+ * For the power 2 the first iterations of every pixel are skipped with a
+ * SeriesApproximation, then the pixel jumps many iterations at once where
+ * its offset is small enough with a BivariateLinearApproximation table.
+ *
+ * If the reference escapes at once (a Julia set with the center outside the
+ * escape radius) there is no step to perturb: the pixels are iterated in
+ * double, they are near the reference so they escape in few iterations.
+ *
+ * Only the integer powers greater than or equal to 2 are supported.
+ *
+ * https://en.wikipedia.org/wiki/Plotting_algorithms_for_the_Mandelbrot_set#Perturbation_theory_and_series_approximation
+ *
+ * @version 0.5
+ * @author Deglans Dalpasso
+ */
+public class PerturbationEngine {
+
+    /**
+     * Size of a pixel, relative to the magnitude of the center, under which
+     * the double precision is not enough and the PerturbationEngine is used.
+     */
+    public static final double PIXEL_SIZE_LIMIT = 1e-13;
+
+    /**
+     * The number of probe points used to validate the SeriesApproximation.
+     */
+    static final int PROBES = 32;
+
+    /**
+     * The value returned by iterate() for a glitch.
+     */
+    public static final int GLITCH = -1;
+
+    /**
+     * A pixel is a glitch if |z|^2 is less than GLITCH_TOLERANCE * |Z|^2.
+     */
+    public static final double GLITCH_TOLERANCE = 1e-6;
+
+    /**
+     * The value returned by iterate() for an inexact pixel.
+     */
+    public static final int INEXACT = -2;
+
+    /**
+     * A pixel is inexact if the estimated bound of the rounding errors of
+     * its offset is greater than ERROR_TOLERANCE.
+     */
+    public static final double ERROR_TOLERANCE = 1e-8;
+
+    /**
+     * The array of every thread where the SeriesApproximation and the
+     * BivariateLinearApproximation store their results, so iterate()
+     * allocates nothing.
+     */
+    private static final ThreadLocal<double[]> SCRATCH = ThreadLocal.withInitial(() -> new double[3]);
+
+    /**
+     * The CartesianPlane of the image.
+     */
+    private final CartesianPlane plane;
+
+    /**
+     * The first point of the reference orbit.
+     */
+    private final BigComplex z0;
+
+    /**
+     * The constant of the reference orbit.
+     */
+    private final BigComplex c;
+
+    /**
+     * The real part of the offset of the reference from the center of the plane.
+     */
+    private final double offsetRe;
+
+    /**
+     * The imaginary part of the offset of the reference from the center of the plane.
+     */
+    private final double offsetIm;
+
+    /**
+     * The reference orbit.
+     */
+    private final ReferenceOrbit orbit;
+
+    /**
+     * The integer power.
+     */
+    private final int power;
+
+    /**
+     * The binomial coefficients (power k) for k = 0, ..., power.
+     */
+    private final double[] binomial;
+
+    /**
+     * The maximum number of iterations.
+     */
+    private final int maxIterations;
+
+    /**
+     * The square of the escape radius.
+     */
+    private final double bailoutSquared;
+
+    /**
+     * If true the offset of the pixel is on z0 (Julia set), else on c (Mandelbrot set).
+     */
+    private final boolean julia;
+
+    /**
+     * The SeriesApproximation, null if no iteration can be skipped.
+     */
+    private final SeriesApproximation series;
+
+    /**
+     * The table of the linear steps along the reference orbit,
+     * null if the orbit is too short.
+     */
+    private final BivariateLinearApproximation bla;
+
+    /**
+     * The kernel of the power, it iterates the pixels in double if the
+     * reference orbit has no step.
+     */
+    private final EscapeTimeKernel kernel;
+
+    /**
+     * Create a PerturbationEngine and calculate its reference orbit.
+     * The SeriesApproximation is used only by the engine at the center of the plane.
+     *
+     * @param z0 the first point of the reference orbit.
+     * @param c the constant of the reference orbit.
+     * @param power the integer power.
+     * @param maxIterations the maximum number of iterations.
+     * @param bailoutSquared the square of the escape radius.
+     * @param julia if true the offset of the pixel is on z0, else on c.
+     * @param plane the CartesianPlane, it gives the precision of the reference orbit.
+     * @param offsetRe the real part of the offset of the reference from the center of the plane.
+     * @param offsetIm the imaginary part of the offset of the reference from the center of the plane.
+     * @param kernel the kernel of the power, used if the reference orbit has no step.
+     */
+    private PerturbationEngine(BigComplex z0, BigComplex c, int power, int maxIterations,
+            double bailoutSquared, boolean julia, CartesianPlane plane,
+            double offsetRe, double offsetIm, EscapeTimeKernel kernel) {
+        this.z0 = z0;
+        this.c = c;
+        this.plane = plane;
+        this.offsetRe = offsetRe;
+        this.offsetIm = offsetIm;
+        this.power = power;
+        this.maxIterations = maxIterations;
+        this.bailoutSquared = bailoutSquared;
+        this.julia = julia;
+        this.kernel = kernel;
+        this.binomial = new double[power + 1];
+        binomial[0] = 1;
+        for (int k = 1; k <= power; k++) {
+            binomial[k] = binomial[k - 1] * (power - k + 1) / k;
+        }
+        this.orbit = new ReferenceOrbit(z0, c, power, maxIterations, bailoutSquared,
+                plane.getMathContext());
+
+        SeriesApproximation sa = null;
+        if ((power == 2) && (offsetRe == 0) && (offsetIm == 0)) {
+            sa = new SeriesApproximation(orbit, julia, bailoutSquared,
+                    probes(plane, false), probes(plane, true), 1 / plane.getScale());
+        }
+        this.series = ((sa != null) && (sa.getSkip() > 0)) ? sa : null;
+
+        double maxDc = julia ? 0 : Math.hypot(plane.toDeltaReal(0), plane.toDeltaImag(0))
+                + Math.hypot(offsetRe, offsetIm);
+        this.bla = (orbit.length() > 2) ? new BivariateLinearApproximation(orbit, power, maxDc) : null;
+    }
+
+    /**
+     * Return the offsets of the probe points used to validate the
+     * SeriesApproximation: PROBES points on the circle through the corners
+     * of the image. The error of the approximation is an analytic function
+     * of the offset, so its maximum inside the circle is on the circle.
+     *
+     * @param plane the CartesianPlane.
+     * @param imag if true return the imaginary parts, else the real parts.
+     * @return the real or imaginary parts of the offsets.
+     */
+    private static double[] probes(CartesianPlane plane, boolean imag) {
+        double radius = Math.hypot(plane.toDeltaReal(0), plane.toDeltaImag(0));
+        double[] probes = new double[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            double angle = 2 * Math.PI * i / PROBES;
+            probes[i] = radius * (imag ? Math.sin(angle) : Math.cos(angle));
+        }
+        return probes;
+    }
+
+    /**
+     * Check if the pixels of the plane are too small for the double precision.
+     *
+     * @param plane the CartesianPlane.
+     * @return true if the PerturbationEngine is needed.
+     */
+    public static boolean isNeeded(CartesianPlane plane) {
+        double magnitude = Math.max(1, plane.getPreciseCenter().toComplex().mod());
+        return (1 / plane.getScale()) < PIXEL_SIZE_LIMIT * magnitude;
+    }
+
+    /**
+     * Check if the power is supported by the PerturbationEngine.
+     *
+     * @param power the power of the fractal.
+     * @return true if the power is an integer greater than or equal to 2.
+     */
+    public static boolean isSupported(Complex power) {
+        return power.isSmallInteger() && (power.getReal() >= 2);
+    }
+
+    /**
+     * Create the PerturbationEngine for the Mandelbrot set of the dataBox,
+     * the reference orbit is the orbit of the center of its CartesianPlane.
+     *
+     * @param dataBox the data of the fractal (the power must be supported).
+     * @return the PerturbationEngine.
+     */
+    public static PerturbationEngine mandelbrot(DataBox dataBox) {
+        CartesianPlane plane = dataBox.getCartesianPlane();
+        return new PerturbationEngine(BigComplex.ZERO, plane.getPreciseCenter(),
+                (int) dataBox.getPower().getReal(), dataBox.getMaxIterations(), EscapeTimeKernel.BAILOUT_SQUARED,
+                false, plane, 0, 0,
+                EscapeTimeKernel.create(dataBox, false));
+    }
+
+    /**
+     * Create the PerturbationEngine for the Julia set of the dataBox,
+     * the reference orbit starts at the center of its CartesianPlane.
+     *
+     * @param dataBox the data of the fractal (the power must be supported).
+     * @return the PerturbationEngine.
+     */
+    public static PerturbationEngine julia(DataBox dataBox) {
+        CartesianPlane plane = dataBox.getCartesianPlane();
+        return new PerturbationEngine(plane.getPreciseCenter(), new BigComplex(dataBox.getConstant()),
+                (int) dataBox.getPower().getReal(), dataBox.getMaxIterations(), EscapeTimeKernel.BAILOUT_SQUARED,
+                true, plane, 0, 0,
+                EscapeTimeKernel.create(dataBox, false));
+    }
+
+    /**
+     * Create a PerturbationEngine with the reference at the given offset from
+     * the center of the plane, used to calculate again the glitches.
+     * The offsets given to iterate() are always from the center of the plane.
+     *
+     * @param offsetRe the real part of the offset of the reference.
+     * @param offsetIm the imaginary part of the offset of the reference.
+     * @return the secondary PerturbationEngine.
+     */
+    public PerturbationEngine secondary(double offsetRe, double offsetIm) {
+        double re = this.offsetRe + offsetRe;
+        double im = this.offsetIm + offsetIm;
+        if (julia) {
+            return new PerturbationEngine(z0.plus(offsetRe, offsetIm), c, power, maxIterations,
+                    bailoutSquared, true, plane, re, im, kernel);
+        }
+        return new PerturbationEngine(z0, c.plus(offsetRe, offsetIm), power, maxIterations,
+                bailoutSquared, false, plane, re, im, kernel);
+    }
+
+    /**
+     * Return the maximum number of iterations.
+     *
+     * @return the maximum number of iterations.
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Return the number of iterations of the reference orbit.
+     *
+     * @return the number of iterations of the reference orbit.
+     */
+    public int getReferenceIterations() {
+        return orbit.length() - 1;
+    }
+
+    /**
+     * Return the number of iterations skipped for every pixel by the
+     * SeriesApproximation (0 if it's not used).
+     *
+     * @return the number of iterations skipped.
+     */
+    public int getSkippedIterations() {
+        return (series == null) ? 0 : series.getSkip();
+    }
+
+    /**
+     * Iterate the pixel at the given offset from the center of the plane,
+     * with the glitch detection.
+     *
+     * @param deltaRe the real part of the offset.
+     * @param deltaIm the imaginary part of the offset.
+     * @return the number of iterations done, as EscapeTimeKernel.iterate(), GLITCH or INEXACT.
+     */
+    public int iterate(double deltaRe, double deltaIm) {
+        return iterate(deltaRe, deltaIm, true);
+    }
+
+    /**
+     * Iterate the pixel at the given offset from the center of the plane.
+     *
+     * @param deltaRe the real part of the offset.
+     * @param deltaIm the imaginary part of the offset.
+     * @param detectGlitches if true return GLITCH when the pixel is a glitch
+     * and INEXACT when the pixel is inexact.
+     * @return the number of iterations done, as EscapeTimeKernel.iterate(), GLITCH or INEXACT.
+     */
+    public int iterate(double deltaRe, double deltaIm, boolean detectGlitches) {
+        // Offset from the reference of this engine
+        deltaRe -= offsetRe;
+        deltaIm -= offsetIm;
+
+        double[] refRe = orbit.getReal();
+        double[] refIm = orbit.getImag();
+        int last = orbit.length() - 1;
+
+        double dcRe = julia ? 0 : deltaRe;
+        double dcIm = julia ? 0 : deltaIm;
+        double dRe = julia ? deltaRe : 0;
+        double dIm = julia ? deltaIm : 0;
+        double zRe = refRe[0] + dRe;
+        double zIm = refIm[0] + dIm;
+        if (last == 0) {
+            // The reference escaped at once: there is no Z(1) to perturb
+            Complex constant = c.toComplex();
+            return kernel.iterate(zRe, zIm, constant.getReal() + dcRe, constant.getImag() + dcIm);
+        }
+        double[] next = SCRATCH.get();
+        // The bound of the rounding errors of d
+        double error = 0;
+
+        int count = 0;
+        int m = 0;
+        if (series != null) {
+            series.evaluate(deltaRe, deltaIm, next);
+            dRe = next[0];
+            dIm = next[1];
+            count = series.getSkip();
+            m = count;
+            zRe = refRe[m] + dRe;
+            zIm = refIm[m] + dIm;
+        }
+        while ((count < maxIterations) && (zRe * zRe + zIm * zIm < bailoutSquared)) {
+            double rebasedRe = zRe - refRe[0];
+            double rebasedIm = zIm - refIm[0];
+            if ((m == last) || (rebasedRe * rebasedRe + rebasedIm * rebasedIm < dRe * dRe + dIm * dIm)) {
+                // The pixel is nearer to Z(0) than to Z(m), or the reference
+                // escaped: rebase the pixel on the start of the orbit
+                dRe = rebasedRe;
+                dIm = rebasedIm;
+                m = 0;
+                error += PrecisionSelector.DOUBLE_EPSILON * Math.sqrt(zRe * zRe + zIm * zIm);
+            }
+            else if (detectGlitches && (zRe * zRe + zIm * zIm
+                    < GLITCH_TOLERANCE * (refRe[m] * refRe[m] + refIm[m] * refIm[m]))) {
+                return GLITCH;
+            }
+
+            int level = (bla == null) ? -1 : bla.find(m, dRe * dRe + dIm * dIm, maxIterations - count);
+            if (level >= 0) {
+                // Jump 2^level iterations with one linear step
+                bla.apply(level, m, dRe, dIm, dcRe, dcIm, next);
+                dRe = next[0];
+                dIm = next[1];
+                error = error * next[2]
+                        + PrecisionSelector.DOUBLE_EPSILON * 4 * Math.sqrt(dRe * dRe + dIm * dIm);
+                m += 1 << level;
+                count += 1 << level;
+                zRe = refRe[m] + dRe;
+                zIm = refIm[m] + dIm;
+                continue;
+            }
+
+            double nextRe;
+            double nextIm;
+            if (power == 2) {
+                // (2*Z + d) * d
+                double aRe = 2 * refRe[m] + dRe;
+                double aIm = 2 * refIm[m] + dIm;
+                nextRe = aRe * dRe - aIm * dIm;
+                nextIm = aRe * dIm + aIm * dRe;
+                error = error * 2 * Math.sqrt(zRe * zRe + zIm * zIm)
+                        + PrecisionSelector.DOUBLE_EPSILON * 2
+                        * Math.sqrt((aRe * aRe + aIm * aIm) * (dRe * dRe + dIm * dIm));
+            }
+            else {
+                // Horner in Z: sum for j = 0..p-1 of (p j) * Z^j * d^(p-j)
+                double rRe = refRe[m];
+                double rIm = refIm[m];
+                double powRe = dRe;
+                double powIm = dIm;
+                nextRe = power * dRe;
+                nextIm = power * dIm;
+                for (int j = power - 2; j >= 0; j--) {
+                    double tmp = powRe * dRe - powIm * dIm;
+                    powIm = powRe * dIm + powIm * dRe;
+                    powRe = tmp;
+                    tmp = nextRe * rRe - nextIm * rIm + binomial[j] * powRe;
+                    nextIm = nextRe * rIm + nextIm * rRe + binomial[j] * powIm;
+                    nextRe = tmp;
+                }
+                error = error * power * Math.pow(zRe * zRe + zIm * zIm, (power - 1) / 2.0)
+                        + PrecisionSelector.DOUBLE_EPSILON * power * Math.sqrt(nextRe * nextRe + nextIm * nextIm);
+            }
+
+            dRe = nextRe + dcRe;
+            dIm = nextIm + dcIm;
+            m++;
+            count++;
+            zRe = refRe[m] + dRe;
+            zIm = refIm[m] + dIm;
+        }
+
+        if (detectGlitches && (error > ERROR_TOLERANCE)) {
+            return INEXACT;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * Precision is the arithmetic used by MandelbrotBase to calculate the pixels,
+ * it's chosen for every render by PrecisionSelector.
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public enum Precision {
+
+    /**
+     * The primitive double (EscapeTimeKernel).
+     */
+    DOUBLE,
+
+    /**
+     * The double-double, about 32 digits (DoubleDoubleKernel).
+     */
+    DOUBLE_DOUBLE,
+
+    /**
+     * The offsets in double from a reference orbit in arbitrary precision
+     * (PerturbationEngine).
+     */
+    PERTURBATION
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.CartesianPlane;
+
+/**
+ * PrecisionSelector chooses the cheapest Precision that still separates
+ * the adjacent pixels of a render.
+ *
+ * An arithmetic with relative precision eps separates the pixels if the size
+ * of a pixel relative to the center is at least eps * ULP_MARGIN * log2(maxIterations):
+ * the rounding errors grow along the orbit, so more iterations need more margin.
+ * The perturbation always separates the pixels (the offsets are small).
+ *
+ * Among the arithmetics that separate the pixels the cheapest is chosen by the
+ * estimated cost of the whole render in nanoseconds, from the costs of one
+ * iteration measured on the power 2 and maxIterations iterations for every
+ * pixel (an upper bound, the iterations of a pixel are the same for all the
+ * arithmetics):
+ * - double: DOUBLE_COST for every pixel;
+ * - double-double: DOUBLE_DOUBLE_COST for every pixel;
+ * - perturbation: PERTURBATION_COST for every pixel, plus the reference orbit in
+ *   BigDecimal, REFERENCE_COST at REFERENCE_DIGITS digits (quadratic in the digits),
+ *   plus the glitch correction: the INEXACT_FRACTION of the pixels that
+ *   GlitchCorrection calculates again in double-double.
+ * The series approximation and the linear steps of the perturbation are not
+ * counted, they only make it cheaper.
+ * If no arithmetic separates the pixels the most precise available is used.
+ *
+ * @version 0.3
+ * @author Deglans Dalpasso
+ */
+final class PrecisionSelector {
+
+    /**
+     * The relative precision of a double.
+     */
+    static final double DOUBLE_EPSILON = 0x1p-53;
+
+    /**
+     * The relative precision of a double-double.
+     */
+    static final double DOUBLE_DOUBLE_EPSILON = 0x1p-104;
+
+    /**
+     * The margin on the precision for every doubling of the iterations.
+     */
+    static final double ULP_MARGIN = 64;
+
+    /**
+     * The cost of one iteration in double.
+     */
+    static final double DOUBLE_COST = 4.5;
+
+    /**
+     * The cost of one iteration in double-double.
+     */
+    static final double DOUBLE_DOUBLE_COST = 20;
+
+    /**
+     * The cost of one iteration of a pixel with the perturbation.
+     */
+    static final double PERTURBATION_COST = 7.5;
+
+    /**
+     * The cost of one iteration of the reference orbit at REFERENCE_DIGITS digits.
+     */
+    static final double REFERENCE_COST = 35000;
+
+    /**
+     * The digits of the measure of REFERENCE_COST.
+     */
+    static final double REFERENCE_DIGITS = 40;
+
+    /**
+     * The fraction of the pixels of a deep zoom that the PerturbationEngine
+     * marks as inexact, measured on the seahorse valley at 20000 iterations
+     * (from 0.24 to 0.34): they are calculated again in double-double.
+     */
+    static final double INEXACT_FRACTION = 0.3;
+
+    /**
+     * The chosen precision.
+     */
+    private final Precision precision;
+
+    /**
+     * Why the precision was chosen.
+     */
+    private final String reason;
+
+    /**
+     * Choose the precision for a render.
+     *
+     * @param plane the CartesianPlane of the render.
+     * @param maxIterations the maximum number of iterations.
+     * @param doubleDouble true if the fractal supports the double-double.
+     * @param perturbation true if the fractal supports the perturbation.
+     */
+    PrecisionSelector(CartesianPlane plane, int maxIterations, boolean doubleDouble, boolean perturbation) {
+        double pixelSize = relativePixelSize(plane);
+        double pixels = plane.getWidth() * plane.getHeight();
+
+        if (separates(plane, maxIterations, DOUBLE_EPSILON)) {
+            precision = Precision.DOUBLE;
+            reason = String.format("double separates the pixels: relative pixel size %.1e", pixelSize);
+            return;
+        }
+
+        boolean doubleDoubleSeparates = doubleDouble && separates(plane, maxIterations, DOUBLE_DOUBLE_EPSILON);
+        if (doubleDoubleSeparates && perturbation) {
+            double doubleDoubleCost = pixels * DOUBLE_DOUBLE_COST * maxIterations;
+            double digits = plane.getMathContext().getPrecision() / REFERENCE_DIGITS;
+            double perturbationCost = (pixels * (PERTURBATION_COST + INEXACT_FRACTION * DOUBLE_DOUBLE_COST)
+                    + REFERENCE_COST * digits * digits) * maxIterations;
+            if (doubleDoubleCost <= perturbationCost) {
+                precision = Precision.DOUBLE_DOUBLE;
+                reason = String.format("double-double is cheaper than perturbation: %.1e < %.1e ns per frame",
+                        doubleDoubleCost, perturbationCost);
+            }
+            else {
+                precision = Precision.PERTURBATION;
+                reason = String.format("perturbation is cheaper than double-double: %.1e < %.1e ns per frame",
+                        perturbationCost, doubleDoubleCost);
+            }
+        }
+        else if (doubleDoubleSeparates) {
+            precision = Precision.DOUBLE_DOUBLE;
+            reason = String.format("double can't separate the pixels: relative pixel size %.1e", pixelSize);
+        }
+        else if (perturbation) {
+            precision = Precision.PERTURBATION;
+            reason = String.format("double%s can't separate the pixels: relative pixel size %.1e",
+                    doubleDouble ? " and double-double" : "", pixelSize);
+        }
+        else if (doubleDouble) {
+            precision = Precision.DOUBLE_DOUBLE;
+            reason = String.format("no precision separates the pixels: relative pixel size %.1e, "
+                    + "double-double is the best available", pixelSize);
+        }
+        else {
+            precision = Precision.DOUBLE;
+            reason = String.format("no precision separates the pixels: relative pixel size %.1e, "
+                    + "double is the only available", pixelSize);
+        }
+    }
+
+    /**
+     * Check if an arithmetic with relative precision epsilon separates the
+     * adjacent pixels of a render.
+     *
+     * @param plane the CartesianPlane of the render.
+     * @param maxIterations the maximum number of iterations.
+     * @param epsilon the relative precision of the arithmetic.
+     * @return true if the arithmetic separates the pixels.
+     */
+    static boolean separates(CartesianPlane plane, int maxIterations, double epsilon) {
+        double margin = ULP_MARGIN * Math.log(Math.max(2, maxIterations)) / Math.log(2);
+        return relativePixelSize(plane) >= epsilon * margin;
+    }
+
+    /**
+     * Return the size of a pixel relative to the magnitude of the center.
+     *
+     * @param plane the CartesianPlane of the render.
+     * @return the relative size of a pixel.
+     */
+    private static double relativePixelSize(CartesianPlane plane) {
+        double magnitude = Math.max(1, plane.getPreciseCenter().toComplex().mod());
+        return 1 / plane.getScale() / magnitude;
+    }
+
+    /**
+     * Return the chosen precision.
+     *
+     * @return the chosen precision.
+     */
+    Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Return why the precision was chosen.
+     *
+     * @return the reason of the choice.
+     */
+    String getReason() {
+        return reason;
+    }
+
+}
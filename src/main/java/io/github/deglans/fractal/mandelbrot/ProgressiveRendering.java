@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.TileScheduler;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import javafx.scene.paint.Color;
+
+/**
+ * ProgressiveRendering renders an image from coarse to fine: the first pass
+ * calculates a pixel every FIRST_STEP in both directions, every next pass
+ * halves the step and calculates only the new pixels, until the step 1.
+ * After every pass but the last the image can be shown as blocks of the
+ * size of the step, so a preview is ready in about 1/64 of the time.
+ *
+ * With the solid guessing a new pixel is not calculated if all the pixels of
+ * the previous pass around its cell (a 4x4 grid) have the same color, the
+ * pixel takes that color. At the borders of the image, where the grid would
+ * go out of the image, the pixels are always calculated (the color would be
+ * extrapolated from only one side).
+ * As for the other strategies that guess pixels the solid guessing is used
+ * only for the connected sets and the result is approximate: a detail
+ * thinner than the steps of the grid can be missed, also in the last pass
+ * (see RenderStrategy). On the view from -0.76+0.11i to
+ * -0.74+0.09i at 600x600 pixels 20 to 40 pixels differ from the brute force.
+ *
+ * https://en.wikipedia.org/wiki/Fractint (solid guessing)
+ *
+ * @version 0.3
+ * @author Deglans Dalpasso
+ */
+class ProgressiveRendering {
+
+    /**
+     * The step of the first pass, a power of 2.
+     */
+    static final int FIRST_STEP = 8;
+
+    /**
+     * The fractal to render.
+     */
+    private final MandelbrotBase fractal;
+
+    /**
+     * The pixels of the image, by rows.
+     */
+    private final Color[] pixels;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * If true, the pixels inside the uniform regions are guessed.
+     */
+    private final boolean guess;
+
+    /**
+     * Create the ProgressiveRendering for the given fractal.
+     *
+     * @param fractal the fractal to render.
+     * @param pixels the pixels of the image, by rows.
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @param guess if true, the pixels inside the uniform regions are guessed.
+     */
+    ProgressiveRendering(MandelbrotBase fractal, Color[] pixels, int width, int height, boolean guess) {
+        this.fractal = fractal;
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+        this.guess = guess;
+    }
+
+    /**
+     * Render the image, every pass is split in tiles by the scheduler.
+     *
+     * @param scheduler the scheduler of the tiles.
+     * @param preview called with the step after every pass but the last,
+     *        the pixels whose coordinates are multiple of the step are ready.
+     * @return the number of pixels guessed without calculate them.
+     */
+    long render(TileScheduler scheduler, IntConsumer preview) {
+        LongAdder guessed = new LongAdder();
+        for (int step = FIRST_STEP; step >= 1; step /= 2) {
+            final int s = step;
+            scheduler.render(width, height, (int x0, int y0, int x1, int y1) -> {
+                guessed.add(renderPass(s, x0, y0, x1, y1));
+            }, fractal::isCancelled);
+            if (fractal.isCancelled()) {
+                break;
+            }
+            if (step > 1) {
+                preview.accept(step);
+            }
+        }
+        return guessed.sum();
+    }
+
+    /**
+     * Calculate (or guess) the new pixels of a pass inside a tile.
+     *
+     * @param step the step of the pass.
+     * @param x0 the first column of the tile.
+     * @param y0 the first row of the tile.
+     * @param x1 the column after the last one.
+     * @param y1 the row after the last one.
+     * @return the number of pixels guessed.
+     */
+    private long renderPass(int step, int x0, int y0, int x1, int y1) {
+        int previous = 2 * step;
+        long guessed = 0;
+        for (int y = ceil(y0, step); y < y1; y += step) {
+            for (int x = ceil(x0, step); x < x1; x += step) {
+                if ((step < FIRST_STEP) && (x % previous == 0) && (y % previous == 0)) {
+                    // Calculated by the previous pass
+                    continue;
+                }
+                if (fractal.isCancelled()) {
+                    return guessed;
+                }
+                Color solid = (guess && (step < FIRST_STEP)) ? getSolidColor(x, y, previous) : null;
+                if (solid != null) {
+                    pixels[y * width + x] = solid;
+                    guessed++;
+                }
+                else {
+                    pixels[y * width + x] = fractal.calcPixel(x, y);
+                }
+            }
+        }
+        return guessed;
+    }
+
+    /**
+     * Return the color of the pixels of the previous pass around the cell
+     * of (x, y), if they are all inside the image and equal.
+     *
+     * @param x the column of the new pixel.
+     * @param y the row of the new pixel.
+     * @param previous the step of the previous pass.
+     * @return the common color, or null if the pixel must be calculated.
+     */
+    private Color getSolidColor(int x, int y, int previous) {
+        int cellX = x - x % previous;
+        int cellY = y - y % previous;
+        if ((cellX - previous < 0) || (cellX + 2 * previous >= width)
+                || (cellY - previous < 0) || (cellY + 2 * previous >= height)) {
+            return null;
+        }
+        Color solid = pixels[cellY * width + cellX];
+        for (int j = cellY - previous; j <= cellY + 2 * previous; j += previous) {
+            for (int i = cellX - previous; i <= cellX + 2 * previous; i += previous) {
+                if (!solid.equals(pixels[j * width + i])) {
+                    return null;
+                }
+            }
+        }
+        return solid;
+    }
+
+    /**
+     * Return the first multiple of step greater than or equal to n.
+     *
+     * @param n the number.
+     * @param step the step.
+     * @return the first multiple of step from n.
+     */
+    private static int ceil(int n, int step) {
+        return (n + step - 1) / step * step;
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.BigComplex;
+
+import java.math.MathContext;
+import java.util.Arrays;
+
+/**
+ * ReferenceOrbit is the orbit z(n+1) = z(n)^power + c of one point calculated
+ * with arbitrary precision (BigComplex), the points are stored rounded to double.
+ * The orbit stops when it escapes or after maxIterations iterations.
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+final class ReferenceOrbit {
+
+    /**
+     * The real parts of the points of the orbit.
+     */
+    private final double[] re;
+
+    /**
+     * The imaginary parts of the points of the orbit.
+     */
+    private final double[] im;
+
+    /**
+     * Calculate the orbit of z0 with the constant c.
+     *
+     * @param z0 the first point of the orbit.
+     * @param c the constant added at every iteration.
+     * @param power the integer power, greater than or equal to 2.
+     * @param maxIterations the maximum number of iterations.
+     * @param bailoutSquared the square of the escape radius.
+     * @param mc the precision of the calculus.
+     */
+    ReferenceOrbit(BigComplex z0, BigComplex c, int power, int maxIterations,
+            double bailoutSquared, MathContext mc) {
+        double[] orbitRe = new double[maxIterations + 1];
+        double[] orbitIm = new double[maxIterations + 1];
+        BigComplex z = z0;
+        int n = 0;
+
+        while (true) {
+            orbitRe[n] = z.getReal().doubleValue();
+            orbitIm[n] = z.getImag().doubleValue();
+            if ((n == maxIterations)
+                    || (orbitRe[n] * orbitRe[n] + orbitIm[n] * orbitIm[n] >= bailoutSquared)) {
+                break;
+            }
+            z = z.pow(power, mc).plus(c, mc);
+            n++;
+        }
+
+        this.re = Arrays.copyOf(orbitRe, n + 1);
+        this.im = Arrays.copyOf(orbitIm, n + 1);
+    }
+
+    /**
+     * Return the number of points of the orbit (z0 included).
+     *
+     * @return the number of points of the orbit.
+     */
+    int length() {
+        return re.length;
+    }
+
+    /**
+     * Return the real parts of the points of the orbit, the array is not copied.
+     *
+     * @return the real parts of the points.
+     */
+    double[] getReal() {
+        return re;
+    }
+
+    /**
+     * Return the imaginary parts of the points of the orbit, the array is not copied.
+     *
+     * @return the imaginary parts of the points.
+     */
+    double[] getImag() {
+        return im;
+    }
+
+}
@@ -0,0 +1,470 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RenderStatistics collects the counters of one fractal calculus.
+ * The counters are updated by the rendering threads, so they are LongAdder.
+ *
+ * @version 0.18
+ * @author Deglans Dalpasso
+ */
+public class RenderStatistics {
+
+    /**
+     * The precision used to calculate the pixels.
+     */
+    private volatile Precision precision = Precision.DOUBLE;
+
+    /**
+     * Why the precision was chosen.
+     */
+    private volatile String precisionReason = "";
+
+    /**
+     * The kernel used to iterate the pixels.
+     */
+    private volatile String kernel = "";
+
+    /**
+     * Number of pixels of the image rendered (calculated or filled).
+     */
+    private final LongAdder pixels = new LongAdder();
+
+    /**
+     * Number of pixels found inside the main cardioid or the period-2 bulb
+     * without iterate.
+     */
+    private final LongAdder cardioidPixels = new LongAdder();
+
+    /**
+     * Number of pixels found in the set by the periodicity check.
+     */
+    private final LongAdder periodicPixels = new LongAdder();
+
+    /**
+     * Number of pixels found in the set by the distance estimator
+     * when the derivative of the orbit collapsed.
+     */
+    private final LongAdder interiorPixels = new LongAdder();
+
+    /**
+     * Number of pixels copied from their mirror image by the symmetry.
+     */
+    private final LongAdder mirroredPixels = new LongAdder();
+
+    /**
+     * Number of pixels copied from the previous frame (see RenderedFrame).
+     */
+    private final LongAdder reusedPixels = new LongAdder();
+
+    /**
+     * The time taken by every tile in nanoseconds (see TileScheduler),
+     * empty if the pixels weren't calculated by tiles.
+     */
+    private volatile long[] tileCosts = new long[0];
+
+    /**
+     * Number of pixels filled by the render strategy without calculate them.
+     */
+    private final LongAdder filledPixels = new LongAdder();
+
+    /**
+     * Number of iterations skipped for every calculated pixel
+     * by the series approximation of the deep zoom.
+     */
+    private volatile int seriesSkip = 0;
+
+    /**
+     * Number of pixels marked as glitches by the perturbation of the deep zoom.
+     */
+    private final LongAdder glitchedPixels = new LongAdder();
+
+    /**
+     * Number of secondary reference orbits used to calculate again the glitches.
+     */
+    private final LongAdder secondaryReferences = new LongAdder();
+
+    /**
+     * Number of glitches that the secondary references didn't resolve,
+     * calculated exactly.
+     */
+    private final LongAdder unresolvedGlitches = new LongAdder();
+
+    /**
+     * Number of pixels of the perturbation whose rounding errors may have
+     * changed their iterations, calculated again in double-double if possible.
+     */
+    private final LongAdder inexactPixels = new LongAdder();
+
+    /**
+     * Set the precision used to calculate the pixels and why it was chosen.
+     *
+     * @param precision the precision.
+     * @param reason why the precision was chosen.
+     */
+    public void setPrecision(Precision precision, String reason) {
+        this.precision = precision;
+        this.precisionReason = reason;
+    }
+
+    /**
+     * Set the description of the kernel used to iterate the pixels.
+     *
+     * @param kernel the description of the kernel.
+     */
+    public void setKernel(String kernel) {
+        this.kernel = kernel;
+    }
+
+    /**
+     * Add n to the number of pixels rendered.
+     *
+     * @param n the number of pixels.
+     */
+    public void addPixels(long n) {
+        pixels.add(n);
+    }
+
+    /**
+     * Increment the number of pixels inside the main cardioid or the period-2 bulb.
+     */
+    public void incrementCardioidPixels() {
+        cardioidPixels.increment();
+    }
+
+    /**
+     * Increment the number of pixels found in the set by the periodicity check.
+     */
+    public void incrementPeriodicPixels() {
+        periodicPixels.increment();
+    }
+
+    /**
+     * Increment the number of pixels found in the set by the distance estimator.
+     */
+    public void incrementInteriorPixels() {
+        interiorPixels.increment();
+    }
+
+    /**
+     * Add n to the number of pixels copied from their mirror image.
+     *
+     * @param n the number of pixels.
+     */
+    public void addMirroredPixels(long n) {
+        mirroredPixels.add(n);
+    }
+
+    /**
+     * Add n to the number of pixels copied from the previous frame.
+     *
+     * @param n the number of pixels.
+     */
+    public void addReusedPixels(long n) {
+        reusedPixels.add(n);
+    }
+
+    /**
+     * Set the time taken by every tile.
+     *
+     * @param tileCosts the time of every tile in nanoseconds.
+     */
+    public void setTileCosts(long[] tileCosts) {
+        this.tileCosts = tileCosts;
+    }
+
+    /**
+     * Add n to the number of pixels filled by the render strategy.
+     *
+     * @param n the number of pixels.
+     */
+    public void addFilledPixels(long n) {
+        filledPixels.add(n);
+    }
+
+    /**
+     * Set the number of iterations skipped for every calculated pixel
+     * by the series approximation.
+     *
+     * @param seriesSkip the number of iterations skipped for every pixel.
+     */
+    public void setSeriesSkip(int seriesSkip) {
+        this.seriesSkip = seriesSkip;
+    }
+
+    /**
+     * Add n to the number of pixels marked as glitches.
+     *
+     * @param n the number of pixels.
+     */
+    public void addGlitchedPixels(long n) {
+        glitchedPixels.add(n);
+    }
+
+    /**
+     * Add n to the number of secondary reference orbits.
+     *
+     * @param n the number of reference orbits.
+     */
+    public void addSecondaryReferences(long n) {
+        secondaryReferences.add(n);
+    }
+
+    /**
+     * Add n to the number of glitches not resolved.
+     *
+     * @param n the number of pixels.
+     */
+    public void addUnresolvedGlitches(long n) {
+        unresolvedGlitches.add(n);
+    }
+
+    /**
+     * Add n to the number of inexact pixels.
+     *
+     * @param n the number of pixels.
+     */
+    public void addInexactPixels(long n) {
+        inexactPixels.add(n);
+    }
+
+    /**
+     * Return the precision used to calculate the pixels.
+     *
+     * @return the precision.
+     */
+    public Precision getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Return why the precision was chosen.
+     *
+     * @return the reason of the choice.
+     */
+    public String getPrecisionReason() {
+        return precisionReason;
+    }
+
+    /**
+     * Return the description of the kernel used to iterate the pixels.
+     *
+     * @return the description of the kernel.
+     */
+    public String getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Return the number of pixels rendered.
+     *
+     * @return the number of pixels rendered.
+     */
+    public long getPixels() {
+        return pixels.sum();
+    }
+
+    /**
+     * Return the number of pixels inside the main cardioid or the period-2 bulb.
+     *
+     * @return the number of pixels inside the main cardioid or the period-2 bulb.
+     */
+    public long getCardioidPixels() {
+        return cardioidPixels.sum();
+    }
+
+    /**
+     * Return the number of pixels found in the set by the periodicity check.
+     *
+     * @return the number of pixels found in the set by the periodicity check.
+     */
+    public long getPeriodicPixels() {
+        return periodicPixels.sum();
+    }
+
+    /**
+     * Return the number of pixels found in the set by the distance estimator.
+     *
+     * @return the number of pixels found in the set by the distance estimator.
+     */
+    public long getInteriorPixels() {
+        return interiorPixels.sum();
+    }
+
+    /**
+     * Return the number of pixels copied from their mirror image by the symmetry.
+     *
+     * @return the number of pixels copied from their mirror image.
+     */
+    public long getMirroredPixels() {
+        return mirroredPixels.sum();
+    }
+
+    /**
+     * Return the number of pixels copied from the previous frame.
+     *
+     * @return the number of pixels copied from the previous frame.
+     */
+    public long getReusedPixels() {
+        return reusedPixels.sum();
+    }
+
+    /**
+     * Return the time taken by every tile in nanoseconds, by rows of tiles.
+     *
+     * @return the time of every tile, empty if the pixels weren't calculated by tiles.
+     */
+    public long[] getTileCosts() {
+        return tileCosts.clone();
+    }
+
+    /**
+     * Return the number of pixels filled by the render strategy without calculate them.
+     *
+     * @return the number of pixels filled by the render strategy.
+     */
+    public long getFilledPixels() {
+        return filledPixels.sum();
+    }
+
+    /**
+     * Return the number of iterations skipped for every calculated pixel
+     * by the series approximation.
+     *
+     * @return the number of iterations skipped for every pixel.
+     */
+    public int getSeriesSkip() {
+        return seriesSkip;
+    }
+
+    /**
+     * Return the number of pixels marked as glitches, that needed a secondary reference.
+     *
+     * @return the number of pixels marked as glitches.
+     */
+    public long getGlitchedPixels() {
+        return glitchedPixels.sum();
+    }
+
+    /**
+     * Return the number of secondary reference orbits.
+     *
+     * @return the number of secondary reference orbits.
+     */
+    public long getSecondaryReferences() {
+        return secondaryReferences.sum();
+    }
+
+    /**
+     * Return the number of glitches not resolved by the secondary references.
+     *
+     * @return the number of glitches not resolved.
+     */
+    public long getUnresolvedGlitches() {
+        return unresolvedGlitches.sum();
+    }
+
+    /**
+     * Return the number of pixels of the perturbation whose rounding errors
+     * may have changed their iterations.
+     *
+     * @return the number of inexact pixels.
+     */
+    public long getInexactPixels() {
+        return inexactPixels.sum();
+    }
+
+    /**
+     * Return the total number of iterations skipped by the series approximation,
+     * that is the skip of every pixel calculated (not filled).
+     *
+     * @return the total number of iterations skipped.
+     */
+    public long getSkippedIterations() {
+        return (long) seriesSkip * (getPixels() - getFilledPixels() - getMirroredPixels() - getReusedPixels());
+    }
+
+    /**
+     * Return the percentage of n respect the number of pixels rendered.
+     *
+     * @param n the counter.
+     * @return the percentage of n.
+     */
+    protected double percentage(long n) {
+        long total = getPixels();
+        return total == 0 ? 0 : (100.0 * n) / total;
+    }
+
+    /**
+     * Return a string that represent these statistics.
+     *
+     * @return a string with all the counters.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("precision: ").append(precision).append(" (").append(precisionReason).append(")");
+        sb.append(", kernel: ").append(kernel);
+        sb.append(", pixels: ").append(getPixels());
+        append(sb, "cardioid/bulb skipped", getCardioidPixels());
+        append(sb, "periodicity hits", getPeriodicPixels());
+        append(sb, "interior found", getInteriorPixels());
+        append(sb, "mirrored", getMirroredPixels());
+        append(sb, "reused", getReusedPixels());
+        append(sb, "filled", getFilledPixels());
+        if (tileCosts.length > 0) {
+            long total = 0;
+            long slowest = 0;
+            for (long cost : tileCosts) {
+                total += cost;
+                slowest = Math.max(slowest, cost);
+            }
+            sb.append(String.format(", tiles: %d (mean %.2f ms, slowest %.2f ms)",
+                    tileCosts.length, total / 1e6 / tileCosts.length, slowest / 1e6));
+        }
+        if (seriesSkip > 0) {
+            sb.append(String.format(", series skip: %d iterations/pixel (%d total)",
+                    seriesSkip, getSkippedIterations()));
+        }
+        if (getGlitchedPixels() > 0) {
+            append(sb, "glitches rebased", getGlitchedPixels());
+            sb.append(String.format(" with %d references", getSecondaryReferences()));
+            if (getUnresolvedGlitches() > 0) {
+                append(sb, "unresolved (calculated exactly)", getUnresolvedGlitches());
+            }
+        }
+        if (getInexactPixels() > 0) {
+            append(sb, "inexact", getInexactPixels());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Append a counter of pixels and its percentage to sb.
+     *
+     * @param sb the StringBuilder.
+     * @param name the name of the counter.
+     * @param n the counter.
+     */
+    private void append(StringBuilder sb, String name, long n) {
+        sb.append(String.format(", %s: %d (%.1f%%)", name, n, percentage(n)));
+    }
+
+}
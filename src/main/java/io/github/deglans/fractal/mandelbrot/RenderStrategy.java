@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * RenderStrategy is the way MandelbrotBase visit the pixels of the image.
+ * The strategies that guess pixels are used only by the fractals that are
+ * connected sets (see MandelbrotBase.isConnected()), the others always use
+ * BRUTE_FORCE (PROGRESSIVE without guessing).
+ *
+ * Only BRUTE_FORCE gives always the exact image: the set is connected, but
+ * its pixels are only samples of it, so a detail thinner than a pixel can be
+ * entirely inside a uniform border and be guessed with the wrong color.
+ * The number of the pixels filled without calculate them is in
+ * RenderStatistics.
+ *
+ * @version 0.5
+ * @author Deglans Dalpasso
+ */
+public enum RenderStrategy {
+
+    /**
+     * Calculate every pixel, by tiles (see TileScheduler).
+     */
+    BRUTE_FORCE,
+
+    /**
+     * Mariani-Silver algorithm: calculate the border of a rectangle,
+     * if all the border has the same color fill the rectangle,
+     * else split it in two and repeat (as fork/join tasks).
+     */
+    MARIANI_SILVER,
+
+    /**
+     * Progressive: calculate a pixel every 8, then every 4, 2 and 1,
+     * guessing the pixels inside uniform regions also in the last pass
+     * and showing a preview after every pass (see ProgressiveRendering).
+     */
+    PROGRESSIVE
+
+}
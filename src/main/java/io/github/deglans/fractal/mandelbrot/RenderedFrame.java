@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.CartesianPlane;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+import javafx.scene.paint.Color;
+
+/**
+ * RenderedFrame keeps the result of a calculus (the colors of the pixels and
+ * their distances if colored by distance) with the position of the plane at
+ * that moment, so the next calculus of the same fractal can reuse the pixels
+ * that are still visible (see MandelbrotBase.setPreviousFrame()).
+ *
+ * A column of the new view is reused only if its real part is exactly the
+ * real part of a column of this frame, the same for the rows and the
+ * imaginary part: in double precision a pixel depends only on its
+ * coordinates, so the reused pixels are the same that the new calculus
+ * would give. After a pan by whole pixels every old pixel still visible is
+ * reused (see CartesianPlane.move(CanvasPoint, CanvasPoint)).
+ * In the other precisions the pixels depend on the center of the plane
+ * (the offsets from it, the reference orbit), so they are never reused.
+ * The distances are in pixels of the old view, so when colored by distance
+ * only the views with the same scale reuse the pixels.
+ *
+ * @version 0.3
+ * @author Deglans Dalpasso
+ */
+public final class RenderedFrame {
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The scale of the plane (pixel/unit).
+     */
+    private final double scale;
+
+    /**
+     * The real part of every column.
+     */
+    private final double[] reals;
+
+    /**
+     * The opposite of the imaginary part of every row (ascending as the reals).
+     */
+    private final double[] imags;
+
+    /**
+     * The precision used to calculate the pixels.
+     */
+    private final Precision precision;
+
+    /**
+     * The colors of the pixels, by rows.
+     */
+    private final Color[] pixels;
+
+    /**
+     * The distances of the pixels from the boundary, null if colored by escape time.
+     */
+    private final double[] distances;
+
+    /**
+     * Create the frame of a calculus, the buffers are filled by the calculus.
+     *
+     * @param plane the plane of the calculus, its position is copied.
+     * @param precision the precision used to calculate the pixels.
+     * @param pixels the colors of the pixels, by rows.
+     * @param distances the distances of the pixels, null if colored by escape time.
+     */
+    RenderedFrame(CartesianPlane plane, Precision precision, Color[] pixels, double[] distances) {
+        this.width = (int) plane.getWidth();
+        this.height = (int) plane.getHeight();
+        this.scale = plane.getScale();
+        this.reals = coordinates(plane::toReal, width);
+        this.imags = coordinates((double y) -> -plane.toImag(y), height);
+        this.precision = precision;
+        this.pixels = pixels;
+        this.distances = distances;
+    }
+
+    /**
+     * Find the pixels of this frame that are pixels of a new view.
+     *
+     * @param plane the plane of the new view.
+     * @param precision the precision of the new calculus.
+     * @param distances true if the new calculus is colored by distance.
+     * @return {columns, rows}: for every column (row) of the new view the
+     *         column (row) of this frame, or -1; null if the views have
+     *         different size or precision, the precision is not DOUBLE,
+     *         or no pixel can be reused.
+     */
+    int[][] map(CartesianPlane plane, Precision precision, boolean distances) {
+        if (((int) plane.getWidth() != width) || ((int) plane.getHeight() != height)
+                || (precision != this.precision) || (distances != (this.distances != null))) {
+            return null;
+        }
+        if ((precision != Precision.DOUBLE) || (distances && (plane.getScale() != scale))) {
+            return null;
+        }
+        int[] columns = map(reals, coordinates(plane::toReal, width));
+        int[] rows = map(imags, coordinates((double y) -> -plane.toImag(y), height));
+        return ((columns == null) || (rows == null)) ? null : new int[][] {columns, rows};
+    }
+
+    /**
+     * Calculate the coordinates 0 <= x < length of a plane.
+     *
+     * @param function the function from the canvas coordinate to the plane coordinate.
+     * @param length the number of coordinates.
+     * @return the coordinates.
+     */
+    private static double[] coordinates(DoubleUnaryOperator function, int length) {
+        double[] values = new double[length];
+        for (int x = 0; x < length; x++) {
+            values[x] = function.applyAsDouble(x);
+        }
+        return values;
+    }
+
+    /**
+     * Find the old coordinates that have exactly the value of a new coordinate.
+     *
+     * @param old the old values, ascending.
+     * @param values the new values.
+     * @return the old coordinate of every new coordinate (-1 if none),
+     *         or null if there isn't any.
+     */
+    private static int[] map(double[] old, double[] values) {
+        int[] sources = new int[values.length];
+        boolean found = false;
+        for (int x = 0; x < values.length; x++) {
+            sources[x] = Math.max(-1, Arrays.binarySearch(old, values[x]));
+            found |= (sources[x] >= 0);
+        }
+        return found ? sources : null;
+    }
+
+    /**
+     * Return the number of pixels that a map reuses.
+     *
+     * @param map the result of map().
+     * @return the number of pixels reused.
+     */
+    static long countReused(int[][] map) {
+        long columns = Arrays.stream(map[0]).filter((int x) -> x >= 0).count();
+        long rows = Arrays.stream(map[1]).filter((int y) -> y >= 0).count();
+        return columns * rows;
+    }
+
+    /**
+     * Copy the pixels of this frame that are pixels of a new view (see map()).
+     *
+     * @param pixels the colors of the pixels of the new view.
+     * @param distances the distances of the new view, null if colored by escape time.
+     * @param columns the columns of this frame of the new columns.
+     * @param rows the rows of this frame of the new rows.
+     * @return the number of pixels copied.
+     */
+    long copy(Color[] pixels, double[] distances, int[] columns, int[] rows) {
+        long copied = 0;
+        for (int y = 0; y < rows.length; y++) {
+            if (rows[y] < 0) {
+                continue;
+            }
+            for (int x = 0; x < columns.length; x++) {
+                if (columns[x] >= 0) {
+                    int source = rows[y] * width + columns[x];
+                    pixels[y * width + x] = this.pixels[source];
+                    if (distances != null) {
+                        distances[y * width + x] = this.distances[source];
+                    }
+                    copied++;
+                }
+            }
+        }
+        return copied;
+    }
+
+}
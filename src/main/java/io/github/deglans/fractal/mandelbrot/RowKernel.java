@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * RowKernel is the escape-time loop z = z^2 + c for a segment of a row of
+ * pixels at once (only for the power 2), as EscapeTimeKernel.BurningSquareKernel
+ * the "burning" kernels use |2*x*y| for the imaginary part.
+ *
+ * create() returns VectorRowKernel, that iterates many pixels with one SIMD
+ * instruction, if the module jdk.incubator.vector is available (the JVM must
+ * be started with --add-modules jdk.incubator.vector), else ScalarRowKernel
+ * that iterates the pixels one by one. The burning kernels are separate
+ * classes, so the loops have no branch on the configuration.
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+public abstract class RowKernel {
+
+    /**
+     * The name of the module of the Vector API.
+     */
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The number of max iteration for the escape-time algorithm.
+     */
+    protected final int maxIterations;
+
+    /**
+     * Create a kernel for the given data.
+     *
+     * @param dataBox the data of the fractal instance.
+     */
+    protected RowKernel(DataBox dataBox) {
+        this.maxIterations = dataBox.getMaxIterations();
+    }
+
+    /**
+     * Create the fastest row kernel available for the data.
+     *
+     * @param dataBox the data of the fractal instance.
+     * @param burning if true, use the absolute value of the parts of z before the power.
+     * @return the kernel, or null if the power is not 2.
+     */
+    public static RowKernel create(DataBox dataBox, boolean burning) {
+        if (!dataBox.getPower().isSmallInteger() || (dataBox.getPower().getReal() != 2)) {
+            return null;
+        }
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            try {
+                // By reflection, so this class doesn't need the module
+                String name = RowKernel.class.getPackage().getName() + ".VectorRowKernel"
+                        + (burning ? "$BurningVectorRowKernel" : "");
+                return Class.forName(name)
+                        .asSubclass(RowKernel.class)
+                        .getDeclaredConstructor(DataBox.class)
+                        .newInstance(dataBox);
+            }
+            catch (ReflectiveOperationException | LinkageError ex) {
+                System.err.println("Vector API not usable, scalar fallback: " + ex);
+            }
+        }
+        return burning ? new BurningScalarRowKernel(dataBox) : new ScalarRowKernel(dataBox);
+    }
+
+    /**
+     * Return the number of max iteration for the escape-time algorithm.
+     *
+     * @return the number of max iteration for the escape-time algorithm.
+     */
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    /**
+     * Iterate z = z^2 + c for the first length pixels of the arrays,
+     * for every pixel while the square modulus of z is less than
+     * EscapeTimeKernel.BAILOUT_SQUARED.
+     *
+     * @param zRe the real parts of z0.
+     * @param zIm the imaginary parts of z0.
+     * @param cRe the real parts of c.
+     * @param cIm the imaginary parts of c.
+     * @param length the number of pixels.
+     * @param counts the array where the number of iterations done are stored.
+     */
+    public abstract void iterate(double[] zRe, double[] zIm, double[] cRe, double[] cIm,
+            int length, int[] counts);
+
+    /**
+     * Scalar fallback: the loop of EscapeTimeKernel.SquareKernel for every pixel.
+     */
+    static final class ScalarRowKernel extends RowKernel {
+
+        ScalarRowKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        public void iterate(double[] zRe, double[] zIm, double[] cRe, double[] cIm,
+                int length, int[] counts) {
+            for (int i = 0; i < length; i++) {
+                double x = zRe[i];
+                double y = zIm[i];
+                double re2 = x * x;
+                double im2 = y * y;
+                int count = 0;
+                while ((count < maxIterations) && (re2 + im2 < EscapeTimeKernel.BAILOUT_SQUARED)) {
+                    y = 2 * x * y + cIm[i];
+                    x = re2 - im2 + cRe[i];
+                    re2 = x * x;
+                    im2 = y * y;
+                    count++;
+                }
+                counts[i] = count;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "scalar row";
+        }
+
+    }
+
+    /**
+     * Scalar fallback of the burning kernels: the loop of
+     * EscapeTimeKernel.BurningSquareKernel for every pixel.
+     */
+    static final class BurningScalarRowKernel extends RowKernel {
+
+        BurningScalarRowKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        public void iterate(double[] zRe, double[] zIm, double[] cRe, double[] cIm,
+                int length, int[] counts) {
+            for (int i = 0; i < length; i++) {
+                double x = zRe[i];
+                double y = zIm[i];
+                double re2 = x * x;
+                double im2 = y * y;
+                int count = 0;
+                while ((count < maxIterations) && (re2 + im2 < EscapeTimeKernel.BAILOUT_SQUARED)) {
+                    y = 2 * Math.abs(x * y) + cIm[i];
+                    x = re2 - im2 + cRe[i];
+                    re2 = x * x;
+                    im2 = y * y;
+                    count++;
+                }
+                counts[i] = count;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "scalar row";
+        }
+
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * SeriesApproximation approximates the offset of a pixel from the reference
+ * orbit after n iterations with a polynomial of the offset of the pixel
+ * from the center: d(n) = A1(n)*t + A2(n)*t^2 + ... + AK(n)*t^K
+ * (only for the power 2), so the first n iterations of every pixel are skipped.
+ *
+ * For d(n+1) = 2*Z(n)*d(n) + d(n)^2 + dc the coefficients are:
+ * A1(n+1) = 2*Z(n)*A1(n) + r (r only for the Mandelbrot set, where dc = r*t)
+ * Ak(n+1) = 2*Z(n)*Ak(n) + sum for i+j=k of Ai(n)*Aj(n)
+ * where t = offset / r and r is the greatest offset of the image,
+ * so |t| is at most 1 and the coefficients don't overflow.
+ *
+ * The number of iterations skipped is the last n where the probe points
+ * (around the image) iterated one by one are approximated with an error
+ * less than PIXEL_TOLERANCE pixels, and no pixel can have escaped.
+ *
+ * https://en.wikipedia.org/wiki/Plotting_algorithms_for_the_Mandelbrot_set#Perturbation_theory_and_series_approximation
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+final class SeriesApproximation {
+
+    /**
+     * The number of terms of the polynomial.
+     */
+    static final int TERMS = 8;
+
+    /**
+     * The maximum error on the probe points, in pixels.
+     */
+    static final double PIXEL_TOLERANCE = 1e-6;
+
+    /**
+     * The real parts of the coefficients A1..AK at the skipped iteration.
+     */
+    private final double[] coefRe = new double[TERMS + 1];
+
+    /**
+     * The imaginary parts of the coefficients A1..AK at the skipped iteration.
+     */
+    private final double[] coefIm = new double[TERMS + 1];
+
+    /**
+     * The greatest offset of a pixel from the center.
+     */
+    private final double radius;
+
+    /**
+     * The number of iterations skipped.
+     */
+    private final int skip;
+
+    /**
+     * Calculate the coefficients along the reference orbit and choose
+     * the number of iterations to skip.
+     *
+     * @param orbit the reference orbit (power 2).
+     * @param julia if true the offset is on z0, else on c.
+     * @param bailoutSquared the square of the escape radius.
+     * @param probeRe the real parts of the offsets of the probe points.
+     * @param probeIm the imaginary parts of the offsets of the probe points.
+     * @param pixelSize the size of a pixel.
+     */
+    SeriesApproximation(ReferenceOrbit orbit, boolean julia, double bailoutSquared,
+            double[] probeRe, double[] probeIm, double pixelSize) {
+        double[] refRe = orbit.getReal();
+        double[] refIm = orbit.getImag();
+        int last = orbit.length() - 1;
+        int probes = probeRe.length;
+
+        double r = 0;
+        for (int i = 0; i < probes; i++) {
+            r = Math.max(r, Math.hypot(probeRe[i], probeIm[i]));
+        }
+        this.radius = r;
+
+        double[] aRe = new double[TERMS + 1];
+        double[] aIm = new double[TERMS + 1];
+        double[] bRe = new double[TERMS + 1];
+        double[] bIm = new double[TERMS + 1];
+        double[] dRe = new double[probes];
+        double[] dIm = new double[probes];
+        if (julia) {
+            aRe[1] = radius;
+            System.arraycopy(probeRe, 0, dRe, 0, probes);
+            System.arraycopy(probeIm, 0, dIm, 0, probes);
+        }
+
+        int n = 0;
+        boolean valid = (radius > 0) && isValid(aRe, aIm, refRe[0], refIm[0], bailoutSquared,
+                probeRe, probeIm, dRe, dIm, pixelSize);
+        while (valid && (n < last)) {
+            // Next coefficients
+            double zRe2 = 2 * refRe[n];
+            double zIm2 = 2 * refIm[n];
+            for (int k = 1; k <= TERMS; k++) {
+                double sRe = zRe2 * aRe[k] - zIm2 * aIm[k];
+                double sIm = zRe2 * aIm[k] + zIm2 * aRe[k];
+                for (int i = 1; i < k; i++) {
+                    sRe += aRe[i] * aRe[k - i] - aIm[i] * aIm[k - i];
+                    sIm += aRe[i] * aIm[k - i] + aIm[i] * aRe[k - i];
+                }
+                bRe[k] = sRe;
+                bIm[k] = sIm;
+            }
+            if (!julia) {
+                bRe[1] += radius;
+            }
+
+            // Next offsets of the probe points
+            for (int i = 0; i < probes; i++) {
+                double tRe = zRe2 + dRe[i];
+                double tIm = zIm2 + dIm[i];
+                double nextRe = tRe * dRe[i] - tIm * dIm[i];
+                double nextIm = tRe * dIm[i] + tIm * dRe[i];
+                dRe[i] = nextRe + (julia ? 0 : probeRe[i]);
+                dIm[i] = nextIm + (julia ? 0 : probeIm[i]);
+            }
+
+            valid = isValid(bRe, bIm, refRe[n + 1], refIm[n + 1], bailoutSquared,
+                    probeRe, probeIm, dRe, dIm, pixelSize);
+            if (valid) {
+                System.arraycopy(bRe, 0, aRe, 0, TERMS + 1);
+                System.arraycopy(bIm, 0, aIm, 0, TERMS + 1);
+                n++;
+            }
+        }
+
+        this.skip = n;
+        System.arraycopy(aRe, 0, coefRe, 0, TERMS + 1);
+        System.arraycopy(aIm, 0, coefIm, 0, TERMS + 1);
+    }
+
+    /**
+     * Check if the coefficients approximate well the probe points and
+     * no pixel can escape (|Z| + max|d| less than the escape radius).
+     * The comparisons are written to fail on NaN.
+     *
+     * @param aRe the real parts of the coefficients.
+     * @param aIm the imaginary parts of the coefficients.
+     * @param zRe the real part of the reference point.
+     * @param zIm the imaginary part of the reference point.
+     * @param bailoutSquared the square of the escape radius.
+     * @param probeRe the real parts of the offsets of the probe points.
+     * @param probeIm the imaginary parts of the offsets of the probe points.
+     * @param dRe the real parts of the iterated offsets of the probe points.
+     * @param dIm the imaginary parts of the iterated offsets of the probe points.
+     * @param pixelSize the size of a pixel.
+     * @return true if the coefficients can be used.
+     */
+    private boolean isValid(double[] aRe, double[] aIm, double zRe, double zIm,
+            double bailoutSquared, double[] probeRe, double[] probeIm,
+            double[] dRe, double[] dIm, double pixelSize) {
+        double bound = 0;
+        for (int k = 1; k <= TERMS; k++) {
+            bound += Math.hypot(aRe[k], aIm[k]);
+        }
+        double maxZ = Math.hypot(zRe, zIm) + bound;
+        if (!(maxZ * maxZ < bailoutSquared)) {
+            return false;
+        }
+
+        // A1 * t is the linear part, so a pixel is mapped to |A1| / r pixels
+        double tolerance = PIXEL_TOLERANCE * pixelSize * Math.hypot(aRe[1], aIm[1]) / radius;
+        double[] value = new double[2];
+        for (int i = 0; i < probeRe.length; i++) {
+            evaluate(aRe, aIm, probeRe[i], probeIm[i], value);
+            if (!(Math.hypot(value[0] - dRe[i], value[1] - dIm[i]) <= tolerance)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the number of iterations skipped.
+     *
+     * @return the number of iterations skipped.
+     */
+    int getSkip() {
+        return skip;
+    }
+
+    /**
+     * Calculate the offset from the reference orbit after getSkip() iterations.
+     *
+     * @param deltaRe the real part of the offset of the pixel.
+     * @param deltaIm the imaginary part of the offset of the pixel.
+     * @param result the array where the real and imaginary parts are stored.
+     */
+    void evaluate(double deltaRe, double deltaIm, double[] result) {
+        evaluate(coefRe, coefIm, deltaRe, deltaIm, result);
+    }
+
+    /**
+     * Evaluate the polynomial with the Horner's method.
+     *
+     * @param aRe the real parts of the coefficients.
+     * @param aIm the imaginary parts of the coefficients.
+     * @param deltaRe the real part of the offset of the pixel.
+     * @param deltaIm the imaginary part of the offset of the pixel.
+     * @param result the array where the real and imaginary parts are stored.
+     */
+    private void evaluate(double[] aRe, double[] aIm, double deltaRe, double deltaIm,
+            double[] result) {
+        double tRe = deltaRe / radius;
+        double tIm = deltaIm / radius;
+        double sRe = 0;
+        double sIm = 0;
+        for (int k = TERMS; k >= 1; k--) {
+            double re = sRe * tRe - sIm * tIm + aRe[k];
+            double im = sRe * tIm + sIm * tRe + aIm[k];
+            sRe = re;
+            sIm = im;
+        }
+        result[0] = sRe * tRe - sIm * tIm;
+        result[1] = sRe * tIm + sIm * tRe;
+    }
+
+}
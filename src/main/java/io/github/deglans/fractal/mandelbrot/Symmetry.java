@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+/**
+ * Symmetry is the symmetry of a fractal that MandelbrotBase can use to
+ * calculate only a part of the image (see SymmetryPlanner).
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public enum Symmetry {
+
+    /**
+     * No symmetry.
+     */
+    NONE,
+
+    /**
+     * Symmetric about the real axis: c and its conjugate have the same color
+     * (Mandelbrot sets of a real power).
+     */
+    CONJUGATE,
+
+    /**
+     * Symmetric about the origin: z and -z have the same color
+     * (Julia sets of an even integer power).
+     */
+    POINT
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.CartesianPlane;
+
+/**
+ * SymmetryPlanner finds which pixels of the image are the mirror image of
+ * other pixels of the same image, so they can be copied instead of calculated.
+ *
+ * The mirror of a row is a row only if the real axis is on the center of a
+ * row or between two rows (the same for the columns and the imaginary axis
+ * with the POINT symmetry), with a tolerance of ALIGNMENT_TOLERANCE pixels.
+ * The default views are centered on the origin, so they are always aligned.
+ *
+ * The rows below the axis whose mirror is in the image are copied: all the
+ * row with the CONJUGATE symmetry, only the columns whose mirror is in the
+ * image with the POINT symmetry (the row is reversed).
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+final class SymmetryPlanner {
+
+    /**
+     * The maximum distance in pixels between the axis and the nearest
+     * center or border of a row (or column).
+     */
+    static final double ALIGNMENT_TOLERANCE = 1e-3;
+
+    /**
+     * The width of the image.
+     */
+    private final int width;
+
+    /**
+     * The height of the image.
+     */
+    private final int height;
+
+    /**
+     * The sum of a row and its mirror row, -1 if the rows aren't mirrored.
+     */
+    private final int rowSum;
+
+    /**
+     * The sum of a column and its mirror column, -1 if the columns aren't
+     * mirrored (CONJUGATE symmetry, the column is the same).
+     */
+    private final int columnSum;
+
+    /**
+     * Plan the copy of the mirrored pixels of the plane.
+     *
+     * @param plane the CartesianPlane of the image.
+     * @param symmetry the symmetry of the fractal.
+     */
+    SymmetryPlanner(CartesianPlane plane, Symmetry symmetry) {
+        this.width = (int) plane.getWidth();
+        this.height = (int) plane.getHeight();
+        // The canvas coordinates of the origin, as in CartesianPlane.toCanvasPoint()
+        double axisRow = plane.getUpLeft().getImag() * plane.getScale();
+        double axisColumn = -plane.getUpLeft().getReal() * plane.getScale();
+
+        int rows = -1;
+        int columns = -1;
+        if (symmetry != Symmetry.NONE) {
+            rows = aligned(2 * axisRow);
+        }
+        if ((rows >= 0) && (symmetry == Symmetry.POINT)) {
+            columns = aligned(2 * axisColumn);
+            if (columns < 0) {
+                rows = -1;
+            }
+        }
+        this.rowSum = rows;
+        this.columnSum = columns;
+    }
+
+    /**
+     * Return the nearest integer to doubleAxis if it's inside the tolerance.
+     *
+     * @param doubleAxis twice the coordinate of the axis.
+     * @return the nearest integer, or -1 if it's too far or the axis is outside the image.
+     */
+    private static int aligned(double doubleAxis) {
+        long rounded = Math.round(doubleAxis);
+        if ((Math.abs(doubleAxis - rounded) > 2 * ALIGNMENT_TOLERANCE)
+                || (rounded < 0) || (rounded > Integer.MAX_VALUE)) {
+            return -1;
+        }
+        return (int) rounded;
+    }
+
+    /**
+     * Return the number of pixels that are copied instead of calculated.
+     *
+     * @return the number of mirrored pixels.
+     */
+    long getMirroredPixels() {
+        long columns = 0;
+        for (int x = 0; x < width; x++) {
+            if (getSourceColumn(x) >= 0) {
+                columns++;
+            }
+        }
+        long rows = 0;
+        for (int y = 0; y < height; y++) {
+            if (getSourceRow(y) >= 0) {
+                rows++;
+            }
+        }
+        return rows * columns;
+    }
+
+    /**
+     * Return the row from which the row y is copied.
+     *
+     * @param y the row.
+     * @return the source row, or -1 if the row y must be calculated.
+     */
+    int getSourceRow(int y) {
+        if (rowSum < 0) {
+            return -1;
+        }
+        int mirror = rowSum - y;
+        return ((mirror < y) && (mirror >= 0)) ? mirror : -1;
+    }
+
+    /**
+     * Return the column of the source row from which the column x of
+     * a copied row is copied.
+     *
+     * @param x the column.
+     * @return the source column, or -1 if the pixel must be calculated.
+     */
+    int getSourceColumn(int x) {
+        if (columnSum < 0) {
+            return x;
+        }
+        int mirror = columnSum - x;
+        return ((mirror >= 0) && (mirror < width)) ? mirror : -1;
+    }
+
+}
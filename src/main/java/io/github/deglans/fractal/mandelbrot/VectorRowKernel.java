@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VectorRowKernel is the RowKernel with the Vector API: the pixels are
+ * iterated in groups of SPECIES.length() (4 with AVX2, 8 with AVX-512),
+ * one lane for pixel. A mask keeps the lanes still active: the escaped
+ * pixels don't change anymore and the group stops when all the lanes
+ * escaped. The last group of the row is masked too.
+ * BurningVectorRowKernel is the same loop with |2*x*y|.
+ * They are created only by RowKernel.create(), by reflection.
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+final class VectorRowKernel extends RowKernel {
+
+    /**
+     * The preferred shape of the vectors on this CPU.
+     */
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * The square of the escape radius in every lane.
+     */
+    private static final DoubleVector BAILOUT = DoubleVector.broadcast(SPECIES, EscapeTimeKernel.BAILOUT_SQUARED);
+
+    VectorRowKernel(DataBox dataBox) {
+        super(dataBox);
+    }
+
+    @Override
+    public void iterate(double[] zRe, double[] zIm, double[] cRe, double[] cIm,
+            int length, int[] counts) {
+        double[] result = new double[SPECIES.length()];
+
+        for (int i = 0; i < length; i += SPECIES.length()) {
+            VectorMask<Double> inRange = SPECIES.indexInRange(i, length);
+            DoubleVector x = DoubleVector.fromArray(SPECIES, zRe, i, inRange);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, zIm, i, inRange);
+            DoubleVector cx = DoubleVector.fromArray(SPECIES, cRe, i, inRange);
+            DoubleVector cy = DoubleVector.fromArray(SPECIES, cIm, i, inRange);
+            DoubleVector count = DoubleVector.zero(SPECIES);
+
+            DoubleVector re2 = x.mul(x);
+            DoubleVector im2 = y.mul(y);
+            VectorMask<Double> active = inRange.and(re2.add(im2).compare(VectorOperators.LT, BAILOUT));
+            for (int n = 0; (n < maxIterations) && active.anyTrue(); n++) {
+                DoubleVector xy = x.mul(y);
+                // The escaped lanes keep their last value
+                y = y.blend(xy.add(xy).add(cy), active);
+                x = x.blend(re2.sub(im2).add(cx), active);
+                count = count.add(1, active);
+                re2 = x.mul(x);
+                im2 = y.mul(y);
+                active = active.and(re2.add(im2).compare(VectorOperators.LT, BAILOUT));
+            }
+
+            store(count, result, i, length, counts);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "vector " + SPECIES.length() + " lanes";
+    }
+
+    /**
+     * Copy the counts of a group of lanes in the array of the row.
+     *
+     * @param count the counts of the group.
+     * @param result a buffer of SPECIES.length() doubles.
+     * @param i the index of the first pixel of the group.
+     * @param length the number of pixels of the row.
+     * @param counts the counts of the row.
+     */
+    private static void store(DoubleVector count, double[] result, int i, int length, int[] counts) {
+        count.intoArray(result, 0);
+        int end = Math.min(SPECIES.length(), length - i);
+        for (int j = 0; j < end; j++) {
+            counts[i + j] = (int) result[j];
+        }
+    }
+
+    /**
+     * The VectorRowKernel of the burning fractals.
+     */
+    static final class BurningVectorRowKernel extends RowKernel {
+
+        BurningVectorRowKernel(DataBox dataBox) {
+            super(dataBox);
+        }
+
+        @Override
+        public void iterate(double[] zRe, double[] zIm, double[] cRe, double[] cIm,
+                int length, int[] counts) {
+            double[] result = new double[SPECIES.length()];
+
+            for (int i = 0; i < length; i += SPECIES.length()) {
+                VectorMask<Double> inRange = SPECIES.indexInRange(i, length);
+                DoubleVector x = DoubleVector.fromArray(SPECIES, zRe, i, inRange);
+                DoubleVector y = DoubleVector.fromArray(SPECIES, zIm, i, inRange);
+                DoubleVector cx = DoubleVector.fromArray(SPECIES, cRe, i, inRange);
+                DoubleVector cy = DoubleVector.fromArray(SPECIES, cIm, i, inRange);
+                DoubleVector count = DoubleVector.zero(SPECIES);
+
+                DoubleVector re2 = x.mul(x);
+                DoubleVector im2 = y.mul(y);
+                VectorMask<Double> active = inRange.and(re2.add(im2).compare(VectorOperators.LT, BAILOUT));
+                for (int n = 0; (n < maxIterations) && active.anyTrue(); n++) {
+                    // The absolute value change only the sign of 2*x*y
+                    DoubleVector xy = x.mul(y).abs();
+                    // The escaped lanes keep their last value
+                    y = y.blend(xy.add(xy).add(cy), active);
+                    x = x.blend(re2.sub(im2).add(cx), active);
+                    count = count.add(1, active);
+                    re2 = x.mul(x);
+                    im2 = y.mul(y);
+                    active = active.and(re2.add(im2).compare(VectorOperators.LT, BAILOUT));
+                }
+
+                store(count, result, i, length, counts);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "vector " + SPECIES.length() + " lanes";
+        }
+
+    }
+
+}
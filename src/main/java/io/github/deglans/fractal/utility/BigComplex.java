@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.utility;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * BigComplex implements a complex number with arbitrary precision.
+ * It is used for the points that can't be represented by a Complex
+ * in the deep zoom (as the center of the CartesianPlane), the precision
+ * of the operations is given by a MathContext.
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public class BigComplex {
+
+    /**
+     * The BigComplex zero.
+     */
+    public static final BigComplex ZERO = new BigComplex(BigDecimal.ZERO, BigDecimal.ZERO);
+
+    /**
+     * The real part of BigComplex number.
+     */
+    private final BigDecimal re;
+
+    /**
+     * The imaginary part of BigComplex number.
+     */
+    private final BigDecimal im;
+
+    /**
+     * Create a new BigComplex number with the given real and imaginary parts.
+     *
+     * @param real the BigComplex number real part.
+     * @param imag the BigComplex number imaginary part.
+     */
+    public BigComplex(BigDecimal real, BigDecimal imag) {
+        re = real;
+        im = imag;
+    }
+
+    /**
+     * Create a new BigComplex number with the exact value of a Complex number.
+     *
+     * @param z the Complex number to copy.
+     */
+    public BigComplex(Complex z) {
+        re = new BigDecimal(z.getReal());
+        im = new BigDecimal(z.getImag());
+    }
+
+    /**
+     * Return a string that represent this BigComplex number.
+     *
+     * @return a string in the format (real, imaginary).
+     */
+    @Override
+    public String toString() {
+        return "(" + re.toString() + ", " + im.toString() + ")";
+    }
+
+    /**
+     * Return the real part of this BigComplex number.
+     *
+     * @return the real part of this BigComplex number.
+     */
+    public BigDecimal getReal() {
+        return re;
+    }
+
+    /**
+     * Return the imaginary part of this BigComplex number.
+     *
+     * @return the imaginary part of this BigComplex number.
+     */
+    public BigDecimal getImag() {
+        return im;
+    }
+
+    /**
+     * Return the nearest Complex number.
+     *
+     * @return the Complex number nearest to this BigComplex number.
+     */
+    public Complex toComplex() {
+        return new Complex(re.doubleValue(), im.doubleValue());
+    }
+
+    /**
+     * Return a new BigComplex number whose value is (this + w), the sum is exact.
+     *
+     * @param w the BigComplex number to add.
+     * @return this + w.
+     */
+    public BigComplex plus(BigComplex w) {
+        return new BigComplex(re.add(w.re), im.add(w.im));
+    }
+
+    /**
+     * Return a new BigComplex number whose value is (this + (wRe, wIm)), the sum is exact.
+     *
+     * @param wRe the real part of the number to add.
+     * @param wIm the imaginary part of the number to add.
+     * @return this + (wRe, wIm).
+     */
+    public BigComplex plus(double wRe, double wIm) {
+        return new BigComplex(re.add(new BigDecimal(wRe)), im.add(new BigDecimal(wIm)));
+    }
+
+    /**
+     * Return a new BigComplex number whose value is (this - w), the difference is exact.
+     *
+     * @param w the BigComplex number to subtract.
+     * @return this - w.
+     */
+    public BigComplex minus(BigComplex w) {
+        return new BigComplex(re.subtract(w.re), im.subtract(w.im));
+    }
+
+    /**
+     * Return a new BigComplex number whose value is (this + w) rounded by mc.
+     *
+     * @param w the BigComplex number to add.
+     * @param mc the precision of the result.
+     * @return this + w.
+     */
+    public BigComplex plus(BigComplex w, MathContext mc) {
+        return new BigComplex(re.add(w.re, mc), im.add(w.im, mc));
+    }
+
+    /**
+     * Return a new BigComplex number whose value is (this * w) rounded by mc.
+     *
+     * @param w the BigComplex number to multiply.
+     * @param mc the precision of the result.
+     * @return this * w.
+     */
+    public BigComplex times(BigComplex w, MathContext mc) {
+        BigDecimal real = re.multiply(w.re).subtract(im.multiply(w.im), mc);
+        BigDecimal imag = re.multiply(w.im).add(im.multiply(w.re), mc);
+        return new BigComplex(real, imag);
+    }
+
+    /**
+     * Return a new BigComplex number whose value is (this ^ n) rounded by mc,
+     * calculated by repeated squaring.
+     *
+     * @param n the exponent, greater than or equal to 1.
+     * @param mc the precision of the result.
+     * @return this ^ n.
+     */
+    public BigComplex pow(int n, MathContext mc) {
+        BigComplex result = null;
+        BigComplex base = this;
+        while (n > 0) {
+            if ((n & 1) == 1) {
+                result = (result == null) ? base : result.times(base, mc);
+            }
+            n >>= 1;
+            if (n > 0) {
+                base = base.times(base, mc);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return a new BigComplex number with both parts rounded to the given
+     * number of digits after the decimal point.
+     *
+     * @param scale the number of digits after the decimal point.
+     * @return this rounded to scale digits.
+     */
+    public BigComplex setScale(int scale) {
+        return new BigComplex(re.setScale(scale, RoundingMode.HALF_EVEN),
+                im.setScale(scale, RoundingMode.HALF_EVEN));
+    }
+
+}
@@ -17,15 +17,40 @@
 
 package io.github.deglans.fractal.utility;
 
+import java.math.MathContext;
+import java.math.RoundingMode;
+
 /**
  * CaresianPlane is used to convert coordinate between CanvasPoint and Complex.
+ * The center of the plane is also stored as a BigComplex, so in the deep zoom
+ * (when a double can't distinguish two pixels) the position is not lost and
+ * a pixel can be represented as a small offset from the center
+ * (see getPreciseCenter(), toDeltaReal() and toDeltaImag()) or as a
+ * DoubleDoubleComplex (see toDoubleDoubleComplex()).
+ * The coordinates of the pixels are calculated from a fixed origin and the
+ * offset of the canvas from it in pixels: after a pan by whole pixels the
+ * pixels still visible have exactly the same coordinates as before, and
+ * after a zoom by 2 at a whole pixel every pixel of the larger grid is
+ * exactly a pixel of the smaller one.
  * TODO: check well this class for non-square plane!
  *
- * @version 0.10
+ * @version 0.14
  * @author Deglans Dalpasso
  */
 public class CartesianPlane {
 
+    /**
+     * Number of decimal digits kept by the precise center beyond the size of a pixel.
+     */
+    public static final int GUARD_DIGITS = 16;
+
+    /**
+     * The maximum offset in pixels of the canvas from the origin, after it
+     * the origin is moved to the canvas: the offset is an exact double and
+     * its rounding in toReal() and toImag() stays far below a pixel.
+     */
+    private static final double MAX_ORIGIN_OFFSET = 1 << 30;
+
     /**
      * The height of the canvas.
      */
@@ -51,6 +76,32 @@ public class CartesianPlane {
      */
     private double scale;
 
+    /**
+     * The point of the plane from which the coordinates of the pixels are
+     * calculated, at the canvas coordinates (-originOffsetX, -originOffsetY).
+     */
+    private Complex origin;
+
+    /**
+     * The offset in pixels of the canvas x coordinates from the origin.
+     */
+    private double originOffsetX;
+
+    /**
+     * The offset in pixels of the canvas y coordinates from the origin.
+     */
+    private double originOffsetY;
+
+    /**
+     * The center of the cartesian plane with arbitrary precision.
+     */
+    private BigComplex preciseCenter;
+
+    /**
+     * The precise center rounded to double-double.
+     */
+    private DoubleDoubleComplex doubleDoubleCenter;
+
     /**
      * Create a new CartesianPlane with the given data.
      *
@@ -81,6 +132,8 @@ public class CartesianPlane {
         this.downRight = new Complex(downRight.getReal(), center.getImag()-(newSideY/2));
         //this.upLeft = new Complex(upLeft.getReal(), upLeft.getImag()+newSideY);
         //this.downRight = new Complex(downRight.getReal(), downRight.getImag()-newSideY);
+        setPreciseCenter(new BigComplex(center));
+        resetOrigin();
     }
 
     /**
@@ -93,6 +146,28 @@ public class CartesianPlane {
         Complex delta = start.minus(stop);
         upLeft = upLeft.plus(delta);
         downRight = downRight.plus(delta);
+        setPreciseCenter(preciseCenter.plus(delta.getReal(), delta.getImag()).setScale(getDecimalDigits()));
+        resetOrigin();
+    }
+
+    /**
+     * Move the CatesianPlane by the canvas coordinates (used by drag-and-drop function).
+     * Unlike move(Complex, Complex) the precision is not lost in the deep zoom,
+     * and the pixels keep their coordinates if the points are whole pixels.
+     *
+     * @param start the initial position of drag-and-drop.
+     * @param stop the final position of drag-and-drop.
+     */
+    public void move(CanvasPoint start, CanvasPoint stop) {
+        double deltaRe = (start.getX() - stop.getX()) / scale;
+        double deltaIm = (stop.getY() - start.getY()) / scale;
+        setPreciseCenter(preciseCenter.plus(deltaRe, deltaIm).setScale(getDecimalDigits()));
+        updateCorners();
+        originOffsetX += start.getX() - stop.getX();
+        originOffsetY += start.getY() - stop.getY();
+        if ((Math.abs(originOffsetX) > MAX_ORIGIN_OFFSET) || (Math.abs(originOffsetY) > MAX_ORIGIN_OFFSET)) {
+            resetOrigin();
+        }
     }
 
     /**
@@ -114,6 +189,8 @@ public class CartesianPlane {
 
         upLeft = new Complex(center.getReal()-(newSideX/2), center.getImag()+(newSideY/2));
         downRight = new Complex(center.getReal()+(newSideX/2), center.getImag()-(newSideY/2));
+        setPreciseCenter(new BigComplex(center));
+        resetOrigin();
     }
 
     /**
@@ -141,6 +218,62 @@ public class CartesianPlane {
         zoomCenter(newCenter, zoom);
     }
 
+    /**
+     * Zoom the CartesianPlane at the canvas position (x, y) (used by scroll function).
+     * The point at (x, y) doesn't move, unlike zoomAtMousePos() the precision
+     * is not lost in the deep zoom. If (x, y) is a whole pixel and the zoom is
+     * a power of 2 the old pixels that are pixels of the new view keep exactly
+     * their coordinates.
+     *
+     * @param x the x coordinate on the canvas.
+     * @param y the y coordinate on the canvas.
+     * @param zoom the factor of the zoom.
+     */
+    public void zoomAtCanvasPoint(double x, double y, double zoom) {
+        // newCenter = mouse + (center - mouse) * zoom
+        double deltaRe = toDeltaReal(x) * (1 - zoom);
+        double deltaIm = toDeltaImag(y) * (1 - zoom);
+        scale = scale / zoom;
+        setPreciseCenter(preciseCenter.plus(deltaRe, deltaIm).setScale(getDecimalDigits()));
+        updateCorners();
+        // The origin stays at (x, y) - (x + offset) / zoom
+        originOffsetX = (x + originOffsetX) / zoom - x;
+        originOffsetY = (y + originOffsetY) / zoom - y;
+        if ((Math.abs(originOffsetX) > MAX_ORIGIN_OFFSET) || (Math.abs(originOffsetY) > MAX_ORIGIN_OFFSET)) {
+            resetOrigin();
+        }
+    }
+
+    /**
+     * Set the precise center and its double-double rounding.
+     *
+     * @param center the new precise center.
+     */
+    private void setPreciseCenter(BigComplex center) {
+        preciseCenter = center;
+        doubleDoubleCenter = new DoubleDoubleComplex(center);
+    }
+
+    /**
+     * Move the origin of the coordinates of the pixels to the up left corner.
+     */
+    private void resetOrigin() {
+        origin = upLeft;
+        originOffsetX = 0;
+        originOffsetY = 0;
+    }
+
+    /**
+     * Recalculate upLeft and downRight from the precise center and the scale.
+     */
+    private void updateCorners() {
+        Complex center = preciseCenter.toComplex();
+        double sideX = width / scale;
+        double sideY = height / scale;
+        upLeft = new Complex(center.getReal() - sideX/2, center.getImag() + sideY/2);
+        downRight = new Complex(center.getReal() + sideX/2, center.getImag() - sideY/2);
+    }
+
     /**
      * Return the height of the canvas.
      *
@@ -188,6 +321,37 @@ public class CartesianPlane {
         return new Complex(upLeft.getReal() + sideX/2, upLeft.getImag() - sideY/2);
     }
 
+    /**
+     * Return the point at center of the cartesian plane with arbitrary precision.
+     *
+     * @return the precise center of the cartesian plane.
+     */
+    public BigComplex getPreciseCenter() {
+        return preciseCenter;
+    }
+
+    /**
+     * Return the number of decimal digits needed to represent the position
+     * of a pixel of this plane, plus GUARD_DIGITS.
+     *
+     * @return the number of digits after the decimal point.
+     */
+    public int getDecimalDigits() {
+        return Math.max(0, (int) Math.ceil(Math.log10(scale))) + GUARD_DIGITS;
+    }
+
+    /**
+     * Return the MathContext for the calculus with the precise center,
+     * it has enough significant digits to represent the position of a pixel.
+     *
+     * @return the MathContext of this plane.
+     */
+    public MathContext getMathContext() {
+        double magnitude = Math.max(1, preciseCenter.toComplex().mod());
+        int integerDigits = (int) Math.ceil(Math.log10(magnitude)) + 1;
+        return new MathContext(integerDigits + getDecimalDigits(), RoundingMode.HALF_EVEN);
+    }
+
     /**
      * Return the relationship between pixel and plane unit (pixel/unit).
      *
@@ -205,9 +369,67 @@ public class CartesianPlane {
      * @return the CartesianPlane coordinates.
      */
     public Complex toComplex(double x, double y) {
-        double tx = (x - (-upLeft.getReal()*scale)) / scale;
-        double ty = (y - (upLeft.getImag()*scale)) / -scale;
-        return new Complex(tx, ty);
+        return new Complex(toReal(x), toImag(y));
+    }
+
+    /**
+     * Convert the canvas x coordinate to the CartesianPlane real part.
+     * Used by the rendering loops to avoid the creation of a Complex for every pixel.
+     * A column keeps exactly the same value after a pan by whole pixels.
+     *
+     * @param x the x coordinate on the canvas.
+     * @return the real part of the CartesianPlane coordinates.
+     */
+    public double toReal(double x) {
+        return ((x + originOffsetX) - (-origin.getReal()*scale)) / scale;
+    }
+
+    /**
+     * Convert the canvas y coordinate to the CartesianPlane imaginary part.
+     * Used by the rendering loops to avoid the creation of a Complex for every pixel.
+     * A row keeps exactly the same value after a pan by whole pixels.
+     *
+     * @param y the y coordinate on the canvas.
+     * @return the imaginary part of the CartesianPlane coordinates.
+     */
+    public double toImag(double y) {
+        return ((y + originOffsetY) - (origin.getImag()*scale)) / -scale;
+    }
+
+    /**
+     * Convert the canvas x coordinate to the offset of the real part from the center.
+     * The offset is small and it's represented well by a double in the deep zoom too.
+     *
+     * @param x the x coordinate on the canvas.
+     * @return the real part of the offset from the center.
+     */
+    public double toDeltaReal(double x) {
+        return (x - width/2) / scale;
+    }
+
+    /**
+     * Convert the canvas y coordinate to the offset of the imaginary part from the center.
+     * The offset is small and it's represented well by a double in the deep zoom too.
+     *
+     * @param y the y coordinate on the canvas.
+     * @return the imaginary part of the offset from the center.
+     */
+    public double toDeltaImag(double y) {
+        return (height/2 - y) / scale;
+    }
+
+    /**
+     * Convert the canvas (x, y) coordinates to CartesianPlane coordinates
+     * in double-double precision, as the center plus the offset of the pixel.
+     * Unlike toComplex() two adjacent pixels are distinct until the pixel
+     * size is about 1e-30 of the center.
+     *
+     * @param x the x coordinate on the canvas.
+     * @param y the y coordinate on the canvas.
+     * @return the CartesianPlane coordinates.
+     */
+    public DoubleDoubleComplex toDoubleDoubleComplex(double x, double y) {
+        return doubleDoubleCenter.plus(toDeltaReal(x), toDeltaImag(y));
     }
 
     /**
@@ -229,9 +451,9 @@ public class CartesianPlane {
      */
     public CanvasPoint toCanvasPoint(double x, double y) {
         //double tx = (x * (-upLeft.getReal()*scale) * scale);
-        double tx = (x * scale) + (-upLeft.getReal()*scale);
+        double tx = (x * scale) + (-origin.getReal()*scale) - originOffsetX;
         //double ty = (y * (upLeft.getImag()*scale) * scale);
-        double ty = (y * -scale) + (upLeft.getImag()*scale);
+        double ty = (y * -scale) + (origin.getImag()*scale) - originOffsetY;
         return new CanvasPoint(tx, ty);
     }
 
@@ -17,12 +17,13 @@
 
 package io.github.deglans.fractal.utility;
 
+import java.util.Arrays;
 import javafx.scene.paint.Color;
 
 /**
  * ColorPalette contains all the information about how to color fractals.
  *
- * @version 0.1
+ * @version 0.5
  * @author Deglans Dalpasso
  */
 public class ColorPalette {
@@ -57,6 +58,12 @@ public class ColorPalette {
      */
     public static final Color DEFAULT_COLOR_SET_HUE = Color.BLACK;
 
+    /**
+     * The distance from the boundary of the set, in pixels, that takes the
+     * first color of the palette when the fractals are colored by distance.
+     */
+    public static final double DISTANCE_RANGE = 64;
+
     /**
      * The color palette.
      */
@@ -158,4 +165,90 @@ public class ColorPalette {
         }
     }
 
+    /**
+     * Get the color at a continuous position of the palette, interpolated
+     * between the two nearest colors.
+     *
+     * @param position the position, from 0 (first color) to 1 (last color).
+     * @return the color at position, or the color for the points that are in
+     *         the set if position is NaN.
+     */
+    public Color getContinuousColor(double position) {
+        if (Double.isNaN(position)) {
+            return colorSet;
+        }
+        double index = Math.max(0, Math.min(1, position)) * (paletteLength - 1);
+        int i = (int) index;
+        if (i >= paletteLength - 1) {
+            return colorPalette[paletteLength - 1];
+        }
+        return colorPalette[i].interpolate(colorPalette[i + 1], index - i);
+    }
+
+    /**
+     * Get the color for the points that are in the set.
+     *
+     * @return the color for the points that are in the set.
+     */
+    public Color getColorSet() {
+        return colorSet;
+    }
+
+    /**
+     * Convert a color in a packed ARGB int (8 bits for channel), the format
+     * of PixelFormat.getIntArgbInstance() used to write whole rows at once.
+     * The channels are rounded as PixelWriter.setColor() does.
+     *
+     * @param color the color.
+     * @return the color as 0xAARRGGBB.
+     */
+    public static int toArgb(Color color) {
+        return ((int) Math.round(color.getOpacity() * 255) << 24)
+                | ((int) Math.round(color.getRed() * 255) << 16)
+                | ((int) Math.round(color.getGreen() * 255) << 8)
+                | (int) Math.round(color.getBlue() * 255);
+    }
+
+    /**
+     * Get the color of a point from its distance from the boundary of the set:
+     * the boundary takes the last color of the palette (as the points that
+     * need the most iterations), DISTANCE_RANGE pixels or more the first one,
+     * with a logarithmic scale between them.
+     *
+     * @param distance the distance in pixels, negative for the points in the set.
+     * @return the color associated with distance.
+     */
+    public Color getDistanceColor(double distance) {
+        if (distance < 0) {
+            return colorSet;
+        }
+        double t = Math.min(1, Math.log1p(distance) / Math.log1p(DISTANCE_RANGE));
+        return colorPalette[(int) Math.round((paletteLength - 1) * (1 - t))];
+    }
+
+    /**
+     * Two palettes are equal if they give the same color to every index,
+     * used to know if the pixels of a previous calculus can be reused.
+     *
+     * @param obj the object to compare.
+     * @return true if obj is a ColorPalette with the same colors.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ColorPalette)) {
+            return false;
+        }
+        ColorPalette other = (ColorPalette) obj;
+        return (paletteLength == other.paletteLength) && colorSet.equals(other.colorSet)
+                && Arrays.equals(colorPalette, other.colorPalette);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(colorPalette) + colorSet.hashCode();
+    }
+
 }
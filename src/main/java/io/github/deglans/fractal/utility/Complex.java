@@ -28,11 +28,17 @@ import javafx.animation.Interpolatable;
  * https://en.wikipedia.org/wiki/Complex_number
  * http://mathworld.wolfram.com/ComplexExponentiation.html
  *
- * @version 0.10
+ * @version 0.11
  * @author Deglans Dalpasso
  */
 public class Complex implements Interpolatable<Complex> {
 
+    /**
+     * Maximum absolute value of an integer exponent calculated by multiplications
+     * instead of the trigonometric formula (see isSmallInteger()).
+     */
+    public static final int MAX_INTEGER_POWER = 64;
+
     /**
      * The real part of Complex number.
      */
@@ -200,12 +206,28 @@ public class Complex implements Interpolatable<Complex> {
     }
 
     /**
-     * Returns this Complex number raised to the power of n using De Moivre's formula.
+     * Check if this Complex number is a real integer small enough to be used
+     * as exponent by the multiplication based power.
+     *
+     * @return true if the imaginary part is zero and the real part is an integer
+     *         with absolute value less than or equal to MAX_INTEGER_POWER.
+     */
+    public boolean isSmallInteger() {
+        return (im == 0) && (re == Math.rint(re)) && (Math.abs(re) <= MAX_INTEGER_POWER);
+    }
+
+    /**
+     * Returns this Complex number raised to the power of n.
+     * If n is a small integer use exponentiation by squaring,
+     * else use De Moivre's formula.
      *
      * @param n the exponent.
      * @return this Complex number raised to the power of n.
      */
     public Complex pow(int n) {
+        if (Math.abs(n) <= MAX_INTEGER_POWER) {
+            return powBySquaring(n);
+        }
         double new_mod = Math.pow(mod(), n);
         double new_arg = arg() * n;
         double new_real = new_mod * Math.cos(new_arg);
@@ -223,6 +245,9 @@ public class Complex implements Interpolatable<Complex> {
         if ((re == 0) && (im == 0)) {
             return new Complex(0, 0);
         }
+        else if (z.isSmallInteger()) {
+            return powBySquaring((int) z.re);
+        }
         else {
             double new_mod = Math.pow((re*re + im*im), z.re/2) * Math.exp(-z.im * arg());
             double new_arg = (z.re * arg()) + (0.5 * z.im * Math.log(re*re + im*im));
@@ -232,6 +257,45 @@ public class Complex implements Interpolatable<Complex> {
         }
     }
 
+    /**
+     * Returns this Complex number raised to the power of n using
+     * exponentiation by squaring, only multiplications (and a division
+     * for negative n) are used.
+     * z^0 is 1 for every z (as Math.pow()), as pow(Complex) zero raised to
+     * a negative power is zero.
+     *
+     * @param n the exponent.
+     * @return this Complex number raised to the power of n.
+     */
+    private Complex powBySquaring(int n) {
+        if ((n < 0) && (re == 0) && (im == 0)) {
+            return new Complex(0, 0);
+        }
+
+        double res_re = 1;
+        double res_im = 0;
+        double base_re = re;
+        double base_im = im;
+        double tmp;
+
+        for (int e = Math.abs(n); e > 0; e >>= 1) {
+            if ((e & 1) != 0) {
+                tmp = res_re * base_re - res_im * base_im;
+                res_im = res_re * base_im + res_im * base_re;
+                res_re = tmp;
+            }
+            tmp = base_re * base_re - base_im * base_im;
+            base_im = 2 * base_re * base_im;
+            base_re = tmp;
+        }
+
+        if (n < 0) {
+            double den = res_re * res_re + res_im * res_im;
+            return new Complex(res_re / den, -res_im / den);
+        }
+        return new Complex(res_re, res_im);
+    }
+
     /**
      * The function calculates an interpolated value along the fraction t between 0.0 and 1.0.
      * When t = 1.0, endVal is returned.
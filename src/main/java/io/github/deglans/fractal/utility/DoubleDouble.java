@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.utility;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * DoubleDouble implements a real number as the unevaluated sum of two
+ * doubles hi + lo, with |lo| at most half ulp of hi: about 106 bits of
+ * mantissa (32 decimal digits) with the range of a double.
+ * The operations are the error-free transformations of Dekker and Knuth,
+ * the products use Math.fma().
+ *
+ * http://crd-legacy.lbl.gov/~dhbailey/mpdist/
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public class DoubleDouble {
+
+    /**
+     * The DoubleDouble zero.
+     */
+    public static final DoubleDouble ZERO = new DoubleDouble(0, 0);
+
+    /**
+     * The significant digits of a DoubleDouble.
+     */
+    public static final MathContext DECIMAL106 = new MathContext(32);
+
+    /**
+     * The high part.
+     */
+    private final double hi;
+
+    /**
+     * The low part.
+     */
+    private final double lo;
+
+    /**
+     * Create a new DoubleDouble number hi + lo, the parts must be normalized
+     * (see normalize()).
+     *
+     * @param hi the high part.
+     * @param lo the low part.
+     */
+    public DoubleDouble(double hi, double lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    /**
+     * Create a new DoubleDouble number with the value of a double.
+     *
+     * @param x the double.
+     */
+    public DoubleDouble(double x) {
+        this(x, 0);
+    }
+
+    /**
+     * Return the DoubleDouble nearest to a BigDecimal.
+     *
+     * @param x the BigDecimal.
+     * @return the DoubleDouble nearest to x.
+     */
+    public static DoubleDouble valueOf(BigDecimal x) {
+        double hi = x.doubleValue();
+        double lo = x.subtract(new BigDecimal(hi)).doubleValue();
+        return normalize(hi, lo);
+    }
+
+    /**
+     * Return the normalized DoubleDouble of a + b, with |a| greater than or
+     * equal to |b| (Fast2Sum).
+     *
+     * @param a the greater addend.
+     * @param b the smaller addend.
+     * @return a + b.
+     */
+    public static DoubleDouble normalize(double a, double b) {
+        double s = a + b;
+        return new DoubleDouble(s, b - (s - a));
+    }
+
+    /**
+     * Return a string that represent this DoubleDouble number.
+     *
+     * @return the decimal value with 32 significant digits.
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().round(DECIMAL106).toString();
+    }
+
+    /**
+     * Return the high part.
+     *
+     * @return the high part.
+     */
+    public double getHi() {
+        return hi;
+    }
+
+    /**
+     * Return the low part.
+     *
+     * @return the low part.
+     */
+    public double getLo() {
+        return lo;
+    }
+
+    /**
+     * Return the double nearest to this DoubleDouble number.
+     *
+     * @return the high part.
+     */
+    public double doubleValue() {
+        return hi;
+    }
+
+    /**
+     * Return the exact value of this DoubleDouble number.
+     *
+     * @return hi + lo as BigDecimal.
+     */
+    public BigDecimal toBigDecimal() {
+        return new BigDecimal(hi).add(new BigDecimal(lo));
+    }
+
+    /**
+     * Return a new DoubleDouble number whose value is (this + w).
+     *
+     * @param w the DoubleDouble number to add.
+     * @return this + w.
+     */
+    public DoubleDouble plus(DoubleDouble w) {
+        // TwoSum of the high parts and of the low parts
+        double s = hi + w.hi;
+        double v = s - hi;
+        double e = (hi - (s - v)) + (w.hi - v);
+        double t = lo + w.lo;
+        double u = t - lo;
+        double f = (lo - (t - u)) + (w.lo - u);
+        e += t;
+        double s1 = s + e;
+        e = e - (s1 - s);
+        e += f;
+        double s2 = s1 + e;
+        return new DoubleDouble(s2, e - (s2 - s1));
+    }
+
+    /**
+     * Return a new DoubleDouble number whose value is (this + w).
+     *
+     * @param w the double to add.
+     * @return this + w.
+     */
+    public DoubleDouble plus(double w) {
+        double s = hi + w;
+        double v = s - hi;
+        double e = (hi - (s - v)) + (w - v) + lo;
+        return normalize(s, e);
+    }
+
+    /**
+     * Return a new DoubleDouble number whose value is (this - w).
+     *
+     * @param w the DoubleDouble number to subtract.
+     * @return this - w.
+     */
+    public DoubleDouble minus(DoubleDouble w) {
+        return plus(w.negate());
+    }
+
+    /**
+     * Return a new DoubleDouble number whose value is (-this).
+     *
+     * @return -this.
+     */
+    public DoubleDouble negate() {
+        return new DoubleDouble(-hi, -lo);
+    }
+
+    /**
+     * Return a new DoubleDouble number whose value is |this|.
+     *
+     * @return the absolute value of this.
+     */
+    public DoubleDouble abs() {
+        return (hi < 0) ? negate() : this;
+    }
+
+    /**
+     * Return a new DoubleDouble number whose value is (this * w).
+     *
+     * @param w the DoubleDouble number to multiply.
+     * @return this * w.
+     */
+    public DoubleDouble times(DoubleDouble w) {
+        double p = hi * w.hi;
+        double e = Math.fma(hi, w.hi, -p) + (hi * w.lo + lo * w.hi);
+        return normalize(p, e);
+    }
+
+    /**
+     * Return a new DoubleDouble number whose value is (this * w).
+     *
+     * @param w the double to multiply.
+     * @return this * w.
+     */
+    public DoubleDouble times(double w) {
+        double p = hi * w;
+        double e = Math.fma(hi, w, -p) + lo * w;
+        return normalize(p, e);
+    }
+
+    /**
+     * Return a new DoubleDouble number whose value is (this * this).
+     *
+     * @return this^2.
+     */
+    public DoubleDouble square() {
+        double p = hi * hi;
+        double e = Math.fma(hi, hi, -p) + 2 * hi * lo;
+        return normalize(p, e);
+    }
+
+}
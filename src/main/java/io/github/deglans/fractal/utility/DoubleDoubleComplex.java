@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.utility;
+
+/**
+ * DoubleDoubleComplex implements a complex number with DoubleDouble parts,
+ * it's used for the zoom where a Complex can't distinguish two pixels but
+ * the 32 digits of a DoubleDouble are still enough.
+ *
+ * @version 0.1
+ * @author Deglans Dalpasso
+ */
+public class DoubleDoubleComplex {
+
+    /**
+     * The DoubleDoubleComplex zero.
+     */
+    public static final DoubleDoubleComplex ZERO = new DoubleDoubleComplex(DoubleDouble.ZERO, DoubleDouble.ZERO);
+
+    /**
+     * The real part of DoubleDoubleComplex number.
+     */
+    private final DoubleDouble re;
+
+    /**
+     * The imaginary part of DoubleDoubleComplex number.
+     */
+    private final DoubleDouble im;
+
+    /**
+     * Create a new DoubleDoubleComplex number with the given real and imaginary parts.
+     *
+     * @param real the DoubleDoubleComplex number real part.
+     * @param imag the DoubleDoubleComplex number imaginary part.
+     */
+    public DoubleDoubleComplex(DoubleDouble real, DoubleDouble imag) {
+        re = real;
+        im = imag;
+    }
+
+    /**
+     * Create a new DoubleDoubleComplex number nearest to a BigComplex number.
+     *
+     * @param z the BigComplex number.
+     */
+    public DoubleDoubleComplex(BigComplex z) {
+        re = DoubleDouble.valueOf(z.getReal());
+        im = DoubleDouble.valueOf(z.getImag());
+    }
+
+    /**
+     * Create a new DoubleDoubleComplex number with the value of a Complex number.
+     *
+     * @param z the Complex number.
+     */
+    public DoubleDoubleComplex(Complex z) {
+        re = new DoubleDouble(z.getReal());
+        im = new DoubleDouble(z.getImag());
+    }
+
+    /**
+     * Return a string that represent this DoubleDoubleComplex number.
+     *
+     * @return a string in the format (real, imaginary).
+     */
+    @Override
+    public String toString() {
+        return "(" + re.toString() + ", " + im.toString() + ")";
+    }
+
+    /**
+     * Return the real part of this DoubleDoubleComplex number.
+     *
+     * @return the real part of this DoubleDoubleComplex number.
+     */
+    public DoubleDouble getReal() {
+        return re;
+    }
+
+    /**
+     * Return the imaginary part of this DoubleDoubleComplex number.
+     *
+     * @return the imaginary part of this DoubleDoubleComplex number.
+     */
+    public DoubleDouble getImag() {
+        return im;
+    }
+
+    /**
+     * Return the nearest Complex number.
+     *
+     * @return the Complex number nearest to this DoubleDoubleComplex number.
+     */
+    public Complex toComplex() {
+        return new Complex(re.doubleValue(), im.doubleValue());
+    }
+
+    /**
+     * Return a new DoubleDoubleComplex number whose value is (this + w).
+     *
+     * @param w the DoubleDoubleComplex number to add.
+     * @return this + w.
+     */
+    public DoubleDoubleComplex plus(DoubleDoubleComplex w) {
+        return new DoubleDoubleComplex(re.plus(w.re), im.plus(w.im));
+    }
+
+    /**
+     * Return a new DoubleDoubleComplex number whose value is (this + (wRe, wIm)).
+     *
+     * @param wRe the real part of the number to add.
+     * @param wIm the imaginary part of the number to add.
+     * @return this + (wRe, wIm).
+     */
+    public DoubleDoubleComplex plus(double wRe, double wIm) {
+        return new DoubleDoubleComplex(re.plus(wRe), im.plus(wIm));
+    }
+
+    /**
+     * Return a new DoubleDoubleComplex number whose value is (-this).
+     *
+     * @return -this.
+     */
+    public DoubleDoubleComplex negate() {
+        return new DoubleDoubleComplex(re.negate(), im.negate());
+    }
+
+    /**
+     * Return a new DoubleDoubleComplex number whose value is (this * w).
+     *
+     * @param w the DoubleDoubleComplex number to multiply.
+     * @return this * w.
+     */
+    public DoubleDoubleComplex times(DoubleDoubleComplex w) {
+        return new DoubleDoubleComplex(re.times(w.re).minus(im.times(w.im)),
+                re.times(w.im).plus(im.times(w.re)));
+    }
+
+    /**
+     * Return a new DoubleDoubleComplex number whose value is (this * this).
+     *
+     * @return this^2.
+     */
+    public DoubleDoubleComplex square() {
+        return new DoubleDoubleComplex(re.square().minus(im.square()), re.times(im).times(2));
+    }
+
+    /**
+     * Return a new DoubleDoubleComplex number whose value is (this ^ n),
+     * calculated by repeated squaring.
+     *
+     * @param n the exponent, greater than or equal to 1.
+     * @return this ^ n.
+     */
+    public DoubleDoubleComplex pow(int n) {
+        DoubleDoubleComplex result = null;
+        DoubleDoubleComplex base = this;
+        while (n > 0) {
+            if ((n & 1) == 1) {
+                result = (result == null) ? base : result.times(base);
+            }
+            n >>= 1;
+            if (n > 0) {
+                base = base.square();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Return a new DoubleDoubleComplex number with the absolute value of both parts.
+     *
+     * @return |re| + i*|im|.
+     */
+    public DoubleDoubleComplex abs() {
+        return new DoubleDoubleComplex(re.abs(), im.abs());
+    }
+
+    /**
+     * Return the square of the modulus, rounded to double.
+     *
+     * @return |this|^2.
+     */
+    public double modSquared() {
+        return re.doubleValue() * re.doubleValue() + im.doubleValue() * im.doubleValue();
+    }
+
+}
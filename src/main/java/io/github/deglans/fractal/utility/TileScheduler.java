@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.utility;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BooleanSupplier;
+
+/**
+ * TileScheduler splits an image in square tiles and renders them on a
+ * dedicated work-stealing pool: the cost of the pixels changes a lot (the
+ * pixels of the set take all the iterations) and with small tiles the
+ * threads that finish early steal the work of the others, instead of
+ * waiting for the slowest row.
+ * The tiles are split in halves recursively, so every thread works on
+ * near tiles until it steals. The cancellation is checked before every
+ * tile and the time of every tile is recorded.
+ * The pool lives as long as the scheduler (its idle threads stop by
+ * themselves), so the renderers share DEFAULT instead of creating one.
+ *
+ * @version 0.2
+ * @author Deglans Dalpasso
+ */
+public class TileScheduler {
+
+    /**
+     * The default side of a tile in pixels.
+     */
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    /**
+     * The scheduler with the default tile size and a thread for every processor.
+     */
+    public static final TileScheduler DEFAULT = new TileScheduler();
+
+    /**
+     * The side of a tile in pixels.
+     */
+    private final int tileSize;
+
+    /**
+     * The number of threads of the pool.
+     */
+    private final int threads;
+
+    /**
+     * The work-stealing pool of the tiles, reused by every render().
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a TileScheduler with the default tile size and a thread for every processor,
+     * use DEFAULT to share its pool.
+     */
+    public TileScheduler() {
+        this(DEFAULT_TILE_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a TileScheduler.
+     *
+     * @param tileSize the side of a tile in pixels.
+     * @param threads the number of threads of the pool.
+     * @throws IllegalArgumentException if tileSize or threads are less than 1.
+     */
+    public TileScheduler(int tileSize, int threads) {
+        if ((tileSize < 1) || (threads < 1)) {
+            throw new IllegalArgumentException("Tile size and threads must be positive: "
+                    + tileSize + ", " + threads);
+        }
+        this.tileSize = tileSize;
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Return the side of a tile in pixels.
+     *
+     * @return the side of a tile in pixels.
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Return the number of threads of the pool.
+     *
+     * @return the number of threads of the pool.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Return the number of tiles of an image (the last row and column of tiles can be smaller).
+     *
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @return the number of tiles.
+     */
+    public int getTileCount(int width, int height) {
+        return tiles(width) * tiles(height);
+    }
+
+    /**
+     * Render every tile of an image and wait the end, the tiles skipped
+     * because cancelled have cost 0.
+     *
+     * @param width the width of the image.
+     * @param height the height of the image.
+     * @param renderer the function that renders a tile.
+     * @param cancelled return true if the rendering is cancelled.
+     * @return the time taken by every tile in nanoseconds, by rows of tiles.
+     */
+    public long[] render(int width, int height, TileRenderer renderer, BooleanSupplier cancelled) {
+        long[] costs = new long[getTileCount(width, height)];
+        pool.invoke(new TileTask(width, height, renderer, cancelled, costs, 0, costs.length));
+        return costs;
+    }
+
+    /**
+     * Return the number of tiles needed to cover a length.
+     *
+     * @param length the length in pixels.
+     * @return the number of tiles.
+     */
+    private int tiles(int length) {
+        return (length + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * TileRenderer renders the pixels of a tile: x0 <= x < x1 and y0 <= y < y1.
+     */
+    @FunctionalInterface
+    public interface TileRenderer {
+
+        /**
+         * Render a tile.
+         *
+         * @param x0 the first column of the tile.
+         * @param y0 the first row of the tile.
+         * @param x1 the column after the last one.
+         * @param y1 the row after the last one.
+         */
+        void render(int x0, int y0, int x1, int y1);
+
+    }
+
+    /**
+     * TileTask renders a range of tiles, split in halves until one tile.
+     */
+    private final class TileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int width;
+
+        private final int height;
+
+        private final TileRenderer renderer;
+
+        private final BooleanSupplier cancelled;
+
+        private final long[] costs;
+
+        private final int first;
+
+        private final int end;
+
+        TileTask(int width, int height, TileRenderer renderer, BooleanSupplier cancelled,
+                long[] costs, int first, int end) {
+            this.width = width;
+            this.height = height;
+            this.renderer = renderer;
+            this.cancelled = cancelled;
+            this.costs = costs;
+            this.first = first;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - first > 1) {
+                int middle = (first + end) >>> 1;
+                invokeAll(new TileTask(width, height, renderer, cancelled, costs, first, middle),
+                        new TileTask(width, height, renderer, cancelled, costs, middle, end));
+                return;
+            }
+            if ((first == end) || cancelled.getAsBoolean()) {
+                return;
+            }
+            int x0 = (first % tiles(width)) * tileSize;
+            int y0 = (first / tiles(width)) * tileSize;
+            long start = System.nanoTime();
+            renderer.render(x0, y0, Math.min(x0 + tileSize, width), Math.min(y0 + tileSize, height));
+            costs[first] = System.nanoTime() - start;
+        }
+
+    }
+
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2018. Deglans Dalpasso <deglans@gmail.com>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.github.deglans.fractal.mandelbrot;
+
+import io.github.deglans.fractal.utility.CanvasPoint;
+import io.github.deglans.fractal.utility.CartesianPlane;
+import io.github.deglans.fractal.utility.ColorPalette;
+import io.github.deglans.fractal.utility.Complex;
+
+import javafx.scene.paint.Color;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * MandelbrotBaseTest renders small images of every fractal of the
+ * FractalFactory with every RenderStrategy and with the reuse of the
+ * previous frame, and compares them with the brute force.
+ * The strategies that guess pixels (see RenderStrategy) can differ in less
+ * than GUESS_TOLERANCE of the pixels, a second brute force must give the
+ * same pixels, as the reuse of the previous frame and the VECTOR
+ * KernelEngine for the powers that the RowKernel doesn't iterate.
+ * A deep zoom outside the escape radius must be rendered by the perturbation,
+ * and a palette with a transparent color must not make glitches.
+ * The images are calculated without the JavaFX toolkit (no image).
+ *
+ * @version 0.4
+ * @author Deglans Dalpasso
+ */
+public class MandelbrotBaseTest {
+
+    /**
+     * The width and the height of the images.
+     */
+    private static final int SIZE = 96;
+
+    /**
+     * The maximum number of iterations.
+     */
+    private static final int MAX_ITERATIONS = 1000;
+
+    /**
+     * The maximum fraction of the pixels that a strategy can guess wrong.
+     */
+    private static final double GUESS_TOLERANCE = 0.01;
+
+    /**
+     * The views of the tests: the whole set and the seahorse valley.
+     */
+    private static final Complex[][] VIEWS = {
+        {new Complex(-2, 2), new Complex(2, -2)},
+        {new Complex(-0.76, 0.11), new Complex(-0.74, 0.09)}
+    };
+
+    @Test
+    public void strategiesMatchBruteForce() throws Exception {
+        for (String type : FractalFactory.FRACTAL_LIST) {
+            for (Complex[] view : VIEWS) {
+                int[] expected = render(type, RenderStrategy.BRUTE_FORCE, newPlane(view), null).pixels;
+                for (RenderStrategy strategy : RenderStrategy.values()) {
+                    int[] actual = render(type, strategy, newPlane(view), null).pixels;
+                    int different = countDifferent(expected, actual);
+                    String message = type + " " + strategy + " at " + view[0] + ": " + different + " pixels";
+                    if (strategy == RenderStrategy.BRUTE_FORCE) {
+                        assertEquals(message, 0, different);
+                    }
+                    else {
+                        assertTrue(message, different <= GUESS_TOLERANCE * expected.length);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void reuseAfterPanMatchesBruteForce() throws Exception {
+        for (String type : FractalFactory.FRACTAL_LIST) {
+            for (Complex[] view : VIEWS) {
+                Result previous = render(type, RenderStrategy.BRUTE_FORCE, newPlane(view), null);
+                CartesianPlane plane = newPlane(view);
+                plane.move(new CanvasPoint(40, 30), new CanvasPoint(27, 37));
+                // All the pixels still visible: 13 columns and 7 rows are new
+                assertReuseMatches(type, plane, previous, (SIZE - 13) * (SIZE - 7));
+            }
+        }
+    }
+
+    @Test
+    public void reuseAfterZoomOutMatchesBruteForce() throws Exception {
+        // A view far from the real axis: near it the symmetry saves more pixels than the reuse
+        Complex[] view = VIEWS[1];
+        for (String type : FractalFactory.FRACTAL_LIST) {
+            // After a pan the origin is no more at the corner of the canvas
+            CartesianPlane plane = newPlane(view);
+            plane.move(new CanvasPoint(40, 30), new CanvasPoint(27, 37));
+            Result previous = render(type, RenderStrategy.BRUTE_FORCE, plane, null);
+            plane.zoomAtCanvasPoint(21, 17, 2);
+            // One column and one row out of two were already calculated
+            assertReuseMatches(type, plane, previous, (SIZE / 2) * (SIZE / 2));
+        }
+    }
+
+    @Test
+    public void vectorEngineFallsBackForOtherPowers() throws Exception {
+        // The RowKernel iterates only the power 2, the others are iterated pixel by pixel
+        for (String type : FractalFactory.FRACTAL_LIST) {
+            for (Complex power : new Complex[] {new Complex(3, 0), new Complex(-2, 0)}) {
+                int[] expected = render(type, power, KernelEngine.SCALAR, RenderStrategy.BRUTE_FORCE,
+                        newPlane(VIEWS[0]), null).pixels;
+                int[] actual = render(type, power, KernelEngine.VECTOR, RenderStrategy.BRUTE_FORCE,
+                        newPlane(VIEWS[0]), null).pixels;
+                assertEquals(type + " power " + power, 0, countDifferent(expected, actual));
+            }
+        }
+    }
+
+    @Test
+    public void perturbationOutsideEscapeRadiusRenders() throws Exception {
+        // Pixels of 1e-15 at 2.5: the reference orbit of the Julia sets escapes at once
+        double side = SIZE * 1e-15 / 2;
+        Complex[] view = {new Complex(2.5 - side, side), new Complex(2.5 + side, -side)};
+        boolean perturbation = false;
+        for (String type : FractalFactory.FRACTAL_LIST) {
+            Result result = render(type, RenderStrategy.BRUTE_FORCE, newPlane(view), null);
+            perturbation |= (result.statistics.getPrecision() == Precision.PERTURBATION);
+            for (int argb : result.pixels) {
+                assertTrue(type + " has pixels not calculated", (argb >>> 24) != 0);
+            }
+        }
+        assertTrue("no fractal used the perturbation", perturbation);
+    }
+
+    @Test
+    public void transparentPaletteIsNotGlitch() throws Exception {
+        // Pixels of 1e-15 inside the main cardioid: every pixel has the color of the set
+        double side = SIZE * 1e-15 / 2;
+        Complex[] view = {new Complex(-0.1 - side, 0.1 + side), new Complex(-0.1 + side, 0.1 - side)};
+        ColorPalette palette = new ColorPalette(MAX_ITERATIONS, new Color[] {Color.BLACK, Color.WHITE},
+                new double[] {0, 1}, Color.TRANSPARENT);
+        DataBox dataBox = new DataBox(MAX_ITERATIONS, new Complex(2, 0), new Complex(-0.8, 0.156),
+                newPlane(view), null);
+        MandelbrotBase fractal = FractalFactory.bulidFractal("Mandelbrot Simple", dataBox, palette);
+        fractal.call();
+        assertEquals(Precision.PERTURBATION, fractal.getStatistics().getPrecision());
+        assertEquals(0, fractal.getStatistics().getGlitchedPixels());
+    }
+
+    /**
+     * Render the plane reusing the previous frame, with every strategy,
+     * and check that the expected pixels are reused and that the image is
+     * equal to the brute force.
+     *
+     * @param type the name of the fractal.
+     * @param plane the plane of the new frame.
+     * @param previous the previous frame.
+     * @param reusedPixels the number of pixels that must be reused.
+     * @throws Exception if the calculus fails.
+     */
+    private static void assertReuseMatches(String type, CartesianPlane plane, Result previous,
+            long reusedPixels) throws Exception {
+        int[] expected = render(type, RenderStrategy.BRUTE_FORCE, plane, null).pixels;
+        for (RenderStrategy strategy : RenderStrategy.values()) {
+            Result reused = render(type, strategy, plane, previous.frame);
+            String message = type + " " + strategy + " reusing " + reused.statistics.getReusedPixels() + " pixels";
+            assertEquals(message, reusedPixels, reused.statistics.getReusedPixels());
+            assertEquals(message, 0, countDifferent(expected, reused.pixels));
+        }
+    }
+
+    /**
+     * The result of a render.
+     */
+    private static final class Result {
+
+        /**
+         * The pixels in ARGB, by rows.
+         */
+        private final int[] pixels;
+
+        /**
+         * The frame to reuse.
+         */
+        private final RenderedFrame frame;
+
+        /**
+         * The statistics of the render.
+         */
+        private final RenderStatistics statistics;
+
+        private Result(int[] pixels, RenderedFrame frame, RenderStatistics statistics) {
+            this.pixels = pixels;
+            this.frame = frame;
+            this.statistics = statistics;
+        }
+
+    }
+
+    /**
+     * Render the fractal on the plane, the custom palette is the HUE palette.
+     *
+     * @param type the name of the fractal.
+     * @param strategy the render strategy.
+     * @param plane the plane of the image.
+     * @param previous the previous frame to reuse, or null.
+     * @return the pixels (in ARGB, by rows), the frame and the statistics.
+     * @throws Exception if the calculus fails.
+     */
+    private static Result render(String type, RenderStrategy strategy, CartesianPlane plane,
+            RenderedFrame previous) throws Exception {
+        return render(type, new Complex(2, 0), KernelEngine.SCALAR, strategy, plane, previous);
+    }
+
+    /**
+     * Render the fractal on the plane, the custom palette is the HUE palette.
+     *
+     * @param type the name of the fractal.
+     * @param power the power of z.
+     * @param kernelEngine the kernel engine.
+     * @param strategy the render strategy.
+     * @param plane the plane of the image.
+     * @param previous the previous frame to reuse, or null.
+     * @return the pixels (in ARGB, by rows), the frame and the statistics.
+     * @throws Exception if the calculus fails.
+     */
+    private static Result render(String type, Complex power, KernelEngine kernelEngine, RenderStrategy strategy,
+            CartesianPlane plane, RenderedFrame previous) throws Exception {
+        DataBox dataBox = new DataBox(MAX_ITERATIONS, power, new Complex(-0.8, 0.156), plane, null);
+        MandelbrotBase fractal = FractalFactory.bulidFractal(type, dataBox, new ColorPalette(MAX_ITERATIONS, true));
+        fractal.setKernelEngine(kernelEngine);
+        fractal.setRenderStrategy(strategy);
+        fractal.setPreviousFrame(previous);
+        fractal.call();
+        return new Result(fractal.getArgb(), fractal.getFrame(), fractal.getStatistics());
+    }
+
+    /**
+     * Create a plane of SIZE x SIZE pixels on the view.
+     *
+     * @param view the up-left and the down-right corners.
+     * @return the plane.
+     */
+    private static CartesianPlane newPlane(Complex[] view) {
+        return new CartesianPlane(SIZE, SIZE, view[0], view[1]);
+    }
+
+    /**
+     * Count the pixels that differ between two images.
+     *
+     * @param expected the first image.
+     * @param actual the second image.
+     * @return the number of different pixels.
+     */
+    private static int countDifferent(int[] expected, int[] actual) {
+        int different = 0;
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] != actual[i]) {
+                different++;
+            }
+        }
+        return different;
+    }
+
+}